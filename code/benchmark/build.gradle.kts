@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+// JVM-only JMH benchmarks for the Edge Identity data path.
+// Run with `make benchmark` from the repository root, see README.md in this directory.
+// The extension sources are compiled directly against the classes of the Core AAR so the
+// package-private classes can be benchmarked without an Android device or emulator.
+plugins {
+    id("java-library")
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+val mavenCoreVersion: String by project
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+sourceSets {
+    main {
+        java.srcDir("../edgeidentity/src/main/java")
+    }
+}
+
+val coreAar: Configuration by configurations.creating {
+    isTransitive = false
+}
+
+val extractCoreClasses by tasks.registering(Copy::class) {
+    from({ zipTree(coreAar.singleFile) }) {
+        include("classes.jar")
+        rename { "core-$mavenCoreVersion.jar" }
+    }
+    into(layout.buildDirectory.dir("core"))
+}
+
+dependencies {
+    coreAar("com.adobe.marketing.mobile:core:$mavenCoreVersion@aar")
+
+    implementation(files(layout.buildDirectory.file("core/core-$mavenCoreVersion.jar")).builtBy(extractCoreClasses))
+    implementation("androidx.annotation:annotation:1.3.0")
+    // org.json is part of the Android platform, provide it for the JVM
+    implementation("org.json:json:20231013")
+    // Android platform stubs, only needed to resolve Core API signatures. The stubs throw when called,
+    // so they are kept off the runtime classpath: android.util.Log and android.util.Base64 are replaced by
+    // shims in src/jmh/java and the benchmarks never go through ServiceProvider or MobileCore.
+    compileOnly("com.google.android:android:4.1.1.4")
+}
+
+jmh {
+    // e.g. ./gradlew -p code/benchmark jmh -PincludeBenchmarks -PjmhIncludes=IdentityMapBenchmark
+    val jmhIncludes: String? by project
+    jmhIncludes?.let { includes.set(listOf(it)) }
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+}
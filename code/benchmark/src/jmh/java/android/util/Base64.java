@@ -0,0 +1,33 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package android.util;
+
+/**
+ * JVM replacement for the Android platform Base64 codec used by the compact persistence format.
+ * <p>
+ * This class shadows {@code android.util.Base64} on the benchmark runtime classpath and delegates to
+ * {@link java.util.Base64}. Only the {@link #NO_WRAP} flag used by the extension is supported.
+ */
+public final class Base64 {
+
+	public static final int NO_WRAP = 2;
+
+	private Base64() {}
+
+	public static String encodeToString(final byte[] input, final int flags) {
+		return java.util.Base64.getEncoder().encodeToString(input);
+	}
+
+	public static byte[] decode(final String str, final int flags) {
+		return java.util.Base64.getDecoder().decode(str);
+	}
+}
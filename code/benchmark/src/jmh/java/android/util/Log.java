@@ -0,0 +1,64 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package android.util;
+
+/**
+ * JVM replacement for the Android platform logger used by the Core logging service.
+ * <p>
+ * The benchmarks only compile against the Android platform stubs, whose methods throw at runtime.
+ * This class shadows {@code android.util.Log} on the benchmark runtime classpath and drops every message,
+ * so a log statement reached from the extension sources never fails a benchmark.
+ */
+public final class Log {
+
+	private Log() {}
+
+	public static int v(final String tag, final String msg) {
+		return 0;
+	}
+
+	public static int v(final String tag, final String msg, final Throwable tr) {
+		return 0;
+	}
+
+	public static int d(final String tag, final String msg) {
+		return 0;
+	}
+
+	public static int d(final String tag, final String msg, final Throwable tr) {
+		return 0;
+	}
+
+	public static int i(final String tag, final String msg) {
+		return 0;
+	}
+
+	public static int i(final String tag, final String msg, final Throwable tr) {
+		return 0;
+	}
+
+	public static int w(final String tag, final String msg) {
+		return 0;
+	}
+
+	public static int w(final String tag, final String msg, final Throwable tr) {
+		return 0;
+	}
+
+	public static int e(final String tag, final String msg) {
+		return 0;
+	}
+
+	public static int e(final String tag, final String msg, final Throwable tr) {
+		return 0;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+/**
+ * Builds the identity fixtures shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+	static final String ORG_ID = "1234567890ABCDEF@AdobeOrg";
+
+	private BenchmarkData() {}
+
+	/**
+	 * Creates an {@link IdentityMap} with {@code namespaceCount} namespaces of {@code itemCount} items each.
+	 *
+	 * @param namespaceCount the number of namespaces
+	 * @param itemCount      the number of items per namespace
+	 * @param idPrefix       the prefix of each item id, items with the same prefix and position share the same id
+	 * @return the created {@code IdentityMap}
+	 */
+	static IdentityMap createIdentityMap(final int namespaceCount, final int itemCount, final String idPrefix) {
+		final IdentityMap identityMap = new IdentityMap();
+
+		for (int n = 0; n < namespaceCount; n++) {
+			for (int i = 0; i < itemCount; i++) {
+				identityMap.addItem(
+					new IdentityItem(idPrefix + i, AuthenticatedState.AUTHENTICATED, i == 0),
+					namespace(n)
+				);
+			}
+		}
+
+		return identityMap;
+	}
+
+	/**
+	 * Creates {@link IdentityProperties} holding a primary and secondary {@link ECID}, an ad ID
+	 * and the customer identifiers created by {@link #createIdentityMap(int, int, String)}.
+	 *
+	 * @param namespaceCount the number of customer namespaces
+	 * @param itemCount      the number of items per customer namespace
+	 * @return the created {@code IdentityProperties}
+	 */
+	static IdentityProperties createIdentityProperties(final int namespaceCount, final int itemCount) {
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		properties.setECIDSecondary(new ECID());
+		properties.setAdId("fe2a6ea0-2e7c-4d0b-8b8e-0f8e4f4b0c4e");
+		properties.updateCustomerIdentifiers(createIdentityMap(namespaceCount, itemCount, "id"));
+		return properties;
+	}
+
+	static String namespace(final int index) {
+		return "namespace" + index;
+	}
+}
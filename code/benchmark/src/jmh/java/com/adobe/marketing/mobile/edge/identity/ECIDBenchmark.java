@@ -0,0 +1,53 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ECIDBenchmark {
+
+	private final ECIDGenerator fastGenerator = new ECIDGenerator(() -> ThreadLocalRandom.current().nextLong());
+	private String ecidString;
+	private String timestamp;
+
+	@Setup
+	public void setup() {
+		ecidString = new ECID().toString();
+		timestamp = String.valueOf(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+	}
+
+	@Benchmark
+	public ECID generateECID() {
+		return new ECID();
+	}
+
+	@Benchmark
+	public String generateECIDString_threadLocalRandom() {
+		return fastGenerator.generate();
+	}
+
+	@Benchmark
+	public String generateURLVariablesPayload() {
+		return URLUtils.generateURLVariablesPayload(timestamp, ecidString, BenchmarkData.ORG_ID);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IdentityMapBenchmark {
+
+	@Param({ "1", "10" })
+	public int namespaceCount;
+
+	@Param({ "1", "10", "100" })
+	public int itemCount;
+
+	private String[] namespaces;
+	private IdentityItem[] items;
+	private IdentityMap identityMap;
+	private IdentityMap updateMap;
+	private IdentityMap removeMap;
+	private Map<String, Object> xdmMap;
+
+	@Setup
+	public void setup() {
+		namespaces = new String[namespaceCount];
+
+		for (int n = 0; n < namespaceCount; n++) {
+			namespaces[n] = BenchmarkData.namespace(n);
+		}
+
+		items = new IdentityItem[itemCount];
+
+		for (int i = 0; i < itemCount; i++) {
+			items[i] = new IdentityItem("id" + i, AuthenticatedState.AUTHENTICATED, false);
+		}
+
+		identityMap = BenchmarkData.createIdentityMap(namespaceCount, itemCount, "id");
+		// half of the update items replace existing items, the other half are new
+		updateMap = BenchmarkData.createIdentityMap(namespaceCount, itemCount, "ID");
+		updateMap.merge(BenchmarkData.createIdentityMap(namespaceCount, itemCount / 2, "new"));
+		removeMap = BenchmarkData.createIdentityMap(namespaceCount, Math.max(1, itemCount / 2), "id");
+		xdmMap = identityMap.asXDMMap(false);
+	}
+
+	@Benchmark
+	public IdentityMap addItem() {
+		final IdentityMap map = new IdentityMap();
+
+		for (final String namespace : namespaces) {
+			for (final IdentityItem item : items) {
+				map.addItem(item, namespace);
+			}
+		}
+
+		return map;
+	}
+
+	@Benchmark
+	public IdentityMap copy() {
+		return new IdentityMap(identityMap);
+	}
+
+	@Benchmark
+	public IdentityMap merge() {
+		final IdentityMap map = new IdentityMap(identityMap);
+		map.merge(updateMap);
+		return map;
+	}
+
+	@Benchmark
+	public IdentityMap remove() {
+		final IdentityMap map = new IdentityMap(identityMap);
+		map.remove(removeMap);
+		return map;
+	}
+
+	@Benchmark
+	public IdentityMap fromXDMMap() {
+		return IdentityMap.fromXDMMap(xdmMap);
+	}
+
+	@Benchmark
+	public Map<String, Object> asXDMMap() {
+		return identityMap.asXDMMap(false);
+	}
+}
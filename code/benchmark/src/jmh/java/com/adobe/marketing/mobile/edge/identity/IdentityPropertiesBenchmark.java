@@ -0,0 +1,65 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IdentityPropertiesBenchmark {
+
+	private static final String[] AD_IDS = {
+		"fe2a6ea0-2e7c-4d0b-8b8e-0f8e4f4b0c4e",
+		"0b8f4a3c-7d6e-4f5a-9b8c-1d2e3f4a5b6c",
+	};
+
+	@Param({ "1", "10" })
+	public int namespaceCount;
+
+	@Param({ "1", "10", "100" })
+	public int itemCount;
+
+	private IdentityProperties properties;
+	private int adIdIndex;
+
+	@Setup
+	public void setup() {
+		properties = BenchmarkData.createIdentityProperties(namespaceCount, itemCount);
+	}
+
+	@Benchmark
+	public Map<String, Object> toXDMData() {
+		return properties.toXDMData(false);
+	}
+
+	@Benchmark
+	public Map<String, Object> toXDMData_afterModification() {
+		adIdIndex ^= 1;
+		properties.setAdId(AD_IDS[adIdIndex]);
+		return properties.toXDMData(false);
+	}
+
+	@Benchmark
+	public ECID getECID() {
+		return properties.getECID();
+	}
+}
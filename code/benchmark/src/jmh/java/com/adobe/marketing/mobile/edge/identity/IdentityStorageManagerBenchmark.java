@@ -0,0 +1,68 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IdentityStorageManagerBenchmark {
+
+	@Param({ "1", "10" })
+	public int namespaceCount;
+
+	@Param({ "1", "10", "100" })
+	public int itemCount;
+
+	@Param({ "false", "true" })
+	public boolean compactFormat;
+
+	private IdentityStorageManager storageManager;
+	private IdentityProperties properties;
+	private IdentityJournalEntry journalEntry;
+
+	@Setup
+	public void setup() {
+		storageManager = new IdentityStorageManager(new InMemoryDataStoring());
+		storageManager.setCompactFormatEnabled(compactFormat);
+		storageManager.setJournalEnabled(true);
+		properties = BenchmarkData.createIdentityProperties(namespaceCount, itemCount);
+		journalEntry = IdentityJournalEntry.setAdId("adId");
+		storageManager.savePropertiesToPersistence(properties);
+	}
+
+	@Benchmark
+	public void save() {
+		storageManager.savePropertiesToPersistence(properties);
+	}
+
+	// amortized over the journal length, including the compaction into a snapshot every
+	// JOURNAL_COMPACTION_THRESHOLD appends, to compare with save()
+	@Benchmark
+	public boolean appendToJournal() {
+		return storageManager.appendToJournal(properties, journalEntry);
+	}
+
+	@Benchmark
+	public IdentityProperties load() {
+		return storageManager.loadPropertiesFromPersistence();
+	}
+}
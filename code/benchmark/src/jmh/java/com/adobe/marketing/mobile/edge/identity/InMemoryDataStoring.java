@@ -0,0 +1,136 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import com.adobe.marketing.mobile.services.DataStoring;
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link DataStoring} keeping every {@link NamedCollection} in memory, used to benchmark persistence
+ * without the cost of the platform storage.
+ */
+final class InMemoryDataStoring implements DataStoring {
+
+	private final Map<String, NamedCollection> collections = new HashMap<>();
+
+	@Override
+	public NamedCollection getNamedCollection(final String collectionName) {
+		NamedCollection collection = collections.get(collectionName);
+
+		if (collection == null) {
+			collection = new InMemoryNamedCollection();
+			collections.put(collectionName, collection);
+		}
+
+		return collection;
+	}
+
+	private static final class InMemoryNamedCollection implements NamedCollection {
+
+		private final Map<String, Object> values = new HashMap<>();
+
+		@Override
+		public void setInt(final String key, final int value) {
+			values.put(key, value);
+		}
+
+		@Override
+		public int getInt(final String key, final int defaultValue) {
+			final Object value = values.get(key);
+			return value instanceof Integer ? (Integer) value : defaultValue;
+		}
+
+		@Override
+		public void setString(final String key, final String value) {
+			values.put(key, value);
+		}
+
+		@Override
+		public String getString(final String key, final String defaultValue) {
+			final Object value = values.get(key);
+			return value instanceof String ? (String) value : defaultValue;
+		}
+
+		@Override
+		public void setDouble(final String key, final double value) {
+			values.put(key, value);
+		}
+
+		@Override
+		public double getDouble(final String key, final double defaultValue) {
+			final Object value = values.get(key);
+			return value instanceof Double ? (Double) value : defaultValue;
+		}
+
+		@Override
+		public void setLong(final String key, final long value) {
+			values.put(key, value);
+		}
+
+		@Override
+		public long getLong(final String key, final long defaultValue) {
+			final Object value = values.get(key);
+			return value instanceof Long ? (Long) value : defaultValue;
+		}
+
+		@Override
+		public void setFloat(final String key, final float value) {
+			values.put(key, value);
+		}
+
+		@Override
+		public float getFloat(final String key, final float defaultValue) {
+			final Object value = values.get(key);
+			return value instanceof Float ? (Float) value : defaultValue;
+		}
+
+		@Override
+		public void setBoolean(final String key, final boolean value) {
+			values.put(key, value);
+		}
+
+		@Override
+		public boolean getBoolean(final String key, final boolean defaultValue) {
+			final Object value = values.get(key);
+			return value instanceof Boolean ? (Boolean) value : defaultValue;
+		}
+
+		@Override
+		public void setMap(final String key, final Map<String, String> value) {
+			values.put(key, value != null ? new HashMap<>(value) : null);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Map<String, String> getMap(final String key) {
+			final Object value = values.get(key);
+			return value instanceof Map ? new HashMap<>((Map<String, String>) value) : null;
+		}
+
+		@Override
+		public boolean contains(final String key) {
+			return values.containsKey(key);
+		}
+
+		@Override
+		public void remove(final String key) {
+			values.remove(key);
+		}
+
+		@Override
+		public void removeAll() {
+			values.clear();
+		}
+	}
+}
@@ -334,7 +334,7 @@ public class IdentityAdIdTest {
 		// Verify Generic Identity event
 		assertEquals(1, dispatchedGenericIdentityEvents.size());
 		Event genericIdentityEvent = dispatchedGenericIdentityEvents.get(0);
-		assertEquals(isGenericIdentityEventAdIdEvent, EventUtils.isAdIdEvent(genericIdentityEvent));
+		assertEquals(isGenericIdentityEventAdIdEvent, EventUtils.decodeAdIdRequest(genericIdentityEvent) != null);
 		// Verify Edge Consent event
 		List<Event> dispatchedConsentEvents = getDispatchedEventsWith(EventType.CONSENT, EventSource.UPDATE_CONSENT);
 		assertEquals(StringUtils.isNullOrEmpty(expectedConsentValue) ? 0 : 1, dispatchedConsentEvents.size());
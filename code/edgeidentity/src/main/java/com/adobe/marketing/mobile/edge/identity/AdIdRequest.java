@@ -0,0 +1,50 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.Event;
+
+/**
+ * A request to set the advertising identifier, decoded from a generic identity request content event
+ * by {@link EventUtils#decodeAdIdRequest(Event)}.
+ */
+final class AdIdRequest {
+
+	private final Event event;
+	private final String adId;
+
+	/**
+	 * Creates a new {@link AdIdRequest}.
+	 *
+	 * @param event the decoded {@link Event}; should not be null
+	 * @param adId  the sanitized advertising identifier, empty to remove the advertising identifier; should not be null
+	 */
+	AdIdRequest(@NonNull final Event event, @NonNull final String adId) {
+		this.event = event;
+		this.adId = adId;
+	}
+
+	/**
+	 * @return the {@link Event} this request was decoded from
+	 */
+	@NonNull Event getEvent() {
+		return event;
+	}
+
+	/**
+	 * @return the advertising identifier, or an empty string if the advertising identifier is removed
+	 */
+	@NonNull String getAdId() {
+		return adId;
+	}
+}
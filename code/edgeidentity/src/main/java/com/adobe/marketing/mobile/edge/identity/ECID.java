@@ -15,9 +15,7 @@ import static com.adobe.marketing.mobile.edge.identity.IdentityConstants.LOG_TAG
 
 import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.util.StringUtils;
-import java.util.Locale;
 import java.util.Objects;
-import java.util.UUID;
 
 /**
  * This class represents an ECID
@@ -32,11 +30,7 @@ final class ECID {
 	 * Initializes and generates a new ECID
 	 */
 	ECID() {
-		final UUID uuid = UUID.randomUUID();
-		final long most = uuid.getMostSignificantBits();
-		final long least = uuid.getLeastSignificantBits();
-		// return formatted string, flip negatives if they're set.
-		ecidString = String.format(Locale.US, "%019d%019d", most < 0 ? -most : most, least < 0 ? -least : least);
+		ecidString = ECIDGenerator.getDefault().generate();
 	}
 
 	/**
@@ -0,0 +1,116 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import java.security.SecureRandom;
+import java.util.Locale;
+
+/**
+ * Generates {@link ECID} strings.
+ * <p>
+ * An ECID is built from the bits of a random (version 4) {@link java.util.UUID}, formatted as the absolute values
+ * of its most and least significant bits, each zero-padded to 19 digits. The digits are written directly into a
+ * {@code char[]} instead of going through {@link String#format(Locale, String, Object...)}.
+ */
+final class ECIDGenerator {
+
+	/**
+	 * Source of the random bits used to generate an ECID.
+	 */
+	interface RandomSource {
+		/**
+		 * @return the next random {@code long}
+		 */
+		long nextLong();
+	}
+
+	private static final int DIGITS_PER_PART = 19;
+	private static final int ECID_LENGTH = DIGITS_PER_PART * 2;
+
+	// UUID version 4 and IETF variant bits, as set by UUID.randomUUID()
+	private static final long VERSION_MASK = 0x000000000000F000L;
+	private static final long VERSION_4 = 0x0000000000004000L;
+	private static final long VARIANT_MASK = 0xC000000000000000L;
+	private static final long VARIANT_IETF = 0x8000000000000000L;
+
+	private static final ThreadLocal<SecureRandom> SECURE_RANDOM = new ThreadLocal<SecureRandom>() {
+		@Override
+		protected SecureRandom initialValue() {
+			return new SecureRandom();
+		}
+	};
+
+	private static final ECIDGenerator DEFAULT = new ECIDGenerator(() -> SECURE_RANDOM.get().nextLong());
+
+	private final RandomSource randomSource;
+
+	/**
+	 * Creates an {@code ECIDGenerator} using the given random source.
+	 *
+	 * @param randomSource the {@link RandomSource} providing the random bits; should not be null
+	 */
+	ECIDGenerator(final RandomSource randomSource) {
+		this.randomSource = randomSource;
+	}
+
+	/**
+	 * Gets the default generator, backed by a thread-local {@link SecureRandom}.
+	 *
+	 * @return the default {@link ECIDGenerator}
+	 */
+	static ECIDGenerator getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Generates a new ECID string.
+	 *
+	 * @return a new 38-digit ECID string
+	 */
+	String generate() {
+		final long most = (randomSource.nextLong() & ~VERSION_MASK) | VERSION_4;
+		final long least = (randomSource.nextLong() & ~VARIANT_MASK) | VARIANT_IETF;
+		return format(most, least);
+	}
+
+	/**
+	 * Formats the given UUID bits as an ECID string, flipping negative values.
+	 *
+	 * @param most  the most significant bits of the UUID
+	 * @param least the least significant bits of the UUID
+	 * @return the ECID string
+	 */
+	static String format(final long most, final long least) {
+		if (most == Long.MIN_VALUE || least == Long.MIN_VALUE) {
+			// the absolute value of Long.MIN_VALUE does not fit in a long
+			return String.format(Locale.US, "%019d%019d", most < 0 ? -most : most, least < 0 ? -least : least);
+		}
+
+		final char[] chars = new char[ECID_LENGTH];
+		writeDigits(chars, DIGITS_PER_PART, most < 0 ? -most : most);
+		writeDigits(chars, ECID_LENGTH, least < 0 ? -least : least);
+		return new String(chars);
+	}
+
+	/**
+	 * Writes the zero-padded digits of a non-negative {@code value} into the {@value #DIGITS_PER_PART} characters
+	 * of {@code chars} ending at {@code end}.
+	 */
+	private static void writeDigits(final char[] chars, final int end, final long value) {
+		long remaining = value;
+
+		for (int i = end - 1; i >= end - DIGITS_PER_PART; i--) {
+			chars[i] = (char) ('0' + (remaining % 10));
+			remaining /= 10;
+		}
+	}
+}
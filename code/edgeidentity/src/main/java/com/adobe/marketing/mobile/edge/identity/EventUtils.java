@@ -11,9 +11,11 @@
 
 package com.adobe.marketing.mobile.edge.identity;
 
+import androidx.annotation.NonNull;
 import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.EventSource;
+import com.adobe.marketing.mobile.EventType;
 import com.adobe.marketing.mobile.util.DataReader;
-import com.adobe.marketing.mobile.util.StringUtils;
 import java.util.Map;
 
 /**
@@ -22,67 +24,159 @@ import java.util.Map;
 final class EventUtils {
 
 	/**
-	 * Checks if the provided {@code event}'s data contains the key {@link IdentityConstants.EventDataKeys#ADVERTISING_IDENTIFIER}
+	 * Decodes a generic identity request content event into an {@link AdIdRequest}, reading the event data once.
+	 * Events without the {@link IdentityConstants.EventDataKeys#ADVERTISING_IDENTIFIER} key are rejected.
+	 * <p>
+	 * The advertising ID is sanitized, converting {@code null}, {@code ""}, non-string values and
+	 * {@link IdentityConstants.Default#ZERO_ADVERTISING_ID} into {@code ""}.
 	 *
-	 * @param event the event to verify
-	 * @return {@code true} if key is present
+	 * @param event the event to decode
+	 * @return the decoded {@code AdIdRequest}, or null if {@code event} is not an ad ID event
 	 */
-	static boolean isAdIdEvent(final Event event) {
+	static AdIdRequest decodeAdIdRequest(final Event event) {
+		final Map<String, Object> data = event != null ? event.getEventData() : null;
+
+		if (data == null || !data.containsKey(IdentityConstants.EventDataKeys.ADVERTISING_IDENTIFIER)) {
+			return null;
+		}
+
+		final Object adId = data.get(IdentityConstants.EventDataKeys.ADVERTISING_IDENTIFIER);
+		return new AdIdRequest(
+			event,
+			(adId instanceof String && !IdentityConstants.Default.ZERO_ADVERTISING_ID.equals(adId)) ? (String) adId : ""
+		);
+	}
+
+	/**
+	 * Decodes an Edge Identity request identity event into an {@link IdentityRequest}, reading the event data once.
+	 * Note: The event type and source are not verified.
+	 *
+	 * @param event the event to decode; should not be null
+	 * @return the decoded {@code IdentityRequest}; a {@link IdentityRequest.Type#GET_IDENTITIES} request unless the
+	 *         event data has the metrics or url variables flag set to true
+	 */
+	@NonNull static IdentityRequest decodeIdentityRequest(@NonNull final Event event) {
 		final Map<String, Object> data = event.getEventData();
-		return data.containsKey(IdentityConstants.EventDataKeys.ADVERTISING_IDENTIFIER);
+
+		if (DataReader.optBoolean(data, IdentityConstants.EventDataKeys.METRICS, false)) {
+			return new IdentityRequest(event, IdentityRequest.Type.GET_METRICS, null);
+		}
+
+		if (DataReader.optBoolean(data, IdentityConstants.EventDataKeys.URL_VARIABLES, false)) {
+			return new IdentityRequest(
+				event,
+				IdentityRequest.Type.GET_URL_VARIABLES,
+				DataReader.optStringList(data, IdentityConstants.EventDataKeys.URLS, null)
+			);
+		}
+
+		return new IdentityRequest(event, IdentityRequest.Type.GET_IDENTITIES, null);
 	}
 
 	/**
-	 * Reads the url variables flag from the event data, returns false if not present
-	 * Note: This API needs to be used with isRequestIdentityEvent API to determine the correct event type and event source
-	 * @param event the event to verify
-	 * @return true if urlVariables key is present in the event data and has a value of true
+	 * Decodes an Edge Identity update identity event into an {@link IdentityChangeRequest}, reading the event
+	 * data once.
+	 *
+	 * @param event the event to decode
+	 * @return the decoded {@code IdentityChangeRequest} with only identifiers to update, or null if the event has no data
 	 */
-	static boolean isGetUrlVariablesRequestEvent(final Event event) {
-		return (
-			event != null &&
-			DataReader.optBoolean(event.getEventData(), IdentityConstants.EventDataKeys.URL_VARIABLES, false)
-		);
+	static IdentityChangeRequest decodeUpdateIdentitiesRequest(final Event event) {
+		final Map<String, Object> data = event != null ? event.getEventData() : null;
+
+		if (data == null) {
+			return null;
+		}
+
+		return new IdentityChangeRequest(IdentityMap.fromXDMMap(data), null);
 	}
 
 	/**
-	 * Checks if the provided {@code event} is a shared state update event for {@code stateOwnerName}
+	 * Decodes an Edge Identity remove identity event into an {@link IdentityChangeRequest}, reading the event
+	 * data once.
 	 *
-	 * @param stateOwnerName the shared state owner name; should not be null
-	 * @param event          current event to check; should not be null
-	 * @return {@code boolean} indicating if it is the shared state update for the provided {@code stateOwnerName}
+	 * @param event the event to decode
+	 * @return the decoded {@code IdentityChangeRequest} with only identifiers to remove, or null if the event has no data
 	 */
-	static boolean isSharedStateUpdateFor(final String stateOwnerName, final Event event) {
-		if (StringUtils.isNullOrEmpty(stateOwnerName) || event == null) {
-			return false;
+	static IdentityChangeRequest decodeRemoveIdentitiesRequest(final Event event) {
+		final Map<String, Object> data = event != null ? event.getEventData() : null;
+
+		if (data == null) {
+			return null;
 		}
 
-		final String stateOwner = DataReader.optString(
-			event.getEventData(),
-			IdentityConstants.EventDataKeys.STATE_OWNER,
-			""
-		);
-		return stateOwnerName.equals(stateOwner);
+		return new IdentityChangeRequest(null, IdentityMap.fromXDMMap(data));
 	}
 
 	/**
-	 * Gets the advertising ID from the event data using the key
-	 * {@link IdentityConstants.EventDataKeys#ADVERTISING_IDENTIFIER}.
+	 * Decodes an Edge Identity apply identity changes event, as dispatched by {@code Identity.applyIdentityChanges},
+	 * into an {@link IdentityChangeRequest}, reading the event data once. The identifiers to update are at the root
+	 * of the event data and the identifiers to remove under {@link IdentityConstants.EventDataKeys#REMOVED_IDENTITIES}.
 	 *
-	 * Performs a sanitization of values, converting {@code null}, {@code ""}, and
-	 * {@link IdentityConstants.Default#ZERO_ADVERTISING_ID} into {@code ""}.
+	 * @param event the event to decode
+	 * @return the decoded {@code IdentityChangeRequest}, or null if the event has no data
+	 */
+	static IdentityChangeRequest decodeApplyIdentityChangesRequest(final Event event) {
+		final Map<String, Object> data = event != null ? event.getEventData() : null;
+
+		if (data == null) {
+			return null;
+		}
+
+		return new IdentityChangeRequest(
+			IdentityMap.fromXDMMap(data),
+			IdentityMap.fromXDMMap(
+				DataReader.optTypedMap(Object.class, data, IdentityConstants.EventDataKeys.REMOVED_IDENTITIES, null)
+			)
+		);
+	}
+
+	/**
+	 * Gets the owner of the shared state updated by a hub shared state event.
 	 *
-	 * This method should not be used to detect whether the event is an ad ID event or not;
-	 * use {@link #isAdIdEvent(Event)} instead.
+	 * @param event the shared state update event
+	 * @return the {@link IdentityConstants.EventDataKeys#STATE_OWNER} name, or null if not found
+	 */
+	static String getSharedStateOwner(final Event event) {
+		if (event == null) {
+			return null;
+		}
+
+		return DataReader.optString(event.getEventData(), IdentityConstants.EventDataKeys.STATE_OWNER, null);
+	}
+
+	/**
+	 * Checks if the provided {@code event} is a request to change identities, as dispatched by
+	 * {@code Identity.updateIdentities}, {@code Identity.removeIdentity} and {@code Identity.applyIdentityChanges}.
 	 *
-	 * @param event the event containing the advertising ID
-	 * @return the adID
+	 * @param event the event to verify
+	 * @return true if {@code event} is an Edge Identity update identity, remove identity or apply identity changes event
 	 */
-	static String getAdId(final Event event) {
-		final Map<String, Object> data = event.getEventData();
-		final String adID = DataReader.optString(data, IdentityConstants.EventDataKeys.ADVERTISING_IDENTIFIER, null);
+	static boolean isIdentityChangeEvent(final Event event) {
+		return (
+			event != null &&
+			EventType.EDGE_IDENTITY.equalsIgnoreCase(event.getType()) &&
+			(
+				EventSource.UPDATE_IDENTITY.equalsIgnoreCase(event.getSource()) ||
+				EventSource.REMOVE_IDENTITY.equalsIgnoreCase(event.getSource()) ||
+				IdentityConstants.EventSources.APPLY_IDENTITY_CHANGES.equalsIgnoreCase(event.getSource())
+			)
+		);
+	}
 
-		return (adID == null || IdentityConstants.Default.ZERO_ADVERTISING_ID.equals(adID) ? "" : adID);
+	/**
+	 * Checks if the provided {@code event} is a generic lifecycle request signaling that the application
+	 * moved to the background, as dispatched by {@code MobileCore.lifecyclePause}.
+	 *
+	 * @param event the event to verify
+	 * @return true if the {@link IdentityConstants.EventDataKeys#LIFECYCLE_ACTION} is {@link IdentityConstants.EventDataValues#LIFECYCLE_PAUSE}
+	 */
+	static boolean isLifecyclePauseEvent(final Event event) {
+		return (
+			event != null &&
+			IdentityConstants.EventDataValues.LIFECYCLE_PAUSE.equals(
+				DataReader.optString(event.getEventData(), IdentityConstants.EventDataKeys.LIFECYCLE_ACTION, null)
+			)
+		);
 	}
 
 	/**
@@ -113,4 +207,117 @@ final class EventUtils {
 			null
 		);
 	}
+
+	/**
+	 * Extracts the persistence write delay, in milliseconds, from the Configuration shared state
+	 *
+	 * @param configurationSharedState the configuration shared state data
+	 * @return the persistence write delay or {@link IdentityConstants.Default#PERSISTENCE_WRITE_DELAY_MILLIS} if not found
+	 */
+	static long getPersistenceWriteDelay(final Map<String, Object> configurationSharedState) {
+		return DataReader.optLong(
+			configurationSharedState,
+			IdentityConstants.SharedState.Configuration.PERSISTENCE_WRITE_DELAY,
+			IdentityConstants.Default.PERSISTENCE_WRITE_DELAY_MILLIS
+		);
+	}
+
+	/**
+	 * Extracts the persistence journal flag from the Configuration shared state
+	 *
+	 * @param configurationSharedState the configuration shared state data
+	 * @return true if identity changes should be journaled, or {@link IdentityConstants.Default#PERSISTENCE_JOURNAL_ENABLED} if not found
+	 */
+	static boolean isPersistenceJournalEnabled(final Map<String, Object> configurationSharedState) {
+		return DataReader.optBoolean(
+			configurationSharedState,
+			IdentityConstants.SharedState.Configuration.PERSISTENCE_JOURNAL,
+			IdentityConstants.Default.PERSISTENCE_JOURNAL_ENABLED
+		);
+	}
+
+	/**
+	 * Extracts the persistence compact format flag from the Configuration shared state
+	 *
+	 * @param configurationSharedState the configuration shared state data
+	 * @return true if identity properties should be persisted in the compact binary format, or {@link IdentityConstants.Default#PERSISTENCE_COMPACT_FORMAT_ENABLED} if not found
+	 */
+	static boolean isPersistenceCompactFormatEnabled(final Map<String, Object> configurationSharedState) {
+		return DataReader.optBoolean(
+			configurationSharedState,
+			IdentityConstants.SharedState.Configuration.PERSISTENCE_COMPACT_FORMAT,
+			IdentityConstants.Default.PERSISTENCE_COMPACT_FORMAT_ENABLED
+		);
+	}
+
+	/**
+	 * Checks if the next {@link ECID} should be generated ahead of time, reading the Edge Identity
+	 * setting from the configuration shared state.
+	 *
+	 * @param configurationSharedState the configuration shared state data
+	 * @return true if the next ECID should be generated ahead of a reset, or {@link IdentityConstants.Default#ECID_PRE_MINT_ENABLED} if not found
+	 */
+	static boolean isECIDPreMintEnabled(final Map<String, Object> configurationSharedState) {
+		return DataReader.optBoolean(
+			configurationSharedState,
+			IdentityConstants.SharedState.Configuration.ECID_PRE_MINT,
+			IdentityConstants.Default.ECID_PRE_MINT_ENABLED
+		);
+	}
+
+	/**
+	 * Extracts the update coalescing window from the Configuration shared state
+	 *
+	 * @param configurationSharedState the configuration shared state data
+	 * @return the time in milliseconds identity updates and removals are coalesced, or {@link IdentityConstants.Default#UPDATE_COALESCING_WINDOW_MILLIS} if not found
+	 */
+	static long getUpdateCoalescingWindow(final Map<String, Object> configurationSharedState) {
+		return DataReader.optLong(
+			configurationSharedState,
+			IdentityConstants.SharedState.Configuration.UPDATE_COALESCING_WINDOW,
+			IdentityConstants.Default.UPDATE_COALESCING_WINDOW_MILLIS
+		);
+	}
+
+	/**
+	 * Extracts the metrics aggregation flag from the Configuration shared state
+	 *
+	 * @param configurationSharedState the configuration shared state data
+	 * @return true if the built-in metrics aggregator is enabled, or {@link IdentityConstants.Default#METRICS_ENABLED} if not found
+	 */
+	static boolean isMetricsEnabled(final Map<String, Object> configurationSharedState) {
+		return DataReader.optBoolean(
+			configurationSharedState,
+			IdentityConstants.SharedState.Configuration.METRICS_ENABLED,
+			IdentityConstants.Default.METRICS_ENABLED
+		);
+	}
+
+	/**
+	 * Extracts the maximum number of customer identifiers in each namespace from the Configuration shared state
+	 *
+	 * @param configurationSharedState the configuration shared state data
+	 * @return the maximum number of identifiers in each namespace, or {@link IdentityConstants.Default#MAX_IDENTITIES_PER_NAMESPACE} if not found
+	 */
+	static int getMaxIdentitiesPerNamespace(final Map<String, Object> configurationSharedState) {
+		return DataReader.optInt(
+			configurationSharedState,
+			IdentityConstants.SharedState.Configuration.MAX_IDENTITIES_PER_NAMESPACE,
+			IdentityConstants.Default.MAX_IDENTITIES_PER_NAMESPACE
+		);
+	}
+
+	/**
+	 * Extracts the maximum total number of customer identifiers from the Configuration shared state
+	 *
+	 * @param configurationSharedState the configuration shared state data
+	 * @return the maximum number of identifiers in all namespaces, or {@link IdentityConstants.Default#MAX_IDENTITIES} if not found
+	 */
+	static int getMaxIdentities(final Map<String, Object> configurationSharedState) {
+		return DataReader.optInt(
+			configurationSharedState,
+			IdentityConstants.SharedState.Configuration.MAX_IDENTITIES,
+			IdentityConstants.Default.MAX_IDENTITIES
+		);
+	}
 }
@@ -14,6 +14,7 @@ package com.adobe.marketing.mobile.edge.identity;
 import static com.adobe.marketing.mobile.edge.identity.IdentityConstants.LOG_TAG;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.adobe.marketing.mobile.AdobeCallback;
 import com.adobe.marketing.mobile.AdobeCallbackWithError;
 import com.adobe.marketing.mobile.AdobeError;
@@ -25,6 +26,7 @@ import com.adobe.marketing.mobile.MobileCore;
 import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.util.DataReader;
 import com.adobe.marketing.mobile.util.StringUtils;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +41,9 @@ public class Identity {
 
 	private static final String LOG_SOURCE = "Identity";
 
+	// identities published by the IdentityExtension after each change
+	private static volatile IdentitySnapshot identitySnapshot = IdentitySnapshot.NOT_BOOTED;
+
 	private Identity() {}
 
 	/**
@@ -200,6 +205,97 @@ public class Identity {
 		MobileCore.dispatchEventWithResponseCallback(event, CALLBACK_TIMEOUT_MILLIS, callbackWithError);
 	}
 
+	/**
+	 * Appends the identifiers in URL query parameter format to each of the given URLs, for consumption in hybrid mobile applications.
+	 * All the URLs are decorated with the same identifiers, retrieved with a single request, which is more efficient than
+	 * calling {@link #getUrlVariables(AdobeCallback)} for each URL.
+	 * The URL variables are appended to the query of each URL, before any fragment. Null or empty URLs are returned as empty strings.
+	 * If an error occurs while retrieving the URL variables, the AdobeCallbackWithError is called with an AdobeError instance.
+	 * If AdobeCallback is provided then callback is not called in case of error.
+	 *
+	 * @param urls the URLs to decorate with the identifiers
+	 * @param callback {@link AdobeCallback} of {@code List<String>} invoked with the decorated URLs, in the order of {@code urls}.
+	 *     	           If an {@link AdobeCallbackWithError} is provided, an {@link AdobeError} can be returned in the
+	 *	               eventuality of any error that occurred while getting the identifiers query string
+	 * @see #getUrlVariables(AdobeCallback)
+	 */
+	public static void getUrlVariables(
+		@NonNull final List<String> urls,
+		@NonNull final AdobeCallback<List<String>> callback
+	) {
+		if (callback == null) {
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Unexpected null callback, provide a callback to retrieve the URLs decorated with the current visitor identifiers (URLVariables)."
+			);
+			return;
+		}
+
+		if (urls == null) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unexpected null URLs, provide a list of URLs to decorate.");
+			returnError(callback, AdobeError.UNEXPECTED_ERROR);
+			return;
+		}
+
+		// event data lists cannot hold null values
+		final List<String> urlsToDecorate = new ArrayList<>(urls.size());
+
+		for (final String url : urls) {
+			urlsToDecorate.add(url != null ? url : "");
+		}
+
+		final Map<String, Object> eventData = new HashMap<>();
+		eventData.put(IdentityConstants.EventDataKeys.URL_VARIABLES, true);
+		eventData.put(IdentityConstants.EventDataKeys.URLS, urlsToDecorate);
+
+		final Event event = new Event.Builder(
+			IdentityConstants.EventNames.IDENTITY_REQUEST_URL_VARIABLES,
+			EventType.EDGE_IDENTITY,
+			EventSource.REQUEST_IDENTITY
+		)
+			.setEventData(eventData)
+			.build();
+
+		final AdobeCallbackWithError<Event> callbackWithError = new AdobeCallbackWithError<Event>() {
+			@Override
+			public void call(final Event responseEvent) {
+				if (responseEvent == null || responseEvent.getEventData() == null) {
+					returnError(callback, AdobeError.UNEXPECTED_ERROR);
+					return;
+				}
+
+				final List<String> decoratedUrls = DataReader.optStringList(
+					responseEvent.getEventData(),
+					IdentityConstants.EventDataKeys.URLS,
+					null
+				);
+
+				if (decoratedUrls == null) {
+					returnError(callback, AdobeError.UNEXPECTED_ERROR);
+					return;
+				}
+				callback.call(decoratedUrls);
+			}
+
+			@Override
+			public void fail(final AdobeError adobeError) {
+				returnError(callback, adobeError);
+				Log.debug(
+					LOG_TAG,
+					LOG_SOURCE,
+					String.format(
+						"Failed to dispatch %s event: Error : %s.",
+						IdentityConstants.EventNames.IDENTITY_REQUEST_URL_VARIABLES,
+						adobeError.getErrorName()
+					)
+				);
+			}
+		};
+
+		MobileCore.dispatchEventWithResponseCallback(event, CALLBACK_TIMEOUT_MILLIS, callbackWithError);
+	}
+
 	/**
 	 * Updates the currently known {@link IdentityMap} within the SDK.
 	 * The Identity extension will merge the received identifiers with the previously saved one in an additive manner,
@@ -256,6 +352,77 @@ public class Identity {
 		MobileCore.dispatchEvent(removeIdentitiesEvent);
 	}
 
+	/**
+	 * Removes all the identities in the given {@link IdentityMap} from the stored client-side {@code IdentityMap}
+	 * with a single event. The Identity extension will stop sending these identifiers.
+	 * This does not clear the identifiers from the User Profile Graph.
+	 * <p>
+	 * Identities with an empty {@code id} or in the reserved namespaces (ECID, GAID, IDFA) are ignored.
+	 *
+	 * @param identityMap the {@code IdentityMap} of identities to remove
+	 */
+	public static void removeIdentities(@NonNull final IdentityMap identityMap) {
+		if (identityMap == null || identityMap.isEmpty()) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to removeIdentities, IdentityMap is null or empty");
+			return;
+		}
+
+		final Event removeIdentitiesEvent = new Event.Builder(
+			IdentityConstants.EventNames.REMOVE_IDENTITIES,
+			EventType.EDGE_IDENTITY,
+			EventSource.REMOVE_IDENTITY
+		)
+			.setEventData(identityMap.asXDMMap(false))
+			.build();
+		MobileCore.dispatchEvent(removeIdentitiesEvent);
+	}
+
+	/**
+	 * Removes and adds identities in the stored client-side {@link IdentityMap} as a single change, for example to
+	 * swap identities on login or logout. The identities in {@code identitiesToRemove} are removed first, then the
+	 * identities in {@code identitiesToAdd} are added or updated, as with {@link #updateIdentities(IdentityMap)}.
+	 * Unlike separate calls to {@link #removeIdentity(IdentityItem, String)} and {@link #updateIdentities(IdentityMap)},
+	 * no intermediate identities are shared with other extensions.
+	 * <p>
+	 * Identities with an empty {@code id} or in the reserved namespaces (ECID, GAID, IDFA) are ignored.
+	 * This does not clear the removed identifiers from the User Profile Graph.
+	 *
+	 * @param identitiesToAdd    the {@link IdentityMap} of identities to add or update; may be null or empty
+	 * @param identitiesToRemove the {@code IdentityMap} of identities to remove; may be null or empty
+	 */
+	public static void applyIdentityChanges(
+		@Nullable final IdentityMap identitiesToAdd,
+		@Nullable final IdentityMap identitiesToRemove
+	) {
+		final boolean hasAdditions = identitiesToAdd != null && !identitiesToAdd.isEmpty();
+		final boolean hasRemovals = identitiesToRemove != null && !identitiesToRemove.isEmpty();
+
+		if (!hasAdditions && !hasRemovals) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Unable to applyIdentityChanges, both IdentityMaps are null or empty");
+			return;
+		}
+
+		final Map<String, Object> eventData = new HashMap<>();
+
+		if (hasAdditions) {
+			eventData.putAll(identitiesToAdd.asXDMMap(false));
+		}
+
+		if (hasRemovals) {
+			eventData.put(IdentityConstants.EventDataKeys.REMOVED_IDENTITIES, identitiesToRemove.asXDMMap(false));
+		}
+
+		final Event applyIdentityChangesEvent = new Event.Builder(
+			IdentityConstants.EventNames.APPLY_IDENTITY_CHANGES,
+			EventType.EDGE_IDENTITY,
+			IdentityConstants.EventSources.APPLY_IDENTITY_CHANGES
+		)
+			.setEventData(eventData)
+			.build();
+
+		MobileCore.dispatchEvent(applyIdentityChangesEvent);
+	}
+
 	/**
 	 * Returns all identifiers, including customer identifiers which were previously added.
 	 *
@@ -321,6 +488,44 @@ public class Identity {
 		MobileCore.dispatchEventWithResponseCallback(event, CALLBACK_TIMEOUT_MILLIS, callbackWithError);
 	}
 
+	/**
+	 * Returns the latest snapshot of all identifiers, including customer identifiers which were previously added.
+	 * Unlike {@link #getIdentities(AdobeCallback)}, this method does not dispatch an event and returns immediately,
+	 * making it suitable for latency sensitive callers such as network interceptors.
+	 * <p>
+	 * The snapshot reflects the identities as of the last change processed by the extension, so identities added or
+	 * removed through APIs called just before may not be included yet. Until the extension has booted, an empty
+	 * snapshot is returned and {@link IdentitySnapshot#isBooted()} is false. The {@link IdentityMap} of the snapshot
+	 * is read-only.
+	 *
+	 * @return the latest {@link IdentitySnapshot}; never null
+	 */
+	@NonNull public static IdentitySnapshot getIdentitiesSnapshot() {
+		return identitySnapshot;
+	}
+
+	/**
+	 * Registers an {@link IdentityInstrumentation} which receives the durations of the events handled by the
+	 * Identity for Edge Network extension and of its persistence reads and writes. No measurements are taken
+	 * unless an instrumentation is registered or the built-in aggregator is enabled with the
+	 * {@code edgeIdentity.metricsEnabled} configuration setting.
+	 *
+	 * @param instrumentation the {@code IdentityInstrumentation} to register, or null to unregister the current one
+	 */
+	public static void setInstrumentation(@Nullable final IdentityInstrumentation instrumentation) {
+		IdentityMetrics.setInstrumentation(instrumentation);
+	}
+
+	/**
+	 * Sets the snapshot returned by {@link #getIdentitiesSnapshot()}.
+	 * Called by the Identity for Edge Network extension whenever its identities change.
+	 *
+	 * @param snapshot the current {@link IdentitySnapshot}, or null to reset to the not booted snapshot
+	 */
+	static void setIdentitySnapshot(final IdentitySnapshot snapshot) {
+		identitySnapshot = snapshot != null ? snapshot : IdentitySnapshot.NOT_BOOTED;
+	}
+
 	/**
 	 * When an {@link AdobeCallbackWithError} is provided, the fail method will be called with provided {@link AdobeError}.
 	 *
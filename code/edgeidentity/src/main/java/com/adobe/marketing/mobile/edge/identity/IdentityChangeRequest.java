@@ -0,0 +1,51 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import com.adobe.marketing.mobile.Event;
+
+/**
+ * A request to change the customer identifiers, decoded from an Edge Identity update identity event by
+ * {@link EventUtils#decodeUpdateIdentitiesRequest(Event)}, from a remove identity event by
+ * {@link EventUtils#decodeRemoveIdentitiesRequest(Event)} or from an apply identity changes event by
+ * {@link EventUtils#decodeApplyIdentityChangesRequest(Event)}.
+ */
+final class IdentityChangeRequest {
+
+	private final IdentityMap updatedIdentities;
+	private final IdentityMap removedIdentities;
+
+	/**
+	 * Creates a new {@link IdentityChangeRequest}.
+	 *
+	 * @param updatedIdentities the {@link IdentityMap} of identifiers to add or update, may be null
+	 * @param removedIdentities the {@code IdentityMap} of identifiers to remove, may be null
+	 */
+	IdentityChangeRequest(final IdentityMap updatedIdentities, final IdentityMap removedIdentities) {
+		this.updatedIdentities = updatedIdentities;
+		this.removedIdentities = removedIdentities;
+	}
+
+	/**
+	 * @return the identifiers to add or update, or null if the request has none
+	 */
+	IdentityMap getUpdatedIdentities() {
+		return updatedIdentities;
+	}
+
+	/**
+	 * @return the identifiers to remove, or null if the request has none
+	 */
+	IdentityMap getRemovedIdentities() {
+		return removedIdentities;
+	}
+}
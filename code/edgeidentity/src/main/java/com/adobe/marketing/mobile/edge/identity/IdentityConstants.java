@@ -21,6 +21,15 @@ final class IdentityConstants {
 	static final class Default {
 
 		static final String ZERO_ADVERTISING_ID = "00000000-0000-0000-0000-000000000000";
+		static final long PERSISTENCE_WRITE_DELAY_MILLIS = 0L;
+		static final boolean PERSISTENCE_JOURNAL_ENABLED = false;
+		static final int JOURNAL_COMPACTION_THRESHOLD = 64;
+		static final boolean PERSISTENCE_COMPACT_FORMAT_ENABLED = false;
+		static final boolean ECID_PRE_MINT_ENABLED = false;
+		static final long UPDATE_COALESCING_WINDOW_MILLIS = 0L;
+		static final boolean METRICS_ENABLED = false;
+		static final int MAX_IDENTITIES_PER_NAMESPACE = 0;
+		static final int MAX_IDENTITIES = 0;
 
 		private Default() {}
 	}
@@ -32,21 +41,57 @@ final class IdentityConstants {
 		static final String IDENTITY_REQUEST_URL_VARIABLES = "Edge Identity Request URL Variables";
 		static final String IDENTITY_RESPONSE_CONTENT_ONE_TIME = "Edge Identity Response Content One Time";
 		static final String IDENTITY_RESPONSE_URL_VARIABLES = "Edge Identity Response URL Variables";
+		static final String IDENTITY_RESPONSE_METRICS = "Edge Identity Response Metrics";
 		static final String UPDATE_IDENTITIES = "Edge Identity Update Identities";
 		static final String REMOVE_IDENTITIES = "Edge Identity Remove Identities";
+		static final String APPLY_IDENTITY_CHANGES = "Edge Identity Apply Identity Changes";
 		static final String REQUEST_IDENTITIES = "Edge Identity Request Identities";
 		static final String RESET_IDENTITIES_COMPLETE = "Edge Identity Reset Identities Complete";
 
 		private EventNames() {}
 	}
 
+	static final class EventSources {
+
+		// not defined by Core, only dispatched by Identity.applyIdentityChanges
+		static final String APPLY_IDENTITY_CHANGES = "com.adobe.eventSource.applyIdentityChanges";
+
+		private EventSources() {}
+	}
+
 	static final class EventDataKeys {
 
 		static final String ADVERTISING_IDENTIFIER = "advertisingidentifier";
 		static final String STATE_OWNER = "stateowner";
 		static final String URL_VARIABLES = "urlvariables";
+		static final String URLS = "urls";
+		static final String REMOVED_IDENTITIES = "removedidentities";
+		static final String LIFECYCLE_ACTION = "action";
+		static final String METRICS = "metrics";
 
 		private EventDataKeys() {}
+
+		static final class Metrics {
+
+			static final String COUNT = "count";
+			static final String MIN_NANOS = "minNanos";
+			static final String MAX_NANOS = "maxNanos";
+			static final String MEAN_NANOS = "meanNanos";
+			static final String P50_NANOS = "p50Nanos";
+			static final String P90_NANOS = "p90Nanos";
+			static final String P99_NANOS = "p99Nanos";
+			static final String MAX_SIZE = "maxSize";
+			static final String TOTAL_SIZE = "totalSize";
+
+			private Metrics() {}
+		}
+	}
+
+	static final class EventDataValues {
+
+		static final String LIFECYCLE_PAUSE = "pause";
+
+		private EventDataValues() {}
 	}
 
 	static final class SharedState {
@@ -63,6 +108,14 @@ final class IdentityConstants {
 
 			static final String NAME = "com.adobe.module.configuration";
 			static final String EXPERIENCE_CLOUD_ORGID = "experienceCloud.org";
+			static final String PERSISTENCE_WRITE_DELAY = "edgeIdentity.persistenceWriteDelay";
+			static final String PERSISTENCE_JOURNAL = "edgeIdentity.persistenceJournal";
+			static final String PERSISTENCE_COMPACT_FORMAT = "edgeIdentity.persistenceCompactFormat";
+			static final String ECID_PRE_MINT = "edgeIdentity.ecidPreMint";
+			static final String UPDATE_COALESCING_WINDOW = "edgeIdentity.updateCoalescingWindow";
+			static final String METRICS_ENABLED = "edgeIdentity.metricsEnabled";
+			static final String MAX_IDENTITIES_PER_NAMESPACE = "edgeIdentity.maxIdentitiesPerNamespace";
+			static final String MAX_IDENTITIES = "edgeIdentity.maxIdentities";
 
 			private Configuration() {}
 		}
@@ -109,10 +162,21 @@ final class IdentityConstants {
 		private XDMKeys() {}
 	}
 
+	static final class JournalKeys {
+
+		static final String OPERATION = "op";
+		static final String ID = "id";
+		static final String REMOVED = "removed";
+
+		private JournalKeys() {}
+	}
+
 	static final class DataStoreKey {
 
 		static final String DATASTORE_NAME = EXTENSION_NAME;
 		static final String IDENTITY_PROPERTIES = "identity.properties";
+		static final String IDENTITY_JOURNAL_SIZE = "identity.journal.size";
+		static final String IDENTITY_JOURNAL_ENTRY_PREFIX = "identity.journal.";
 		static final String IDENTITY_DIRECT_DATASTORE_NAME = "visitorIDServiceDataStore";
 		static final String IDENTITY_DIRECT_ECID_KEY = "ADOBEMOBILE_PERSISTED_MID";
 
@@ -20,6 +20,7 @@ import com.adobe.marketing.mobile.EventSource;
 import com.adobe.marketing.mobile.EventType;
 import com.adobe.marketing.mobile.Extension;
 import com.adobe.marketing.mobile.ExtensionApi;
+import com.adobe.marketing.mobile.ExtensionEventListener;
 import com.adobe.marketing.mobile.SharedStateResolution;
 import com.adobe.marketing.mobile.SharedStateResolver;
 import com.adobe.marketing.mobile.SharedStateResult;
@@ -27,8 +28,12 @@ import com.adobe.marketing.mobile.SharedStateStatus;
 import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.util.StringUtils;
 import com.adobe.marketing.mobile.util.TimeUtils;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 
 class IdentityExtension extends Extension {
 
@@ -51,6 +56,17 @@ class IdentityExtension extends Extension {
 	};
 
 	private final IdentityState state;
+	// cached getUrlVariables payload template for the current ECID and Org ID
+	private URLVariablesTemplate urlVariablesTemplate;
+	// coalesces the shared states of consecutive identity updates and removals, when enabled
+	// and persists the identities once per burst
+	private final SharedStateCoalescer sharedStateCoalescer;
+	// getUrlVariables requests waiting for the Configuration shared state, in the order they were received
+	private final Queue<IdentityRequest> pendingUrlVariablesRequests = new ArrayDeque<>();
+	// Experience Cloud Org ID of the last set Configuration shared state, so getUrlVariables requests do not read it
+	private String configuredOrgId;
+	// number of Configuration shared states applied to configuredOrgId, 0 until a Configuration shared state is known
+	private int configurationVersion;
 
 	/**
 	 * Constructor.
@@ -66,6 +82,7 @@ class IdentityExtension extends Extension {
 	IdentityExtension(final ExtensionApi extensionApi, final IdentityState state) {
 		super(extensionApi);
 		this.state = state;
+		this.sharedStateCoalescer = new SharedStateCoalescer(state::flushPersistence);
 	}
 
 	@NonNull @Override
@@ -94,6 +111,8 @@ class IdentityExtension extends Extension {
 	 *     <li> EventType {@link EventType#EDGE_IDENTITY} and EventSource {@link EventSource#REQUEST_IDENTITY}</li>
 	 *     <li> EventType {@link EventType#EDGE_IDENTITY} and EventSource {@link EventSource#UPDATE_IDENTITY}</li>
 	 *     <li> EventType {@link EventType#EDGE_IDENTITY} and EventSource {@link EventSource#REMOVE_IDENTITY}</li>
+	 *     <li> EventType {@link EventType#EDGE_IDENTITY} and EventSource {@link IdentityConstants.EventSources#APPLY_IDENTITY_CHANGES}</li>
+	 *     <li> EventType {@link EventType#GENERIC_LIFECYCLE} and EventSource {@link EventSource#REQUEST_CONTENT}</li>
 	 *     <li> EventType {@link EventType#HUB} and EventSource {@link EventSource#SHARED_STATE}</li>
 	 * </ul>
 	 * </p>
@@ -106,37 +125,78 @@ class IdentityExtension extends Extension {
 		getApi()
 			.registerEventListener(EventType.GENERIC_IDENTITY, EventSource.REQUEST_CONTENT, this::handleRequestContent);
 
-		getApi().registerEventListener(EventType.GENERIC_IDENTITY, EventSource.REQUEST_RESET, this::handleRequestReset);
+		getApi()
+			.registerEventListener(
+				EventType.GENERIC_IDENTITY,
+				EventSource.REQUEST_RESET,
+				timed(IdentityMetrics.RESET_IDENTITIES, this::handleRequestReset)
+			);
 
 		// EDGE_IDENTITY event listeners
 		getApi()
 			.registerEventListener(EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY, this::handleRequestIdentity);
 
 		getApi()
-			.registerEventListener(EventType.EDGE_IDENTITY, EventSource.UPDATE_IDENTITY, this::handleUpdateIdentities);
+			.registerEventListener(
+				EventType.EDGE_IDENTITY,
+				EventSource.UPDATE_IDENTITY,
+				timed(IdentityMetrics.UPDATE_IDENTITIES, this::handleUpdateIdentities)
+			);
 
 		getApi()
-			.registerEventListener(EventType.EDGE_IDENTITY, EventSource.REMOVE_IDENTITY, this::handleRemoveIdentity);
+			.registerEventListener(
+				EventType.EDGE_IDENTITY,
+				EventSource.REMOVE_IDENTITY,
+				timed(IdentityMetrics.REMOVE_IDENTITIES, this::handleRemoveIdentity)
+			);
+
+		getApi()
+			.registerEventListener(
+				EventType.EDGE_IDENTITY,
+				IdentityConstants.EventSources.APPLY_IDENTITY_CHANGES,
+				timed(IdentityMetrics.APPLY_IDENTITY_CHANGES, this::handleApplyIdentityChanges)
+			);
+
+		// GENERIC_LIFECYCLE event listener
+		getApi()
+			.registerEventListener(EventType.GENERIC_LIFECYCLE, EventSource.REQUEST_CONTENT, this::handleLifecycleRequest);
 
 		// HUB shared state event listener
-		getApi().registerEventListener(EventType.HUB, EventSource.SHARED_STATE, this::handleIdentityDirectECIDUpdate);
+		getApi().registerEventListener(EventType.HUB, EventSource.SHARED_STATE, this::handleSharedStateUpdate);
 	}
 
 	@Override
-	public boolean readyForEvent(@NonNull Event event) {
-		if (!state.bootupIfReady(sharedStateHandle)) return false;
+	protected void onUnregistered() {
+		super.onUnregistered();
+		// the identities can no longer be kept up to date
+		Identity.setIdentitySnapshot(null);
+		sharedStateCoalescer.resolve();
 
-		// Get url variables request depends on Configuration shared state
-		// Wait for configuration state to be set before processing such an event.
-		if (EventUtils.isGetUrlVariablesRequestEvent(event)) {
-			final SharedStateResult configurationStateResult = sharedStateHandle.getSharedState(
-				IdentityConstants.SharedState.Configuration.NAME,
-				event
+		// the requests waiting for the Configuration shared state can no longer be handled, fail them now
+		IdentityRequest request;
+
+		while ((request = pendingUrlVariablesRequests.poll()) != null) {
+			handleUrlVariableResponse(
+				request,
+				null,
+				"Cannot process getUrlVariables request Identity event, the extension was unregistered."
 			);
+		}
+
+		state.shutdown();
+	}
 
-			return (configurationStateResult != null && configurationStateResult.getStatus() == SharedStateStatus.SET);
+	@Override
+	public boolean readyForEvent(@NonNull Event event) {
+		if (!state.bootupIfReady(sharedStateHandle)) return false;
+
+		// Any other event ends a burst of identity changes, share their state before it is processed.
+		if (!EventUtils.isIdentityChangeEvent(event)) {
+			sharedStateCoalescer.resolve();
 		}
 
+		// Get url variables requests waiting for the Configuration shared state are parked in
+		// pendingUrlVariablesRequests by handleRequestIdentity, so they do not block the other events.
 		return true;
 	}
 
@@ -145,33 +205,86 @@ class IdentityExtension extends Extension {
 	 * @param event the identity request event
 	 */
 	void handleRequestIdentity(@NonNull final Event event) {
-		if (EventUtils.isGetUrlVariablesRequestEvent(event)) {
-			handleUrlVariablesRequest(event);
-		} else {
-			handleGetIdentifiersRequest(event);
+		final IdentityRequest request = EventUtils.decodeIdentityRequest(event);
+
+		switch (request.getType()) {
+			case GET_METRICS:
+				handleMetricsRequest(event);
+				break;
+			case GET_URL_VARIABLES:
+				// queued behind any request still waiting for the Configuration shared state to keep the responses in order
+				pendingUrlVariablesRequests.add(request);
+				processPendingUrlVariablesRequests();
+				break;
+			default:
+				final long startNanos = IdentityMetrics.startTimer();
+				handleGetIdentifiersRequest(event);
+				recordEventHandled(IdentityMetrics.GET_IDENTITIES, startNanos);
+				break;
 		}
 	}
 
 	/**
-	 * Handles events requesting for formatted and encoded identifiers url for hybrid apps.
+	 * Handles the pending get url variables requests, in order, until reaching a request for which
+	 * the Configuration shared state is not set yet. Such a request and the ones after it stay pending
+	 * until the next Configuration shared state update.
+	 */
+	private void processPendingUrlVariablesRequests() {
+		IdentityRequest request;
+
+		while ((request = pendingUrlVariablesRequests.peek()) != null) {
+			if (!isConfigurationAvailable(request.getEvent())) {
+				Log.trace(
+					LOG_TAG,
+					LOG_SOURCE,
+					"Waiting for the Configuration shared state to handle %d getUrlVariables request(s).",
+					pendingUrlVariablesRequests.size()
+				);
+				return;
+			}
+
+			pendingUrlVariablesRequests.poll();
+			final long startNanos = IdentityMetrics.startTimer();
+			handleUrlVariablesRequest(request);
+			recordEventHandled(IdentityMetrics.GET_URL_VARIABLES, startNanos);
+		}
+	}
+
+	/**
+	 * Handles debug events requesting the metrics aggregated by the built-in aggregator.
+	 * Dispatches a response event containing the aggregated metrics, empty when the aggregator is disabled.
 	 *
 	 * @param event the identity request {@link Event}
 	 */
-	void handleUrlVariablesRequest(@NonNull final Event event) {
-		final SharedStateResult configSharedStateResult = sharedStateHandle.getSharedState(
-			IdentityConstants.SharedState.Configuration.NAME,
-			event
-		);
+	private void handleMetricsRequest(@NonNull final Event event) {
+		final Map<String, Object> responseData = new HashMap<>();
+		responseData.put(IdentityConstants.EventDataKeys.METRICS, IdentityMetrics.getAggregatedMetrics());
 
-		final Map<String, Object> configurationState = configSharedStateResult != null
-			? configSharedStateResult.getValue()
-			: null;
+		final Event responseEvent = new Event.Builder(
+			IdentityConstants.EventNames.IDENTITY_RESPONSE_METRICS,
+			EventType.EDGE_IDENTITY,
+			EventSource.RESPONSE_IDENTITY
+		)
+			.setEventData(responseData)
+			.inResponseToEvent(event)
+			.build();
 
-		final String orgId = EventUtils.getOrgId(configurationState);
+		getApi().dispatch(responseEvent);
+	}
+
+	/**
+	 * Handles events requesting for formatted and encoded identifiers url for hybrid apps.
+	 * The Experience Cloud Org ID is taken from the last Configuration shared state update, requests are only
+	 * handled here once {@link #processPendingUrlVariablesRequests()} found the Configuration shared state set.
+	 *
+	 * @param request the get url variables {@link IdentityRequest}
+	 */
+	void handleUrlVariablesRequest(@NonNull final IdentityRequest request) {
+		final String orgId = configuredOrgId;
 
 		if (StringUtils.isNullOrEmpty(orgId)) {
 			handleUrlVariableResponse(
-				event,
+				request,
 				null,
 				"Cannot process getUrlVariables request Identity event, Experience Cloud Org ID not found in configuration."
 			);
@@ -183,57 +296,71 @@ class IdentityExtension extends Extension {
 
 		if (StringUtils.isNullOrEmpty(ecidString)) {
 			handleUrlVariableResponse(
-				event,
+				request,
 				null,
 				"Cannot process getUrlVariables request Identity event, ECID not found."
 			);
 			return;
 		}
 
-		final String urlVariablesString = URLUtils.generateURLVariablesPayload(
-			String.valueOf(TimeUtils.getUnixTimeInSeconds()),
-			ecidString,
-			orgId
-		);
+		// the template is rebuilt when the ECID or the configured Org ID changes
+		if (urlVariablesTemplate == null || !urlVariablesTemplate.matches(ecidString, orgId)) {
+			urlVariablesTemplate = URLVariablesTemplate.create(ecidString, orgId);
+		}
+
+		final String ts = String.valueOf(TimeUtils.getUnixTimeInSeconds());
+		final String urlVariablesString = urlVariablesTemplate != null
+			? urlVariablesTemplate.build(ts)
+			: URLUtils.generateURLVariablesPayload(ts, ecidString, orgId);
 
-		handleUrlVariableResponse(event, urlVariablesString);
+		handleUrlVariableResponse(request, urlVariablesString);
 	}
 
 	/**
 	 * Handles response event after processing the url variables request.
 	 *
-	 * @param event the identity request {@link Event}
+	 * @param request the get url variables {@link IdentityRequest}
 	 * @param urlVariables {@link String} representing the urlVariables encoded string
 	 */
-	private void handleUrlVariableResponse(@NonNull final Event event, final String urlVariables) {
-		handleUrlVariableResponse(event, urlVariables, null);
+	private void handleUrlVariableResponse(@NonNull final IdentityRequest request, final String urlVariables) {
+		handleUrlVariableResponse(request, urlVariables, null);
 	}
 
 	/**
 	 * Handles response event after processing the url variables request.
 	 *
-	 * @param event the identity request {@link Event}
+	 * @param request the get url variables {@link IdentityRequest}
 	 * @param urlVariables {@link String} representing the urlVariables encoded string
 	 * @param errorMsg {@link String} representing error encountered while generating the urlVariables string
 	 */
 	private void handleUrlVariableResponse(
-		@NonNull final Event event,
+		@NonNull final IdentityRequest request,
 		final String urlVariables,
 		final String errorMsg
 	) {
+		final Map<String, Object> responseData = new HashMap<>();
+		responseData.put(IdentityConstants.EventDataKeys.URL_VARIABLES, urlVariables);
+
+		// batched requests get the URLs decorated with the same URL variables
+		final List<String> urls = request.getUrls();
+
+		if (urls != null && !StringUtils.isNullOrEmpty(urlVariables)) {
+			final List<String> decoratedUrls = new ArrayList<>(urls.size());
+
+			for (final String url : urls) {
+				decoratedUrls.add(URLUtils.appendURLVariablesToURL(url, urlVariables));
+			}
+
+			responseData.put(IdentityConstants.EventDataKeys.URLS, decoratedUrls);
+		}
+
 		Event responseEvent = new Event.Builder(
 			IdentityConstants.EventNames.IDENTITY_RESPONSE_URL_VARIABLES,
 			EventType.EDGE_IDENTITY,
 			EventSource.RESPONSE_IDENTITY
 		)
-			.setEventData(
-				new HashMap<String, Object>() {
-					{
-						put(IdentityConstants.EventDataKeys.URL_VARIABLES, urlVariables);
-					}
-				}
-			)
-			.inResponseToEvent(event)
+			.setEventData(responseData)
+			.inResponseToEvent(request.getEvent())
 			.build();
 
 		if (StringUtils.isNullOrEmpty(urlVariables) && !StringUtils.isNullOrEmpty(errorMsg)) {
@@ -249,18 +376,14 @@ class IdentityExtension extends Extension {
 	 * @param event the edge update identity {@link Event}
 	 */
 	void handleUpdateIdentities(@NonNull final Event event) {
-		// Add pending shared state to avoid race condition between updating and reading identity map
-		final SharedStateResolver resolver = getApi().createPendingXDMSharedState(event);
-
-		final Map<String, Object> eventData = event.getEventData();
+		final IdentityChangeRequest request = EventUtils.decodeUpdateIdentitiesRequest(event);
 
-		if (eventData == null) {
+		if (request == null) {
 			Log.trace(LOG_TAG, LOG_SOURCE, "Cannot update identifiers, event data is null.");
-			resolver.resolve(state.getIdentityProperties().toXDMData());
 			return;
 		}
 
-		final IdentityMap map = IdentityMap.fromXDMMap(eventData);
+		final IdentityMap map = request.getUpdatedIdentities();
 
 		if (map == null) {
 			Log.debug(
@@ -268,12 +391,15 @@ class IdentityExtension extends Extension {
 				LOG_SOURCE,
 				"Failed to update identifiers as no identifiers were found in the event data."
 			);
-			resolver.resolve(state.getIdentityProperties().toXDMData());
 			return;
 		}
 
-		state.updateCustomerIdentifiers(map);
-		resolver.resolve(state.getIdentityProperties().toXDMData());
+		if (!state.updateCustomerIdentifiers(map)) {
+			Log.trace(LOG_TAG, LOG_SOURCE, "Identifiers were not modified by the update, not sharing state.");
+			return;
+		}
+
+		shareCoalescedIdentityXDMSharedState(event);
 	}
 
 	/**
@@ -282,18 +408,14 @@ class IdentityExtension extends Extension {
 	 * @param event the edge remove identity request {@link Event}
 	 */
 	void handleRemoveIdentity(@NonNull final Event event) {
-		// Add pending shared state to avoid race condition between updating and reading identity map
-		final SharedStateResolver resolver = getApi().createPendingXDMSharedState(event);
-
-		final Map<String, Object> eventData = event.getEventData();
+		final IdentityChangeRequest request = EventUtils.decodeRemoveIdentitiesRequest(event);
 
-		if (eventData == null) {
+		if (request == null) {
 			Log.trace(LOG_TAG, LOG_SOURCE, "Cannot remove identifiers, event data is null.");
-			resolver.resolve(state.getIdentityProperties().toXDMData());
 			return;
 		}
 
-		final IdentityMap map = IdentityMap.fromXDMMap(eventData);
+		final IdentityMap map = request.getRemovedIdentities();
 
 		if (map == null) {
 			Log.debug(
@@ -301,12 +423,49 @@ class IdentityExtension extends Extension {
 				LOG_SOURCE,
 				"Failed to remove identifiers as no identifiers were found in the event data."
 			);
-			resolver.resolve(state.getIdentityProperties().toXDMData());
 			return;
 		}
 
-		state.removeCustomerIdentifiers(map);
-		resolver.resolve(state.getIdentityProperties().toXDMData());
+		if (!state.removeCustomerIdentifiers(map)) {
+			Log.trace(LOG_TAG, LOG_SOURCE, "Identifiers were not modified by the removal, not sharing state.");
+			return;
+		}
+
+		shareCoalescedIdentityXDMSharedState(event);
+	}
+
+	/**
+	 * Handles apply identity changes requests, as sent by {@link Identity#applyIdentityChanges}, removing and
+	 * adding customer identifiers as a single change with a single shared state.
+	 *
+	 * @param event the edge apply identity changes {@link Event}
+	 */
+	void handleApplyIdentityChanges(@NonNull final Event event) {
+		final IdentityChangeRequest request = EventUtils.decodeApplyIdentityChangesRequest(event);
+
+		if (request == null) {
+			Log.trace(LOG_TAG, LOG_SOURCE, "Cannot apply identifier changes, event data is null.");
+			return;
+		}
+
+		final IdentityMap updatedMap = request.getUpdatedIdentities();
+		final IdentityMap removedMap = request.getRemovedIdentities();
+
+		if (updatedMap == null && removedMap == null) {
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Failed to apply identifier changes as no identifiers were found in the event data."
+			);
+			return;
+		}
+
+		if (!state.applyCustomerIdentifierChanges(updatedMap, removedMap)) {
+			Log.trace(LOG_TAG, LOG_SOURCE, "Identifiers were not modified by the changes, not sharing state.");
+			return;
+		}
+
+		shareCoalescedIdentityXDMSharedState(event);
 	}
 
 	/**
@@ -352,15 +511,97 @@ class IdentityExtension extends Extension {
 	}
 
 	/**
-	 * Handles ECID sync between Edge Identity and Identity Direct, usually called when Identity Direct's shared state is updated.
+	 * Handles shared state updates of other extensions, forwarding the Identity Direct and Configuration updates.
+	 *
+	 * @param event the shared state update {@link Event}
+	 */
+	void handleSharedStateUpdate(@NonNull final Event event) {
+		final String stateOwner = EventUtils.getSharedStateOwner(event);
+
+		if (IdentityConstants.SharedState.Configuration.NAME.equals(stateOwner)) {
+			handleConfigurationUpdate(event);
+		} else if (IdentityConstants.SharedState.IdentityDirect.NAME.equals(stateOwner)) {
+			updateLegacyECIDFromIdentityDirect(event);
+		}
+	}
+
+	/**
+	 * Handles Configuration shared state updates, applying the Edge Identity settings to the current state
+	 * and handling the get url variables requests which were waiting for the Configuration shared state.
 	 *
 	 * @param event the shared state update {@link Event}
 	 */
-	void handleIdentityDirectECIDUpdate(@NonNull final Event event) {
-		if (!EventUtils.isSharedStateUpdateFor(IdentityConstants.SharedState.IdentityDirect.NAME, event)) {
+	void handleConfigurationUpdate(@NonNull final Event event) {
+		final SharedStateResult configSharedStateResult = sharedStateHandle.getSharedState(
+			IdentityConstants.SharedState.Configuration.NAME,
+			event
+		);
+
+		if (configSharedStateResult == null || configSharedStateResult.getStatus() != SharedStateStatus.SET) {
 			return;
 		}
 
+		state.updateConfiguration(configSharedStateResult.getValue());
+		updateConfiguredOrgId(configSharedStateResult.getValue());
+		processPendingUrlVariablesRequests();
+	}
+
+	/**
+	 * Checks if a Configuration shared state is known. Until a Configuration shared state update is handled,
+	 * for example when Configuration set its state before this extension registered, the Configuration shared
+	 * state is read at the given {@code event}.
+	 *
+	 * @param event the {@link Event} to read the Configuration shared state at
+	 * @return true if {@link #configuredOrgId} reflects a set Configuration shared state
+	 */
+	private boolean isConfigurationAvailable(@NonNull final Event event) {
+		if (configurationVersion > 0) {
+			return true;
+		}
+
+		final SharedStateResult configSharedStateResult = sharedStateHandle.getSharedState(
+			IdentityConstants.SharedState.Configuration.NAME,
+			event
+		);
+
+		if (configSharedStateResult == null || configSharedStateResult.getStatus() != SharedStateStatus.SET) {
+			return false;
+		}
+
+		updateConfiguredOrgId(configSharedStateResult.getValue());
+		return true;
+	}
+
+	/**
+	 * Caches the Experience Cloud Org ID of the given Configuration shared state.
+	 *
+	 * @param configurationState the set Configuration shared state, may be null
+	 */
+	private void updateConfiguredOrgId(final Map<String, Object> configurationState) {
+		configuredOrgId = EventUtils.getOrgId(configurationState);
+		configurationVersion++;
+	}
+
+	/**
+	 * Handles generic lifecycle requests, writing any pending identity changes to persistence when the application
+	 * moves to the background.
+	 *
+	 * @param event the generic lifecycle request {@link Event}
+	 */
+	void handleLifecycleRequest(@NonNull final Event event) {
+		if (!EventUtils.isLifecyclePauseEvent(event)) {
+			return;
+		}
+
+		state.flushPersistence();
+	}
+
+	/**
+	 * Updates the legacy ECID from the Identity Direct shared state at the given shared state update {@code event}.
+	 *
+	 * @param event the Identity Direct shared state update {@link Event}
+	 */
+	private void updateLegacyECIDFromIdentityDirect(@NonNull final Event event) {
 		final SharedStateResult identitySharedStateResult = sharedStateHandle.getSharedState(
 			IdentityConstants.SharedState.IdentityDirect.NAME,
 			event
@@ -387,11 +628,43 @@ class IdentityExtension extends Extension {
 	 * @param event the {@link Event} containing advertising identifier data
 	 */
 	void handleRequestContent(@NonNull final Event event) {
-		if (!EventUtils.isAdIdEvent(event)) {
+		final AdIdRequest request = EventUtils.decodeAdIdRequest(event);
+
+		if (request == null) {
 			return;
 		}
 		// Doesn't need event dispatcher because MobileCore can be called directly
-		state.updateAdvertisingIdentifier(event, sharedStateHandle);
+		state.updateAdvertisingIdentifier(request, sharedStateHandle);
+	}
+
+	/**
+	 * Wraps the given {@code listener} to record the time spent handling each event under {@code name}.
+	 *
+	 * @param name     the name of the handled operation, one of the {@link IdentityMetrics} names
+	 * @param listener the {@link ExtensionEventListener} handling the events
+	 * @return an {@code ExtensionEventListener} calling {@code listener} and recording its duration
+	 */
+	private ExtensionEventListener timed(final String name, final ExtensionEventListener listener) {
+		return event -> {
+			final long startNanos = IdentityMetrics.startTimer();
+			listener.hear(event);
+			recordEventHandled(name, startNanos);
+		};
+	}
+
+	/**
+	 * Records the handling of an event started at {@code startNanos}, with the number of identities after handling.
+	 *
+	 * @param name       the name of the handled operation, one of the {@link IdentityMetrics} names
+	 * @param startNanos the value returned by {@link IdentityMetrics#startTimer()} before handling the event
+	 */
+	private void recordEventHandled(final String name, final long startNanos) {
+		if (startNanos == IdentityMetrics.NOT_TIMED) {
+			return;
+		}
+
+		final IdentityProperties properties = state.getIdentityProperties();
+		IdentityMetrics.recordEventHandled(name, startNanos, properties != null ? properties.getIdentityCount() : 0);
 	}
 
 	/**
@@ -402,4 +675,37 @@ class IdentityExtension extends Extension {
 	private void shareIdentityXDMSharedState(final Event event) {
 		sharedStateHandle.createXDMSharedState(state.getIdentityProperties().toXDMData(), event);
 	}
+
+	/**
+	 * Shares the current identities for an identity update or removal {@code event}. When update coalescing is
+	 * enabled, the identities are coalesced into the pending shared state of the current burst of updates and
+	 * removals, or a new pending shared state is created for {@code event}.
+	 *
+	 * @param event the identity update or removal {@link Event}
+	 */
+	private void shareCoalescedIdentityXDMSharedState(final Event event) {
+		final long windowMillis = state.getUpdateCoalescingWindow();
+
+		if (windowMillis <= 0) {
+			shareIdentityXDMSharedState(event);
+			return;
+		}
+
+		final Map<String, Object> xdmData = state.getIdentityProperties().toXDMData();
+
+		if (sharedStateCoalescer.coalesce(xdmData)) {
+			return;
+		}
+
+		final SharedStateResolver resolver = getApi().createPendingXDMSharedState(event);
+
+		if (resolver == null) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Failed to create pending shared state, sharing state without coalescing.");
+			shareIdentityXDMSharedState(event);
+			state.flushPersistence();
+			return;
+		}
+
+		sharedStateCoalescer.start(resolver, xdmData, windowMillis);
+	}
 }
@@ -0,0 +1,70 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Receives timing measurements of the Identity for Edge Network extension, for example to forward them to an
+ * application performance monitoring tool. Register an implementation with {@link Identity#setInstrumentation}.
+ * <p>
+ * Methods are called synchronously on the thread doing the measured work, which may be the extension thread or
+ * a background persistence thread, so implementations must be thread-safe and return quickly.
+ */
+public interface IdentityInstrumentation {
+	/**
+	 * Called after the extension handled an event.
+	 *
+	 * @param name          the name of the handled operation, such as {@code updateIdentities}, {@code removeIdentities},
+	 *                      {@code applyIdentityChanges}, {@code resetIdentities}, {@code getIdentities} or
+	 *                      {@code getUrlVariables}
+	 * @param durationNanos the time spent handling the event, in nanoseconds
+	 * @param identityCount the number of identities held by the extension after handling the event
+	 */
+	void onEventHandled(@NonNull String name, long durationNanos, int identityCount);
+
+	/**
+	 * Called after the identities were loaded from persistence.
+	 *
+	 * @param durationNanos the time spent reading and parsing the persisted identities, in nanoseconds
+	 * @param bytes         the UTF-8 size of the persisted identities, in bytes
+	 */
+	void onPersistenceRead(long durationNanos, int bytes);
+
+	/**
+	 * Called after the identities or an identity journal entry were written to persistence.
+	 *
+	 * @param durationNanos the time spent serializing and writing, in nanoseconds
+	 * @param bytes         the UTF-8 size of the written data, in bytes
+	 */
+	void onPersistenceWrite(long durationNanos, int bytes);
+
+	/**
+	 * Called when the extension completed a bootup step. Only the steps completed while an instrumentation is
+	 * registered are reported. Does nothing by default, so existing implementations are not required to handle it.
+	 *
+	 * @param state         the name of the completed step, {@code LOADED} while loading the persisted identities,
+	 *                      {@code WAITING_HUB} while waiting for the registered extensions, or {@code WAITING_DIRECT}
+	 *                      while waiting for the ECID of the direct Identity extension
+	 * @param durationNanos the time spent in the step, in nanoseconds
+	 */
+	default void onBootStateCompleted(@NonNull String state, long durationNanos) {}
+
+	/**
+	 * Called after identities were evicted because the {@code edgeIdentity.maxIdentitiesPerNamespace} or
+	 * {@code edgeIdentity.maxIdentities} limit was reached. Does nothing by default.
+	 *
+	 * @param durationNanos the time spent selecting and evicting the identities, in nanoseconds
+	 * @param evictedCount  the number of evicted identities
+	 */
+	default void onIdentitiesEvicted(long durationNanos, int evictedCount) {}
+}
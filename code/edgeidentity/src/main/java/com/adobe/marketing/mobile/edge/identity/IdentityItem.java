@@ -20,7 +20,6 @@ import com.adobe.marketing.mobile.util.DataReader;
 import com.adobe.marketing.mobile.util.DataReaderException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 
 /**
  * Identity is used to clearly distinguish people that are interacting with digital experiences.
@@ -35,6 +34,8 @@ public final class IdentityItem {
 	private final String id;
 	private final AuthenticatedState authenticatedState;
 	private final boolean primary;
+	// hash of the case-folded id, consistent with the case-insensitive equals
+	private final int hash;
 
 	/**
 	 * Creates a new {@link IdentityItem}.
@@ -59,6 +60,7 @@ public final class IdentityItem {
 		this.id = id;
 		this.authenticatedState = authenticatedState != null ? authenticatedState : AuthenticatedState.AMBIGUOUS;
 		this.primary = primary;
+		this.hash = Utils.foldCase(id).hashCode();
 	}
 
 	/**
@@ -81,7 +83,10 @@ public final class IdentityItem {
 	 * @param item A {@link IdentityItem} to be copied; should not be null
 	 */
 	public IdentityItem(@NonNull final IdentityItem item) {
-		this(item.id, item.authenticatedState, item.primary);
+		this.id = item.id;
+		this.authenticatedState = item.authenticatedState;
+		this.primary = item.primary;
+		this.hash = item.hash;
 	}
 
 	/**
@@ -140,7 +145,7 @@ public final class IdentityItem {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(id);
+		return hash;
 	}
 
 	// ========================================================================================
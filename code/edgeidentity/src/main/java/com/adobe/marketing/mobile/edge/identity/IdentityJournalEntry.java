@@ -0,0 +1,239 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static com.adobe.marketing.mobile.edge.identity.IdentityConstants.LOG_TAG;
+
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.util.DataReader;
+import com.adobe.marketing.mobile.util.JSONUtils;
+import java.util.HashMap;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Represents a single change to the {@link IdentityProperties}, recorded in the persisted identity journal.
+ * Replaying the journal entries in order on top of the last persisted snapshot restores the current identities.
+ */
+final class IdentityJournalEntry {
+
+	private static final String LOG_SOURCE = "IdentityJournalEntry";
+
+	/**
+	 * The type of change recorded by an {@link IdentityJournalEntry}
+	 */
+	enum Operation {
+		UPDATE("update"),
+		REMOVE("remove"),
+		SET_ECID("setECID"),
+		SET_ECID_SECONDARY("setECIDSecondary"),
+		SET_AD_ID("setAdId"),
+		APPLY_CHANGES("applyChanges");
+
+		private final String name;
+
+		Operation(final String name) {
+			this.name = name;
+		}
+
+		String getName() {
+			return name;
+		}
+
+		static Operation fromString(final String name) {
+			for (final Operation operation : values()) {
+				if (operation.name.equals(name)) {
+					return operation;
+				}
+			}
+
+			return null;
+		}
+	}
+
+	private final Operation operation;
+	private final IdentityMap identityMap;
+	// the customer identifiers removed before the identityMap is merged, only for APPLY_CHANGES
+	private final IdentityMap removedIdentityMap;
+	private final String id;
+
+	private IdentityJournalEntry(final Operation operation, final IdentityMap identityMap, final String id) {
+		this(operation, identityMap, null, id);
+	}
+
+	private IdentityJournalEntry(
+		final Operation operation,
+		final IdentityMap identityMap,
+		final IdentityMap removedIdentityMap,
+		final String id
+	) {
+		this.operation = operation;
+		this.identityMap = identityMap;
+		this.removedIdentityMap = removedIdentityMap;
+		this.id = id;
+	}
+
+	/**
+	 * @param map the customer identifiers merged into the current identifiers
+	 * @return an entry recording the update of customer identifiers
+	 */
+	static IdentityJournalEntry update(final IdentityMap map) {
+		return new IdentityJournalEntry(Operation.UPDATE, map, null);
+	}
+
+	/**
+	 * @param map the customer identifiers removed from the current identifiers
+	 * @return an entry recording the removal of customer identifiers
+	 */
+	static IdentityJournalEntry remove(final IdentityMap map) {
+		return new IdentityJournalEntry(Operation.REMOVE, map, null);
+	}
+
+	/**
+	 * @param addedMap   the customer identifiers merged into the current identifiers, may be null
+	 * @param removedMap the customer identifiers removed from the current identifiers before the merge, may be null
+	 * @return an entry recording the removal and update of customer identifiers as a single change
+	 */
+	static IdentityJournalEntry applyChanges(final IdentityMap addedMap, final IdentityMap removedMap) {
+		return new IdentityJournalEntry(Operation.APPLY_CHANGES, addedMap, removedMap, null);
+	}
+
+	/**
+	 * @param ecid the new primary {@link ECID}, may be null
+	 * @return an entry recording the change of the primary ECID
+	 */
+	static IdentityJournalEntry setECID(final ECID ecid) {
+		return new IdentityJournalEntry(Operation.SET_ECID, null, ecid != null ? ecid.toString() : null);
+	}
+
+	/**
+	 * @param ecid the new secondary {@link ECID}, may be null
+	 * @return an entry recording the change of the secondary ECID
+	 */
+	static IdentityJournalEntry setECIDSecondary(final ECID ecid) {
+		return new IdentityJournalEntry(Operation.SET_ECID_SECONDARY, null, ecid != null ? ecid.toString() : null);
+	}
+
+	/**
+	 * @param adId the new advertising identifier, may be null or empty
+	 * @return an entry recording the change of the advertising identifier
+	 */
+	static IdentityJournalEntry setAdId(final String adId) {
+		return new IdentityJournalEntry(Operation.SET_AD_ID, null, adId);
+	}
+
+	Operation getOperation() {
+		return operation;
+	}
+
+	/**
+	 * Applies the change recorded by this entry to the given {@code properties}.
+	 *
+	 * @param properties the {@link IdentityProperties} to update; should not be null
+	 */
+	void applyTo(final IdentityProperties properties) {
+		switch (operation) {
+			case UPDATE:
+				properties.updateCustomerIdentifiers(identityMap);
+				break;
+			case REMOVE:
+				properties.removeCustomerIdentifiers(identityMap);
+				break;
+			case SET_ECID:
+				properties.setECID(id != null ? new ECID(id) : null);
+				break;
+			case SET_ECID_SECONDARY:
+				properties.setECIDSecondary(id != null ? new ECID(id) : null);
+				break;
+			case SET_AD_ID:
+				properties.setAdId(id);
+				break;
+			case APPLY_CHANGES:
+				properties.applyCustomerIdentifierChanges(identityMap, removedIdentityMap);
+				break;
+		}
+	}
+
+	/**
+	 * Serializes this entry for persistence.
+	 *
+	 * @return the JSON string representation of this entry
+	 */
+	String toJSONString() {
+		final Map<String, Object> data = new HashMap<>();
+
+		if (identityMap != null) {
+			data.putAll(identityMap.asXDMMap(false));
+		}
+
+		if (removedIdentityMap != null) {
+			data.put(IdentityConstants.JournalKeys.REMOVED, removedIdentityMap.asXDMMap(false));
+		}
+
+		if (id != null) {
+			data.put(IdentityConstants.JournalKeys.ID, id);
+		}
+
+		data.put(IdentityConstants.JournalKeys.OPERATION, operation.getName());
+		return new JSONObject(data).toString();
+	}
+
+	/**
+	 * Creates an {@link IdentityJournalEntry} from its persisted JSON string representation.
+	 *
+	 * @param jsonString the persisted entry
+	 * @return the entry, or null if {@code jsonString} is not a valid journal entry
+	 */
+	static IdentityJournalEntry fromJSONString(final String jsonString) {
+		if (jsonString == null) {
+			return null;
+		}
+
+		final Map<String, Object> data;
+
+		try {
+			data = JSONUtils.toMap(new JSONObject(jsonString));
+		} catch (final JSONException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Failed to read identity journal entry, %s", e.getLocalizedMessage());
+			return null;
+		}
+
+		final Operation operation = Operation.fromString(
+			DataReader.optString(data, IdentityConstants.JournalKeys.OPERATION, null)
+		);
+
+		if (operation == null) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Ignoring identity journal entry with unknown operation.");
+			return null;
+		}
+
+		final String id = DataReader.optString(data, IdentityConstants.JournalKeys.ID, null);
+
+		switch (operation) {
+			case UPDATE:
+			case REMOVE:
+				final IdentityMap map = IdentityMap.fromXDMMap(data);
+				return map != null ? new IdentityJournalEntry(operation, map, null) : null;
+			case APPLY_CHANGES:
+				final IdentityMap addedMap = IdentityMap.fromXDMMap(data);
+				final IdentityMap removedMap = IdentityMap.fromXDMMap(
+					DataReader.optTypedMap(Object.class, data, IdentityConstants.JournalKeys.REMOVED, null)
+				);
+				return (addedMap != null || removedMap != null)
+					? new IdentityJournalEntry(operation, addedMap, removedMap, null)
+					: null;
+			default:
+				return new IdentityJournalEntry(operation, null, id);
+		}
+	}
+}
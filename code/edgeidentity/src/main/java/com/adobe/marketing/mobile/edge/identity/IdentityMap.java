@@ -19,9 +19,15 @@ import com.adobe.marketing.mobile.util.DataReader;
 import com.adobe.marketing.mobile.util.MapUtils;
 import com.adobe.marketing.mobile.util.StringUtils;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Defines a map containing a set of end user identities, keyed on either namespace integration
@@ -36,7 +42,48 @@ public class IdentityMap {
 
 	private static final String LOG_SOURCE = "IdentityMap";
 
-	private final Map<String, List<IdentityItem>> identityItems = new HashMap<>();
+	// namespace -> (item -> item), items are hashed by their case-insensitive id and kept in order within each namespace
+	private final Map<String, LinkedHashMap<IdentityItem, IdentityItem>> identityItems = new HashMap<>();
+	// case-folded namespace -> namespaces, as namespaces are case sensitive except when cleared
+	private final Map<String, Set<String>> namespaceIndex = new HashMap<>();
+	// namespace -> (item -> sequence of its last update), used to evict the least recently updated items first
+	private final Map<String, Map<IdentityItem, Long>> updateSequences = new HashMap<>();
+	// incremented on each item update
+	private long updateSequence;
+	// set on maps published in an IdentitySnapshot, which are shared between threads and must not be modified
+	private boolean isReadOnly;
+	// namespace items shared with the last read-only snapshot, copied before being modified
+	private final Set<LinkedHashMap<IdentityItem, IdentityItem>> sharedItems = Collections.newSetFromMap(
+		new IdentityHashMap<LinkedHashMap<IdentityItem, IdentityItem>, Boolean>()
+	);
+
+	/**
+	 * Creates a new, empty {@link IdentityMap}.
+	 */
+	public IdentityMap() {}
+
+	/**
+	 * Creates a shallow copy of the given {@link IdentityMap}, which is never read-only.
+	 * The namespace indexes are copied, while the immutable {@link IdentityItem}s are shared.
+	 *
+	 * @param map the {@code IdentityMap} to copy; should not be null
+	 */
+	IdentityMap(@NonNull final IdentityMap map) {
+		for (final Map.Entry<String, LinkedHashMap<IdentityItem, IdentityItem>> entry : map.identityItems.entrySet()) {
+			identityItems.put(entry.getKey(), new LinkedHashMap<>(entry.getValue()));
+		}
+
+		// rebuilt rather than copied, as read-only snapshots do not keep a namespace index
+		for (final String namespace : identityItems.keySet()) {
+			addToNamespaceIndex(namespace);
+		}
+
+		for (final Map.Entry<String, Map<IdentityItem, Long>> entry : map.updateSequences.entrySet()) {
+			updateSequences.put(entry.getKey(), new HashMap<>(entry.getValue()));
+		}
+
+		updateSequence = map.updateSequence;
+	}
 
 	/**
 	 * Gets the {@link IdentityItem}s for the namespace
@@ -52,13 +99,13 @@ public class IdentityMap {
 			return copyItems;
 		}
 
-		final List<IdentityItem> items = identityItems.get(namespace);
+		final LinkedHashMap<IdentityItem, IdentityItem> items = identityItems.get(namespace);
 
 		if (items == null) {
 			return copyItems;
 		}
 
-		for (IdentityItem item : items) {
+		for (IdentityItem item : items.values()) {
 			copyItems.add(new IdentityItem(item));
 		}
 
@@ -78,21 +125,37 @@ public class IdentityMap {
 	 * Add an identity item which is used to clearly distinguish entities that are interacting
 	 * with digital experiences.
 	 * An {@link IdentityItem} with an empty {@code id} is not allowed and is ignored.
+	 * <p>
+	 * The {@code IdentityMap} returned by {@link IdentitySnapshot#getIdentityMap()} is read-only: the item is
+	 * not added and a warning is logged. Add the items to a new {@code IdentityMap} instead.
 	 *
 	 * @param item      {@link IdentityItem} to be added to the given {@code namespace}; should not be null
 	 * @param namespace the namespace integration code or namespace ID of the identity; should not be null
 	 */
 	public void addItem(@NonNull final IdentityItem item, @NonNull final String namespace) {
+		if (isReadOnly) {
+			Log.warning(LOG_TAG, LOG_SOURCE, "Add item ignored as this IdentityMap is read-only.");
+			return;
+		}
+
 		addItem(item, namespace, false);
 	}
 
 	/**
 	 * Remove a single {@link IdentityItem} from this map.
+	 * <p>
+	 * The {@code IdentityMap} returned by {@link IdentitySnapshot#getIdentityMap()} is read-only: the item is
+	 * not removed and a warning is logged.
 	 *
 	 * @param item      {@link IdentityItem} to be removed from the given {@code namespace}; should not be null
 	 * @param namespace the namespace integration code or namespace ID of the identity; should not be null
 	 */
 	public void removeItem(@NonNull final IdentityItem item, @NonNull final String namespace) {
+		if (isReadOnly) {
+			Log.warning(LOG_TAG, LOG_SOURCE, "Remove item ignored as this IdentityMap is read-only.");
+			return;
+		}
+
 		if (item == null) {
 			Log.debug(LOG_TAG, LOG_SOURCE, "Remove item ignored as must contain a non-null IdentityItem.");
 			return;
@@ -120,10 +183,10 @@ public class IdentityMap {
 		final StringBuilder b = new StringBuilder();
 		b.append("{\"").append(IdentityConstants.XDMKeys.IDENTITY_MAP).append("\": {");
 
-		for (Map.Entry<String, List<IdentityItem>> me : identityItems.entrySet()) {
+		for (Map.Entry<String, LinkedHashMap<IdentityItem, IdentityItem>> me : identityItems.entrySet()) {
 			b.append("\"").append(me.getKey()).append("\": [");
 
-			for (IdentityItem item : me.getValue()) {
+			for (IdentityItem item : me.getValue().values()) {
 				b.append(item).append(",");
 			}
 
@@ -155,19 +218,126 @@ public class IdentityMap {
 	 * @param item        {@link IdentityItem} to be added to the namespace
 	 * @param namespace   the namespace integration code or namespace ID of the identity
 	 * @param isFirstItem on {@code true} keeps the provided {@code IdentityItem} as the first element of the identity list for this namespace
+	 * @return true if this {@code IdentityMap} was modified
 	 */
-	void addItem(final IdentityItem item, final String namespace, final boolean isFirstItem) {
+	boolean addItem(final IdentityItem item, final String namespace, final boolean isFirstItem) {
+		if (isReadOnly) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Add item ignored as this IdentityMap is read-only.");
+			return false;
+		}
+
 		if (item == null) {
 			Log.debug(LOG_TAG, LOG_SOURCE, "Add item ignored as must contain a non-null IdentityItem.");
-			return;
+			return false;
 		}
 
 		if (StringUtils.isNullOrEmpty(namespace)) {
 			Log.debug(LOG_TAG, LOG_SOURCE, "Add item ignored as must contain a non-null/non-empty namespace.");
-			return;
+			return false;
 		}
 
-		addItemToMap(item, namespace, isFirstItem);
+		return addItemToMap(item, namespace, isFirstItem);
+	}
+
+	/**
+	 * @return the number of {@link IdentityItem}s in all the namespaces of this {@link IdentityMap}
+	 */
+	int getItemCount() {
+		int count = 0;
+
+		for (final LinkedHashMap<IdentityItem, IdentityItem> items : identityItems.values()) {
+			count += items.size();
+		}
+
+		return count;
+	}
+
+	/**
+	 * Makes this {@link IdentityMap} read-only, after which all modifications are ignored.
+	 * A read-only map can be safely read from multiple threads once published.
+	 *
+	 * @return this {@code IdentityMap}
+	 */
+	IdentityMap asReadOnly() {
+		isReadOnly = true;
+		return this;
+	}
+
+	/**
+	 * Creates a read-only snapshot of this {@link IdentityMap}, which is not affected by later changes to this map.
+	 * The items of each namespace are shared with the snapshot rather than copied, and this map only copies the
+	 * items of a namespace before it next modifies them, so publishing a snapshot after each change costs a copy
+	 * of the changed namespaces only.
+	 *
+	 * @return a new read-only {@code IdentityMap}
+	 */
+	IdentityMap toReadOnlySnapshot() {
+		final IdentityMap snapshot = new IdentityMap();
+		snapshot.identityItems.putAll(identityItems);
+		snapshot.isReadOnly = true;
+		// items replaced since the previous snapshot are no longer referenced by this map
+		sharedItems.clear();
+		sharedItems.addAll(identityItems.values());
+		return snapshot;
+	}
+
+	/**
+	 * @return true if this {@link IdentityMap} was made read-only using {@link #asReadOnly()} or was created by
+	 *         {@link #toReadOnlySnapshot()}
+	 */
+	boolean isReadOnly() {
+		return isReadOnly;
+	}
+
+	/**
+	 * Gets the {@link IdentityItem}s of the given namespace in order, without copying them.
+	 * The returned collection is a view of this {@code IdentityMap} and must not be modified.
+	 *
+	 * @param namespace the namespace of the identities
+	 * @return the items of {@code namespace}, or an empty collection if the namespace has no items
+	 */
+	Collection<IdentityItem> itemsFor(final String namespace) {
+		final LinkedHashMap<IdentityItem, IdentityItem> items = identityItems.get(namespace);
+		return items != null ? items.values() : Collections.<IdentityItem>emptyList();
+	}
+
+	/**
+	 * Gets the id of the first {@link IdentityItem} in the given namespace, without copying the items.
+	 *
+	 * @param namespace the namespace of the identity
+	 * @return the id of the first item in {@code namespace}, or null if the namespace has no items
+	 */
+	String firstIdFor(final String namespace) {
+		return idAt(namespace, 0);
+	}
+
+	/**
+	 * Gets the id of the {@link IdentityItem} at the given position in the given namespace, without copying the items.
+	 *
+	 * @param namespace the namespace of the identity
+	 * @param index     the position of the item within {@code namespace}
+	 * @return the id of the item at {@code index} in {@code namespace}, or null if there is no such item
+	 */
+	String idAt(final String namespace, final int index) {
+		if (namespace == null || index < 0) {
+			return null;
+		}
+
+		final LinkedHashMap<IdentityItem, IdentityItem> items = identityItems.get(namespace);
+
+		if (items == null || index >= items.size()) {
+			return null;
+		}
+
+		int position = 0;
+
+		for (final IdentityItem item : items.values()) {
+			if (position++ == index) {
+				return item.getId();
+			}
+		}
+
+		return null;
 	}
 
 	/**
@@ -176,17 +346,37 @@ public class IdentityMap {
 	 * Any {@link IdentityItem}s with an empty {@code id} are not allowed and are ignored.
 	 *
 	 * @param map {@link IdentityMap} to be merged into this object
+	 * @return true if this {@code IdentityMap} was modified, false if all the items in {@code map} were already present
 	 */
-	void merge(final IdentityMap map) {
-		if (map == null) {
-			return;
+	boolean merge(final IdentityMap map) {
+		if (map == null || isReadOnly) {
+			return false;
 		}
 
-		for (final String namespace : map.identityItems.keySet()) {
-			for (IdentityItem identityItem : map.identityItems.get(namespace)) {
-				addItem(identityItem, namespace);
+		boolean isModified = false;
+
+		for (final Map.Entry<String, LinkedHashMap<IdentityItem, IdentityItem>> entry : map.identityItems.entrySet()) {
+			final String namespace = entry.getKey();
+
+			if (!identityItems.containsKey(namespace)) {
+				// items of the given map are already deduplicated, so a new namespace is copied as is
+				identityItems.put(namespace, new LinkedHashMap<>(entry.getValue()));
+				addToNamespaceIndex(namespace);
+
+				for (final IdentityItem identityItem : entry.getValue().values()) {
+					markUpdated(identityItem, namespace);
+				}
+
+				isModified = true;
+				continue;
+			}
+
+			for (IdentityItem identityItem : entry.getValue().values()) {
+				isModified |= addItemToMap(identityItem, namespace, false);
 			}
 		}
+
+		return isModified;
 	}
 
 	/**
@@ -194,17 +384,22 @@ public class IdentityMap {
 	 * Identities are removed which match the same namespace and id.
 	 *
 	 * @param map Identities to remove from this {@code IdentityMap}
+	 * @return true if this {@code IdentityMap} was modified, false if none of the items in {@code map} were present
 	 */
-	void remove(final IdentityMap map) {
-		if (map == null) {
-			return;
+	boolean remove(final IdentityMap map) {
+		if (map == null || isReadOnly) {
+			return false;
 		}
 
-		for (final String namespace : map.identityItems.keySet()) {
-			for (IdentityItem identityItem : map.identityItems.get(namespace)) {
-				removeItem(identityItem, namespace);
+		boolean isModified = false;
+
+		for (final Map.Entry<String, LinkedHashMap<IdentityItem, IdentityItem>> entry : map.identityItems.entrySet()) {
+			for (IdentityItem identityItem : entry.getValue().values()) {
+				isModified |= removeItemFromMap(identityItem, entry.getKey());
 			}
 		}
+
+		return isModified;
 	}
 
 	/**
@@ -213,53 +408,106 @@ public class IdentityMap {
 	 * @return a {@code boolean} representing a successful removal of all {@code IdentityItem} in a provided namespace
 	 */
 	boolean clearItemsForNamespace(final String namespace) {
-		if (namespace == null) {
+		if (namespace == null || isReadOnly) {
 			return false;
 		}
 
-		boolean isRemoved = false;
-		final List<String> filteredNamespaces = new ArrayList<>();
+		final Set<String> namespaces = namespaceIndex.remove(Utils.foldCase(namespace));
 
-		for (final String eachNamespace : identityItems.keySet()) {
-			if (namespace.equalsIgnoreCase(eachNamespace)) {
-				isRemoved = true;
-				filteredNamespaces.add(eachNamespace);
-			}
+		if (namespaces == null) {
+			return false;
 		}
 
-		for (final String eachNamespace : filteredNamespaces) {
+		for (final String eachNamespace : namespaces) {
 			identityItems.remove(eachNamespace);
+			updateSequences.remove(eachNamespace);
 		}
 
-		return isRemoved;
+		return true;
 	}
 
 	/**
-	 * Use this method to cast the {@link IdentityMap} as {@code Map<String,Object>} to be passed as EventData for an SDK Event.
+	 * Evicts {@link IdentityItem}s until no namespace has more than {@code maxItemsPerNamespace} items and all the
+	 * namespaces together have no more than {@code maxItems} items.
+	 * <p>
+	 * Items which are {@link AuthenticatedState#LOGGED_OUT} or not primary are evicted first, and items with the same
+	 * state and primary flag are evicted in least recently updated order. Items in {@code protectedNamespaces}
+	 * are never evicted and are not counted against the limits.
 	 *
-	 * @param allowEmpty If true and if this {@code IdentityMap} contains no data, then returns a map with empty xdmFormatted Identity Map.
-	 *                   If false and if this {@code IdentityMap} contains no data, then returns an empty map
-	 * @return {@code Map} representation of xdm formatted IdentityMap
+	 * @param maxItemsPerNamespace the maximum number of items in each namespace, or zero or less for no limit
+	 * @param maxItems             the maximum number of items in all the namespaces, or zero or less for no limit
+	 * @param protectedNamespaces  the namespaces whose items are never evicted, compared ignoring case
+	 * @return the number of evicted items
 	 */
-	Map<String, Object> asXDMMap(final boolean allowEmpty) {
-		final Map<String, Object> xdmMap = new HashMap<>();
-		final Map<String, List<Map<String, Object>>> identityMap = new HashMap<>();
+	int evictItems(final int maxItemsPerNamespace, final int maxItems, final Collection<String> protectedNamespaces) {
+		if (isReadOnly || (maxItemsPerNamespace <= 0 && maxItems <= 0)) {
+			return 0;
+		}
+
+		final Set<String> protectedKeys = new HashSet<>();
 
-		for (String namespace : identityItems.keySet()) {
-			final List<Map<String, Object>> namespaceIds = new ArrayList<>();
+		for (final String namespace : protectedNamespaces) {
+			protectedKeys.add(Utils.foldCase(namespace));
+		}
+
+		final List<String> namespaces = new ArrayList<>();
 
-			for (IdentityItem identityItem : identityItems.get(namespace)) {
-				namespaceIds.add(identityItem.toObjectMap());
+		for (final String namespace : identityItems.keySet()) {
+			if (!protectedKeys.contains(Utils.foldCase(namespace))) {
+				namespaces.add(namespace);
 			}
+		}
 
-			identityMap.put(namespace, namespaceIds);
+		int evictedCount = 0;
+		int itemCount = 0;
+
+		for (final String namespace : namespaces) {
+			final int namespaceItemCount = identityItems.get(namespace).size();
+
+			if (maxItemsPerNamespace > 0 && namespaceItemCount > maxItemsPerNamespace) {
+				final List<EvictionCandidate> candidates = new ArrayList<>();
+				addEvictionCandidates(namespace, candidates);
+				evictedCount += evictCandidates(candidates, namespaceItemCount - maxItemsPerNamespace);
+				itemCount += maxItemsPerNamespace;
+			} else {
+				itemCount += namespaceItemCount;
+			}
 		}
 
-		if (!identityMap.isEmpty() || allowEmpty) {
-			xdmMap.put(IdentityConstants.XDMKeys.IDENTITY_MAP, identityMap);
+		if (maxItems > 0 && itemCount > maxItems) {
+			final List<EvictionCandidate> candidates = new ArrayList<>(itemCount);
+
+			for (final String namespace : namespaces) {
+				addEvictionCandidates(namespace, candidates);
+			}
+
+			evictedCount += evictCandidates(candidates, itemCount - maxItems);
 		}
 
-		return xdmMap;
+		return evictedCount;
+	}
+
+	/**
+	 * Use this method to cast the {@link IdentityMap} as {@code Map<String,Object>} to be passed as EventData for an SDK Event.
+	 *
+	 * @param allowEmpty If true and if this {@code IdentityMap} contains no data, then returns a map with empty xdmFormatted Identity Map.
+	 *                   If false and if this {@code IdentityMap} contains no data, then returns an empty map
+	 * @return {@code Map} representation of xdm formatted IdentityMap
+	 */
+	Map<String, Object> asXDMMap(final boolean allowEmpty) {
+		return buildXDMMap(allowEmpty, false);
+	}
+
+	/**
+	 * Same as {@link #asXDMMap(boolean)}, but the returned map and all its nested maps and lists are unmodifiable,
+	 * so the result can be safely cached and shared.
+	 *
+	 * @param allowEmpty If true and if this {@code IdentityMap} contains no data, then returns a map with empty xdmFormatted Identity Map.
+	 *                   If false and if this {@code IdentityMap} contains no data, then returns an empty map
+	 * @return unmodifiable {@code Map} representation of xdm formatted IdentityMap
+	 */
+	Map<String, Object> asImmutableXDMMap(final boolean allowEmpty) {
+		return buildXDMMap(allowEmpty, true);
 	}
 
 	/**
@@ -312,7 +560,32 @@ public class IdentityMap {
 	// private methods
 	// ========================================================================================
 
-	private void addItemToMap(final IdentityItem newItem, final String namespace, final boolean isFirstItem) {
+	private Map<String, Object> buildXDMMap(final boolean allowEmpty, final boolean immutable) {
+		final Map<String, Object> xdmMap = new HashMap<>();
+		final Map<String, List<Map<String, Object>>> identityMap = new HashMap<>();
+
+		for (final Map.Entry<String, LinkedHashMap<IdentityItem, IdentityItem>> entry : identityItems.entrySet()) {
+			final List<Map<String, Object>> namespaceIds = new ArrayList<>(entry.getValue().size());
+
+			for (final IdentityItem identityItem : entry.getValue().values()) {
+				final Map<String, Object> itemMap = identityItem.toObjectMap();
+				namespaceIds.add(immutable ? Collections.unmodifiableMap(itemMap) : itemMap);
+			}
+
+			identityMap.put(entry.getKey(), immutable ? Collections.unmodifiableList(namespaceIds) : namespaceIds);
+		}
+
+		if (!identityMap.isEmpty() || allowEmpty) {
+			xdmMap.put(
+				IdentityConstants.XDMKeys.IDENTITY_MAP,
+				immutable ? Collections.unmodifiableMap(identityMap) : identityMap
+			);
+		}
+
+		return immutable ? Collections.unmodifiableMap(xdmMap) : xdmMap;
+	}
+
+	private boolean addItemToMap(final IdentityItem newItem, final String namespace, final boolean isFirstItem) {
 		if (StringUtils.isNullOrEmpty(newItem.getId())) {
 			Log.debug(
 				LOG_TAG,
@@ -320,43 +593,189 @@ public class IdentityMap {
 				"Unable to add IdentityItem to IdentityMap with null or empty identifier value: %s",
 				newItem
 			);
-			return;
+			return false;
 		}
 
-		// check if namespace exists
-		final List<IdentityItem> itemList;
+		LinkedHashMap<IdentityItem, IdentityItem> items = getWritableItems(namespace);
 
-		if (identityItems.containsKey(namespace)) {
-			itemList = identityItems.get(namespace);
-		} else {
-			itemList = new ArrayList<>();
+		if (items == null) {
+			items = new LinkedHashMap<>();
+			identityItems.put(namespace, items);
+			addToNamespaceIndex(namespace);
 		}
 
-		// Check if the item already exist in the current ItemList
-		int index = itemList.indexOf(newItem);
+		// Check if the item already exist in the current items
+		final IdentityItem existingItem = items.get(newItem);
 
-		if (index >= 0) {
-			itemList.set(index, newItem);
-		} else if (isFirstItem) {
-			itemList.add(0, newItem);
+		if (existingItem != null) {
+			if (isSameItem(existingItem, newItem)) {
+				return false;
+			}
+
+			// replacing the value of an existing key keeps its position
+			items.put(existingItem, newItem);
+		} else if (isFirstItem && !items.isEmpty()) {
+			final LinkedHashMap<IdentityItem, IdentityItem> reorderedItems = new LinkedHashMap<>();
+			reorderedItems.put(newItem, newItem);
+			reorderedItems.putAll(items);
+			identityItems.put(namespace, reorderedItems);
 		} else {
-			itemList.add(newItem);
+			items.put(newItem, newItem);
 		}
 
-		identityItems.put(namespace, itemList);
+		// only inserted or changed items count as updated, re-adding an unchanged item does not protect it from eviction
+		markUpdated(newItem, namespace);
+		return true;
 	}
 
-	private void removeItemFromMap(final IdentityItem item, final String namespace) {
+	private boolean removeItemFromMap(final IdentityItem item, final String namespace) {
 		// check if namespace exists
-		if (!identityItems.containsKey(namespace)) {
-			return;
+		final LinkedHashMap<IdentityItem, IdentityItem> items = getWritableItems(namespace);
+
+		if (items == null) {
+			return false;
 		}
 
-		final List<IdentityItem> itemList = identityItems.get(namespace);
-		itemList.remove(item);
+		final boolean isRemoved = items.remove(item) != null;
+		final Map<IdentityItem, Long> sequences = updateSequences.get(namespace);
 
-		if (itemList.isEmpty()) {
+		if (sequences != null) {
+			sequences.remove(item);
+		}
+
+		if (items.isEmpty()) {
 			identityItems.remove(namespace);
+			updateSequences.remove(namespace);
+			removeFromNamespaceIndex(namespace);
+		}
+
+		return isRemoved;
+	}
+
+	/**
+	 * Gets the items of the given namespace to modify them, copying them first if they are shared with a read-only
+	 * snapshot created by {@link #toReadOnlySnapshot()}.
+	 *
+	 * @return the items of {@code namespace}, or null if the namespace has no items
+	 */
+	private LinkedHashMap<IdentityItem, IdentityItem> getWritableItems(final String namespace) {
+		LinkedHashMap<IdentityItem, IdentityItem> items = identityItems.get(namespace);
+
+		if (items != null && sharedItems.remove(items)) {
+			items = new LinkedHashMap<>(items);
+			identityItems.put(namespace, items);
+		}
+
+		return items;
+	}
+
+	private void markUpdated(final IdentityItem item, final String namespace) {
+		Map<IdentityItem, Long> sequences = updateSequences.get(namespace);
+
+		if (sequences == null) {
+			sequences = new HashMap<>();
+			updateSequences.put(namespace, sequences);
+		}
+
+		sequences.put(item, ++updateSequence);
+	}
+
+	private void addEvictionCandidates(final String namespace, final List<EvictionCandidate> candidates) {
+		final LinkedHashMap<IdentityItem, IdentityItem> items = identityItems.get(namespace);
+
+		if (items == null) {
+			return;
+		}
+
+		final Map<IdentityItem, Long> sequences = updateSequences.get(namespace);
+
+		for (final IdentityItem item : items.values()) {
+			final Long sequence = sequences != null ? sequences.get(item) : null;
+			candidates.add(new EvictionCandidate(namespace, item, sequence != null ? sequence : 0L));
+		}
+	}
+
+	private int evictCandidates(final List<EvictionCandidate> candidates, final int count) {
+		Collections.sort(candidates);
+		int evictedCount = 0;
+
+		for (int i = 0; i < count && i < candidates.size(); i++) {
+			final EvictionCandidate candidate = candidates.get(i);
+
+			if (removeItemFromMap(candidate.item, candidate.namespace)) {
+				Log.trace(
+					LOG_TAG,
+					LOG_SOURCE,
+					"Evicted IdentityItem from namespace %s as the identity limit was reached: %s",
+					candidate.namespace,
+					candidate.item
+				);
+				evictedCount++;
+			}
+		}
+
+		return evictedCount;
+	}
+
+	private void addToNamespaceIndex(final String namespace) {
+		final String key = Utils.foldCase(namespace);
+		Set<String> namespaces = namespaceIndex.get(key);
+
+		if (namespaces == null) {
+			namespaces = new HashSet<>(2);
+			namespaceIndex.put(key, namespaces);
+		}
+
+		namespaces.add(namespace);
+	}
+
+	private void removeFromNamespaceIndex(final String namespace) {
+		final String key = Utils.foldCase(namespace);
+		final Set<String> namespaces = namespaceIndex.get(key);
+
+		if (namespaces != null && namespaces.remove(namespace) && namespaces.isEmpty()) {
+			namespaceIndex.remove(key);
+		}
+	}
+
+	/**
+	 * Checks if both items have the same id, with the same case, authenticated state and primary flag,
+	 * as {@link IdentityItem#equals(Object)} only compares ids ignoring case.
+	 */
+	private static boolean isSameItem(final IdentityItem item, final IdentityItem other) {
+		return (
+			item.getId().equals(other.getId()) &&
+			item.getAuthenticatedState() == other.getAuthenticatedState() &&
+			item.isPrimary() == other.isPrimary()
+		);
+	}
+
+	/**
+	 * An {@link IdentityItem} which may be evicted, ordered so the item to evict first comes first.
+	 */
+	private static final class EvictionCandidate implements Comparable<EvictionCandidate> {
+
+		private final String namespace;
+		private final IdentityItem item;
+		private final int rank;
+		private final long sequence;
+
+		EvictionCandidate(final String namespace, final IdentityItem item, final long sequence) {
+			this.namespace = namespace;
+			this.item = item;
+			this.sequence = sequence;
+			// LOGGED_OUT and non-primary items are evicted before the others
+			this.rank =
+				(item.getAuthenticatedState() == AuthenticatedState.LOGGED_OUT ? 0 : 1) + (item.isPrimary() ? 1 : 0);
+		}
+
+		@Override
+		public int compareTo(final EvictionCandidate other) {
+			if (rank != other.rank) {
+				return rank < other.rank ? -1 : 1;
+			}
+
+			return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
 		}
 	}
 }
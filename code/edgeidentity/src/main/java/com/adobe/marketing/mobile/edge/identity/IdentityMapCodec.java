@@ -0,0 +1,252 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static com.adobe.marketing.mobile.edge.identity.IdentityConstants.LOG_TAG;
+
+import android.util.Base64;
+import com.adobe.marketing.mobile.services.Log;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compact binary codec used to persist an {@link IdentityMap}.
+ * <p>
+ * The encoded form is a header ({@link #MAGIC}, {@link #VERSION}), followed by the namespace string table and,
+ * for each namespace in table order, the item count and the items. Each item is written as its id followed by a
+ * flags byte holding the {@link AuthenticatedState} code in the lower two bits and the primary flag in {@link #PRIMARY_FLAG}.
+ * The state codes are fixed by this format and do not depend on the declaration order of {@code AuthenticatedState}.
+ * Counts and string lengths are unsigned varints and strings are UTF-8.
+ * As the data store only holds strings, the bytes are Base64 encoded. The encoded string never starts with
+ * {@code '{'}, so it can be distinguished from the JSON representation.
+ */
+final class IdentityMapCodec {
+
+	private static final String LOG_SOURCE = "IdentityMapCodec";
+
+	private static final int MAGIC = 0xED;
+	private static final int VERSION = 1;
+	private static final int AUTHENTICATED_STATE_MASK = 0x03;
+	private static final int PRIMARY_FLAG = 0x04;
+	private static final int AMBIGUOUS_CODE = 0;
+	private static final int AUTHENTICATED_CODE = 1;
+	private static final int LOGGED_OUT_CODE = 2;
+
+	private IdentityMapCodec() {}
+
+	/**
+	 * Encodes the given {@link IdentityMap} in the compact format.
+	 *
+	 * @param identityMap the {@code IdentityMap} to encode; should not be null
+	 * @return the Base64 encoded compact representation of {@code identityMap}
+	 */
+	static String encode(final IdentityMap identityMap) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+		out.write(MAGIC);
+		out.write(VERSION);
+
+		final List<String> namespaces = identityMap.getNamespaces();
+		writeVarint(out, namespaces.size());
+
+		for (final String namespace : namespaces) {
+			writeString(out, namespace);
+		}
+
+		for (final String namespace : namespaces) {
+			final Collection<IdentityItem> items = identityMap.itemsFor(namespace);
+			writeVarint(out, items.size());
+
+			for (final IdentityItem item : items) {
+				writeString(out, item.getId());
+				out.write(toCode(item.getAuthenticatedState()) | (item.isPrimary() ? PRIMARY_FLAG : 0));
+			}
+		}
+
+		return Base64.encodeToString(out.toByteArray(), Base64.NO_WRAP);
+	}
+
+	/**
+	 * Decodes an {@link IdentityMap} previously encoded with {@link #encode(IdentityMap)}.
+	 *
+	 * @param encoded the Base64 encoded compact representation
+	 * @return the decoded {@code IdentityMap}, or null if {@code encoded} is not a valid compact representation,
+	 *         including when data follows the last item
+	 */
+	static IdentityMap decode(final String encoded) {
+		if (!isCompactFormat(encoded)) {
+			return null;
+		}
+
+		try {
+			final Reader reader = new Reader(Base64.decode(encoded, Base64.NO_WRAP));
+
+			if (reader.readByte() != MAGIC) {
+				throw new IllegalArgumentException("invalid header");
+			}
+
+			final int version = reader.readByte();
+
+			if (version != VERSION) {
+				throw new IllegalArgumentException("unsupported version " + version);
+			}
+
+			final String[] namespaces = new String[reader.readCount()];
+
+			for (int i = 0; i < namespaces.length; i++) {
+				namespaces[i] = reader.readString();
+			}
+
+			final IdentityMap identityMap = new IdentityMap();
+
+			for (final String namespace : namespaces) {
+				final int itemCount = reader.readCount();
+
+				for (int i = 0; i < itemCount; i++) {
+					final String id = reader.readString();
+					final int flags = reader.readByte();
+					final AuthenticatedState state = fromCode(flags & AUTHENTICATED_STATE_MASK);
+					identityMap.addItem(new IdentityItem(id, state, (flags & PRIMARY_FLAG) != 0), namespace);
+				}
+			}
+
+			if (reader.hasRemaining()) {
+				throw new IllegalArgumentException("unexpected trailing data");
+			}
+
+			return identityMap;
+		} catch (final IllegalArgumentException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Failed to decode compact identity map, %s", e.getLocalizedMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Checks whether the given persisted string may be in the compact format, as opposed to JSON.
+	 *
+	 * @param persisted the persisted string
+	 * @return true if {@code persisted} is not empty and is not a JSON object
+	 */
+	static boolean isCompactFormat(final String persisted) {
+		return persisted != null && !persisted.isEmpty() && persisted.charAt(0) != '{';
+	}
+
+	private static int toCode(final AuthenticatedState state) {
+		if (state == AuthenticatedState.AUTHENTICATED) {
+			return AUTHENTICATED_CODE;
+		}
+
+		if (state == AuthenticatedState.LOGGED_OUT) {
+			return LOGGED_OUT_CODE;
+		}
+
+		return AMBIGUOUS_CODE;
+	}
+
+	private static AuthenticatedState fromCode(final int code) {
+		switch (code) {
+			case AUTHENTICATED_CODE:
+				return AuthenticatedState.AUTHENTICATED;
+			case LOGGED_OUT_CODE:
+				return AuthenticatedState.LOGGED_OUT;
+			default:
+				return AuthenticatedState.AMBIGUOUS;
+		}
+	}
+
+	private static void writeVarint(final ByteArrayOutputStream out, final int value) {
+		int remaining = value;
+
+		while ((remaining & ~0x7F) != 0) {
+			out.write((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+
+		out.write(remaining);
+	}
+
+	private static void writeString(final ByteArrayOutputStream out, final String value) {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarint(out, bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Sequential reader over the decoded bytes which fails with an {@link IllegalArgumentException} on truncated input.
+	 */
+	private static final class Reader {
+
+		private final byte[] bytes;
+		private int position;
+
+		Reader(final byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		int readByte() {
+			if (position >= bytes.length) {
+				throw new IllegalArgumentException("unexpected end of data");
+			}
+
+			return bytes[position++] & 0xFF;
+		}
+
+		int readVarint() {
+			int value = 0;
+
+			for (int shift = 0; shift < 32; shift += 7) {
+				final int b = readByte();
+				value |= (b & 0x7F) << shift;
+
+				if ((b & 0x80) == 0) {
+					if (value < 0) {
+						throw new IllegalArgumentException("invalid length");
+					}
+
+					return value;
+				}
+			}
+
+			throw new IllegalArgumentException("invalid varint");
+		}
+
+		/**
+		 * Reads a count of entries, each of which takes at least one byte.
+		 */
+		int readCount() {
+			final int count = readVarint();
+
+			if (count > bytes.length - position) {
+				throw new IllegalArgumentException("unexpected end of data");
+			}
+
+			return count;
+		}
+
+		boolean hasRemaining() {
+			return position < bytes.length;
+		}
+
+		String readString() {
+			final int length = readVarint();
+
+			if (length > bytes.length - position) {
+				throw new IllegalArgumentException("unexpected end of data");
+			}
+
+			final String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+			position += length;
+			return value;
+		}
+	}
+}
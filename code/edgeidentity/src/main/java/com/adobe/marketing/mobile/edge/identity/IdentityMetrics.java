@@ -0,0 +1,326 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static com.adobe.marketing.mobile.edge.identity.IdentityConstants.LOG_TAG;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records the timing measurements of the extension, reporting them to the {@link IdentityInstrumentation}
+ * registered with {@link Identity#setInstrumentation} and to the built-in aggregator when enabled through
+ * the {@link IdentityConstants.SharedState.Configuration#METRICS_ENABLED} setting.
+ * <p>
+ * Nothing is measured when neither is set: {@link #startTimer()} then returns {@link #NOT_TIMED}
+ * and the record methods return immediately. Bootup steps are the exception, they complete before the configuration
+ * enabling the aggregator is received, so they are always timed and replayed when the aggregator is enabled.
+ */
+final class IdentityMetrics {
+
+	private static final String LOG_SOURCE = "IdentityMetrics";
+
+	static final String UPDATE_IDENTITIES = "updateIdentities";
+	static final String REMOVE_IDENTITIES = "removeIdentities";
+	static final String APPLY_IDENTITY_CHANGES = "applyIdentityChanges";
+	static final String RESET_IDENTITIES = "resetIdentities";
+	static final String GET_IDENTITIES = "getIdentities";
+	static final String GET_URL_VARIABLES = "getUrlVariables";
+	static final String PERSISTENCE_READ = "persistenceRead";
+	static final String PERSISTENCE_WRITE = "persistenceWrite";
+	static final String EVICT_IDENTITIES = "evictIdentities";
+	static final String BOOT_STATE_PREFIX = "boot.";
+
+	static final long NOT_TIMED = Long.MIN_VALUE;
+
+	private static volatile IdentityInstrumentation instrumentation;
+	private static volatile Aggregator aggregator;
+	// durations of the completed bootup steps, guarded by the class lock
+	private static final Map<String, Long> bootStateDurations = new LinkedHashMap<>();
+
+	// the reporters do not capture any state, so reporting a measurement does not allocate
+	private static final Reporter EVENT_HANDLED = (target, name, durationNanos, size) ->
+		target.onEventHandled(name, durationNanos, size);
+	private static final Reporter PERSISTENCE_READ_DONE = (target, name, durationNanos, size) ->
+		target.onPersistenceRead(durationNanos, size);
+	private static final Reporter PERSISTENCE_WRITE_DONE = (target, name, durationNanos, size) ->
+		target.onPersistenceWrite(durationNanos, size);
+	private static final Reporter BOOT_STATE_COMPLETED = (target, name, durationNanos, size) ->
+		target.onBootStateCompleted(name, durationNanos);
+	private static final Reporter IDENTITIES_EVICTED = (target, name, durationNanos, size) ->
+		target.onIdentitiesEvicted(durationNanos, size);
+
+	private IdentityMetrics() {}
+
+	/**
+	 * @return the current {@link System#nanoTime()} if measurements are reported, {@link #NOT_TIMED} otherwise
+	 */
+	static long startTimer() {
+		return (instrumentation != null || aggregator != null) ? System.nanoTime() : NOT_TIMED;
+	}
+
+	/**
+	 * Bootup steps are timed even if nothing is enabled yet, as the aggregator can only be enabled after bootup.
+	 *
+	 * @return the current {@link System#nanoTime()}
+	 */
+	static long startBootTimer() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records the handling of an event started at {@code startNanos}.
+	 *
+	 * @param name          the name of the handled operation
+	 * @param startNanos    the value returned by {@link #startTimer()} before handling the event
+	 * @param identityCount the number of identities held after handling the event
+	 */
+	static void recordEventHandled(final String name, final long startNanos, final int identityCount) {
+		record(startNanos, name, identityCount, EVENT_HANDLED);
+	}
+
+	/**
+	 * Records a read from persistence started at {@code startNanos}.
+	 *
+	 * @param startNanos the value returned by {@link #startTimer()} before reading
+	 * @param data       the persisted data which was read, may be null
+	 */
+	static void recordPersistenceRead(final long startNanos, final String data) {
+		if (startNanos != NOT_TIMED) {
+			record(startNanos, PERSISTENCE_READ, Utils.utf8Length(data), PERSISTENCE_READ_DONE);
+		}
+	}
+
+	/**
+	 * Records a write to persistence started at {@code startNanos}.
+	 *
+	 * @param startNanos the value returned by {@link #startTimer()} before serializing the written data
+	 * @param data       the data which was written, may be null
+	 */
+	static void recordPersistenceWrite(final long startNanos, final String data) {
+		if (startNanos != NOT_TIMED) {
+			record(startNanos, PERSISTENCE_WRITE, Utils.utf8Length(data), PERSISTENCE_WRITE_DONE);
+		}
+	}
+
+	/**
+	 * Records the time spent in a bootup step started at {@code startNanos}.
+	 *
+	 * @param state      the name of the {@link IdentityState.BootState} which was left
+	 * @param startNanos the value returned by {@link #startBootTimer()} when entering the bootup step
+	 */
+	static void recordBootState(final String state, final long startNanos) {
+		final long durationNanos = System.nanoTime() - startNanos;
+
+		// reported under the lock so that enabling the aggregator concurrently does not miss or replay it twice
+		synchronized (IdentityMetrics.class) {
+			bootStateDurations.put(state, durationNanos);
+			report(state, durationNanos, 0, BOOT_STATE_COMPLETED);
+		}
+	}
+
+	/**
+	 * Records an eviction of identities started at {@code startNanos}, which evicted at least one identity.
+	 *
+	 * @param startNanos   the value returned by {@link #startTimer()} before evicting
+	 * @param evictedCount the number of evicted identities
+	 */
+	static void recordIdentitiesEvicted(final long startNanos, final int evictedCount) {
+		record(startNanos, EVICT_IDENTITIES, evictedCount, IDENTITIES_EVICTED);
+	}
+
+	/**
+	 * Sets the {@link IdentityInstrumentation} the measurements are reported to.
+	 *
+	 * @param newInstrumentation the {@code IdentityInstrumentation} to report to, or null to stop reporting
+	 */
+	static void setInstrumentation(final IdentityInstrumentation newInstrumentation) {
+		instrumentation = newInstrumentation;
+	}
+
+	/**
+	 * Enables or disables the built-in aggregator. Disabling the aggregator discards the aggregated metrics.
+	 * Enabling it replays the bootup steps completed so far.
+	 *
+	 * @param enabled true to aggregate the measurements
+	 */
+	static synchronized void setAggregationEnabled(final boolean enabled) {
+		if (!enabled) {
+			aggregator = null;
+		} else if (aggregator == null) {
+			final Aggregator newAggregator = new Aggregator();
+
+			for (final Map.Entry<String, Long> entry : bootStateDurations.entrySet()) {
+				newAggregator.onBootStateCompleted(entry.getKey(), entry.getValue());
+			}
+
+			aggregator = newAggregator;
+		}
+	}
+
+	/**
+	 * Forgets the durations of the completed bootup steps.
+	 */
+	@VisibleForTesting
+	static synchronized void clearBootStateDurations() {
+		bootStateDurations.clear();
+	}
+
+	/**
+	 * Gets the metrics aggregated since the aggregator was enabled, keyed by operation name. Each metric contains
+	 * the count, the min, max, mean, p50, p90 and p99 durations in nanoseconds, and the max and total sizes, which are
+	 * identity counts for handled events, bytes for persistence operations and evicted identity counts for evictions.
+	 *
+	 * @return the aggregated metrics, or an empty map if the aggregator is disabled
+	 */
+	@NonNull static Map<String, Object> getAggregatedMetrics() {
+		final Aggregator currentAggregator = aggregator;
+		return currentAggregator != null ? currentAggregator.toEventData() : new HashMap<>();
+	}
+
+	/**
+	 * Records a measurement started at {@code startNanos}, unless it was {@link #NOT_TIMED}.
+	 *
+	 * @param startNanos the value returned by {@link #startTimer()} when the measured operation started
+	 * @param name       the name of the measured operation
+	 * @param size       the size of the measured operation, as defined by the {@code reporter}
+	 * @param reporter   the {@link Reporter} calling the matching {@link IdentityInstrumentation} method
+	 */
+	private static void record(final long startNanos, final String name, final int size, final Reporter reporter) {
+		if (startNanos == NOT_TIMED) {
+			return;
+		}
+
+		report(name, System.nanoTime() - startNanos, size, reporter);
+	}
+
+	/**
+	 * Reports a measurement to the aggregator and the instrumentation, if set. Failures of the instrumentation
+	 * are logged and do not prevent the aggregation.
+	 */
+	private static void report(final String name, final long durationNanos, final int size, final Reporter reporter) {
+		final Aggregator currentAggregator = aggregator;
+
+		if (currentAggregator != null) {
+			reporter.report(currentAggregator, name, durationNanos, size);
+		}
+
+		final IdentityInstrumentation currentInstrumentation = instrumentation;
+
+		if (currentInstrumentation != null) {
+			try {
+				reporter.report(currentInstrumentation, name, durationNanos, size);
+			} catch (final Exception e) {
+				logInstrumentationError(e);
+			}
+		}
+	}
+
+	private static void logInstrumentationError(final Exception e) {
+		Log.debug(LOG_TAG, LOG_SOURCE, "IdentityInstrumentation failed to handle a measurement, %s", e.getLocalizedMessage());
+	}
+
+	/**
+	 * Calls the {@link IdentityInstrumentation} method matching a kind of measurement.
+	 */
+	private interface Reporter {
+		void report(IdentityInstrumentation target, String name, long durationNanos, int size);
+	}
+
+	/**
+	 * Built-in {@link IdentityInstrumentation} aggregating the measurements of each operation.
+	 */
+	static final class Aggregator implements IdentityInstrumentation {
+
+		private final Map<String, Metric> metrics = new HashMap<>();
+
+		@Override
+		public synchronized void onEventHandled(@NonNull final String name, final long durationNanos, final int identityCount) {
+			getMetric(name).record(durationNanos, identityCount);
+		}
+
+		@Override
+		public synchronized void onPersistenceRead(final long durationNanos, final int bytes) {
+			getMetric(PERSISTENCE_READ).record(durationNanos, bytes);
+		}
+
+		@Override
+		public synchronized void onPersistenceWrite(final long durationNanos, final int bytes) {
+			getMetric(PERSISTENCE_WRITE).record(durationNanos, bytes);
+		}
+
+		@Override
+		public synchronized void onBootStateCompleted(@NonNull final String state, final long durationNanos) {
+			getMetric(BOOT_STATE_PREFIX + state).record(durationNanos, 0);
+		}
+
+		@Override
+		public synchronized void onIdentitiesEvicted(final long durationNanos, final int evictedCount) {
+			getMetric(EVICT_IDENTITIES).record(durationNanos, evictedCount);
+		}
+
+		synchronized Map<String, Object> toEventData() {
+			final Map<String, Object> data = new HashMap<>();
+
+			for (final Map.Entry<String, Metric> entry : metrics.entrySet()) {
+				data.put(entry.getKey(), entry.getValue().toEventData());
+			}
+
+			return data;
+		}
+
+		private Metric getMetric(final String name) {
+			Metric metric = metrics.get(name);
+
+			if (metric == null) {
+				metric = new Metric();
+				metrics.put(name, metric);
+			}
+
+			return metric;
+		}
+	}
+
+	/**
+	 * Durations and sizes recorded for a single operation.
+	 */
+	private static final class Metric {
+
+		private final MetricsHistogram durations = new MetricsHistogram();
+		private long maxSize;
+		private long totalSize;
+
+		void record(final long durationNanos, final int size) {
+			durations.record(durationNanos);
+			maxSize = Math.max(maxSize, size);
+			totalSize += size;
+		}
+
+		Map<String, Object> toEventData() {
+			final Map<String, Object> data = new HashMap<>();
+			data.put(IdentityConstants.EventDataKeys.Metrics.COUNT, durations.getCount());
+			data.put(IdentityConstants.EventDataKeys.Metrics.MIN_NANOS, durations.getMin());
+			data.put(IdentityConstants.EventDataKeys.Metrics.MAX_NANOS, durations.getMax());
+			data.put(IdentityConstants.EventDataKeys.Metrics.MEAN_NANOS, durations.getMean());
+			data.put(IdentityConstants.EventDataKeys.Metrics.P50_NANOS, durations.getPercentile(50));
+			data.put(IdentityConstants.EventDataKeys.Metrics.P90_NANOS, durations.getPercentile(90));
+			data.put(IdentityConstants.EventDataKeys.Metrics.P99_NANOS, durations.getPercentile(99));
+			data.put(IdentityConstants.EventDataKeys.Metrics.MAX_SIZE, maxSize);
+			data.put(IdentityConstants.EventDataKeys.Metrics.TOTAL_SIZE, totalSize);
+			return data;
+		}
+	}
+}
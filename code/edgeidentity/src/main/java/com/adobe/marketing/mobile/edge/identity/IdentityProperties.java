@@ -33,6 +33,13 @@ class IdentityProperties {
 
 	private final IdentityMap identityMap;
 
+	// cached results of toXDMData, cleared whenever the identityMap is modified
+	private Map<String, Object> xdmData;
+	private Map<String, Object> xdmDataAllowEmpty;
+	// cached ECIDs read from the identityMap, cleared whenever the ECID namespace is modified
+	private ECID ecid;
+	private ECID ecidSecondary;
+
 	IdentityProperties() {
 		this.identityMap = new IdentityMap();
 	}
@@ -47,23 +54,22 @@ class IdentityProperties {
 		this.identityMap = map == null ? new IdentityMap() : map; // always keep an empty identity map so there is no need for null check
 	}
 
+	/**
+	 * Constructor
+	 *
+	 * @param identityMap the {@link IdentityMap} backing this {@code IdentityProperties} instance; should not be null
+	 */
+	private IdentityProperties(final IdentityMap identityMap) {
+		this.identityMap = identityMap;
+	}
+
 	/**
 	 * Retrieves the current advertising identifier
 	 *
 	 * @return current advertising identifier
 	 */
 	String getAdId() {
-		final List<IdentityItem> adIdItems = identityMap.getIdentityItemsForNamespace(
-			IdentityConstants.Namespaces.GAID
-		);
-		// Check that:
-		// 1. The returned list itself is valid
-		// 2. The list is not empty
-		// 3. The first item in the list exists (there should only be one match)
-		if (Utils.isNullOrEmpty(adIdItems) || adIdItems.get(0) == null) {
-			return null;
-		}
-		return adIdItems.get(0).getId();
+		return identityMap.firstIdFor(IdentityConstants.Namespaces.GAID);
 	}
 
 	/**
@@ -72,6 +78,7 @@ class IdentityProperties {
 	 * @param newAdId the new advertising identifier to set
 	 */
 	void setAdId(final String newAdId) {
+		invalidateXDMData();
 		// Delete the existing ad ID from the identity map if it exists
 		final String currentAdId = getAdId();
 
@@ -96,6 +103,7 @@ class IdentityProperties {
 	 * @param newEcid the new {@code ECID}
 	 */
 	void setECID(final ECID newEcid) {
+		invalidateXDMData();
 		// delete the previous ECID from the identity map if exist
 		final ECID currentECID = getECID();
 
@@ -104,6 +112,8 @@ class IdentityProperties {
 			identityMap.removeItem(previousECIDItem, IdentityConstants.Namespaces.ECID);
 		}
 
+		invalidateECIDs();
+
 		// if primary ECID is null, clear off all the existing ECID's
 		if (newEcid == null) {
 			setECIDSecondary(null);
@@ -113,6 +123,8 @@ class IdentityProperties {
 			final IdentityItem newECIDItem = new IdentityItem(newEcid.toString(), AuthenticatedState.AMBIGUOUS, false);
 			identityMap.addItem(newECIDItem, IdentityConstants.Namespaces.ECID, true);
 		}
+
+		invalidateECIDs();
 	}
 
 	/**
@@ -121,20 +133,15 @@ class IdentityProperties {
 	 * @return current {@code ECID}
 	 */
 	ECID getECID() {
-		final List<IdentityItem> ecidItems = identityMap.getIdentityItemsForNamespace(
-			IdentityConstants.Namespaces.ECID
-		);
-
-		if (
-			ecidItems != null &&
-			!ecidItems.isEmpty() &&
-			ecidItems.get(0) != null &&
-			!StringUtils.isNullOrEmpty(ecidItems.get(0).getId())
-		) {
-			return new ECID(ecidItems.get(0).getId());
+		if (ecid == null) {
+			final String ecidString = identityMap.firstIdFor(IdentityConstants.Namespaces.ECID);
+
+			if (!StringUtils.isNullOrEmpty(ecidString)) {
+				ecid = new ECID(ecidString);
+			}
 		}
 
-		return null;
+		return ecid;
 	}
 
 	/**
@@ -143,14 +150,17 @@ class IdentityProperties {
 	 * @param newSecondaryEcid a new secondary {@code ECID}
 	 */
 	void setECIDSecondary(final ECID newSecondaryEcid) {
+		invalidateXDMData();
 		// delete the previous secondary ECID from the identity map if exist
-		final ECID ecidSecondary = getECIDSecondary();
+		final ECID currentSecondaryECID = getECIDSecondary();
 
-		if (ecidSecondary != null) {
-			final IdentityItem previousECIDItem = new IdentityItem(ecidSecondary.toString());
+		if (currentSecondaryECID != null) {
+			final IdentityItem previousECIDItem = new IdentityItem(currentSecondaryECID.toString());
 			identityMap.removeItem(previousECIDItem, IdentityConstants.Namespaces.ECID);
 		}
 
+		invalidateECIDs();
+
 		// do not set secondary ECID if primary ECID is not set
 		if (getECID() == null) {
 			Log.debug(LOG_TAG, LOG_SOURCE, "Cannot set secondary ECID value as no primary ECID exists.");
@@ -165,6 +175,7 @@ class IdentityProperties {
 				false
 			);
 			identityMap.addItem(newSecondaryECIDItem, IdentityConstants.Namespaces.ECID);
+			invalidateECIDs();
 		}
 	}
 
@@ -174,20 +185,15 @@ class IdentityProperties {
 	 * @return secondary {@code ECID}
 	 */
 	ECID getECIDSecondary() {
-		final List<IdentityItem> ecidItems = identityMap.getIdentityItemsForNamespace(
-			IdentityConstants.Namespaces.ECID
-		);
-
-		if (
-			ecidItems != null &&
-			ecidItems.size() > 1 &&
-			ecidItems.get(1) != null &&
-			!StringUtils.isNullOrEmpty(ecidItems.get(1).getId())
-		) {
-			return new ECID(ecidItems.get(1).getId());
+		if (ecidSecondary == null) {
+			final String ecidString = identityMap.idAt(IdentityConstants.Namespaces.ECID, 1);
+
+			if (!StringUtils.isNullOrEmpty(ecidString)) {
+				ecidSecondary = new ECID(ecidString);
+			}
 		}
 
-		return null;
+		return ecidSecondary;
 	}
 
 	/**
@@ -202,10 +208,17 @@ class IdentityProperties {
 	 * - GAID
 	 *
 	 * @param map the {@code IdentityMap} containing customer identifiers to add or update with the current customer identifiers
+	 * @return true if the current identifiers were modified
 	 */
-	void updateCustomerIdentifiers(final IdentityMap map) {
+	boolean updateCustomerIdentifiers(final IdentityMap map) {
 		removeIdentitiesWithReservedNamespaces(map);
-		identityMap.merge(map);
+
+		if (!identityMap.merge(map)) {
+			return false;
+		}
+
+		invalidateXDMData();
+		return true;
 	}
 
 	/**
@@ -217,10 +230,118 @@ class IdentityProperties {
 	 * - GAID
 	 *
 	 * @param map the {@code IdentityMap} with items to remove from current identifiers
+	 * @return true if the current identifiers were modified
 	 */
-	void removeCustomerIdentifiers(final IdentityMap map) {
+	boolean removeCustomerIdentifiers(final IdentityMap map) {
 		removeIdentitiesWithReservedNamespaces(map);
-		identityMap.remove(map);
+
+		if (!identityMap.remove(map)) {
+			return false;
+		}
+
+		invalidateXDMData();
+		return true;
+	}
+
+	/**
+	 * Removes and then updates customer identifiers as a single change. The identifiers in {@code removedMap} are
+	 * removed first, so an identifier present in both maps is kept with the values from {@code addedMap}.
+	 * Identifiers in reserved namespaces are ignored, as in {@link #updateCustomerIdentifiers(IdentityMap)}.
+	 *
+	 * @param addedMap   the {@code IdentityMap} containing customer identifiers to add or update; may be null
+	 * @param removedMap the {@code IdentityMap} with customer identifiers to remove; may be null
+	 * @return true if the current identifiers were modified
+	 */
+	boolean applyCustomerIdentifierChanges(final IdentityMap addedMap, final IdentityMap removedMap) {
+		boolean isModified = false;
+
+		if (removedMap != null) {
+			removeIdentitiesWithReservedNamespaces(removedMap);
+			isModified |= identityMap.remove(removedMap);
+		}
+
+		if (addedMap != null) {
+			removeIdentitiesWithReservedNamespaces(addedMap);
+			isModified |= identityMap.merge(addedMap);
+		}
+
+		if (isModified) {
+			invalidateXDMData();
+		}
+
+		return isModified;
+	}
+
+	/**
+	 * Evicts customer identifiers until the given limits are met, see {@link IdentityMap#evictItems}.
+	 * Identifiers in reserved namespaces are never evicted and are not counted against the limits.
+	 *
+	 * @param maxIdentitiesPerNamespace the maximum number of identifiers in each namespace, or zero or less for no limit
+	 * @param maxIdentities             the maximum number of identifiers in all namespaces, or zero or less for no limit
+	 * @return the number of evicted identifiers
+	 */
+	int evictCustomerIdentifiers(final int maxIdentitiesPerNamespace, final int maxIdentities) {
+		final int evictedCount = identityMap.evictItems(maxIdentitiesPerNamespace, maxIdentities, reservedNamespaces);
+
+		if (evictedCount > 0) {
+			invalidateXDMData();
+		}
+
+		return evictedCount;
+	}
+
+	/**
+	 * Creates a copy of this {@code IdentityProperties} which is not affected by later changes to this instance.
+	 *
+	 * @return a copy of this {@link IdentityProperties}
+	 */
+	IdentityProperties copy() {
+		final IdentityProperties copy = new IdentityProperties(new IdentityMap(identityMap));
+		// the cached XDM data is immutable and can be shared
+		copy.xdmData = xdmData;
+		copy.xdmDataAllowEmpty = xdmDataAllowEmpty;
+		copy.ecid = ecid;
+		copy.ecidSecondary = ecidSecondary;
+		return copy;
+	}
+
+	/**
+	 * @return the number of identities, including the ECIDs and the advertising identifier
+	 */
+	int getIdentityCount() {
+		return identityMap.getItemCount();
+	}
+
+	/**
+	 * Creates a read-only snapshot of the {@link IdentityMap} of this {@code IdentityProperties}, which is not
+	 * affected by later changes to this instance.
+	 *
+	 * @return a read-only snapshot of the identities
+	 * @see IdentityMap#toReadOnlySnapshot()
+	 */
+	IdentityMap toReadOnlyIdentityMap() {
+		return identityMap.toReadOnlySnapshot();
+	}
+
+	/**
+	 * Encodes this {@code IdentityProperties} in the compact persistence format.
+	 *
+	 * @return the compact representation of this {@link IdentityProperties}
+	 * @see IdentityMapCodec
+	 */
+	String toCompactString() {
+		return IdentityMapCodec.encode(identityMap);
+	}
+
+	/**
+	 * Creates an {@code IdentityProperties} from its compact persistence format.
+	 *
+	 * @param compactString the compact representation created by {@link #toCompactString()}
+	 * @return the decoded {@link IdentityProperties}, or null if {@code compactString} is not valid
+	 */
+	static IdentityProperties fromCompactString(final String compactString) {
+		final IdentityMap map = IdentityMapCodec.decode(compactString);
+		return map != null ? new IdentityProperties(map) : null;
 	}
 
 	/**
@@ -236,13 +357,36 @@ class IdentityProperties {
 
 	/**
 	 * Converts this {@code IdentityProperties} into an event data representation in XDM format
+	 * The returned map is unmodifiable and is reused until this {@code IdentityProperties} is modified.
 	 *
 	 * @param allowEmpty If this {@link IdentityProperties} contains no data, return a dictionary with a single {@link IdentityMap} key,
 	 *                   otherwise an empty map is returned.
 	 * @return A {@link Map} representing this in XDM format
 	 */
 	Map<String, Object> toXDMData(final boolean allowEmpty) {
-		return identityMap.asXDMMap(allowEmpty);
+		if (allowEmpty) {
+			if (xdmDataAllowEmpty == null) {
+				xdmDataAllowEmpty = identityMap.asImmutableXDMMap(true);
+			}
+
+			return xdmDataAllowEmpty;
+		}
+
+		if (xdmData == null) {
+			xdmData = identityMap.asImmutableXDMMap(false);
+		}
+
+		return xdmData;
+	}
+
+	private void invalidateXDMData() {
+		xdmData = null;
+		xdmDataAllowEmpty = null;
+	}
+
+	private void invalidateECIDs() {
+		ecid = null;
+		ecidSecondary = null;
 	}
 
 	/**
@@ -0,0 +1,70 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.Event;
+import java.util.List;
+
+/**
+ * A request for identities, decoded from an Edge Identity request identity event
+ * by {@link EventUtils#decodeIdentityRequest(Event)}.
+ */
+final class IdentityRequest {
+
+	/**
+	 * The kinds of identity requests.
+	 */
+	enum Type {
+		/** Request for the current identities, as sent by {@code Identity.getIdentities}. */
+		GET_IDENTITIES,
+		/** Request for the URL variables, as sent by {@code Identity.getUrlVariables}. */
+		GET_URL_VARIABLES,
+		/** Debug request for the aggregated metrics. */
+		GET_METRICS,
+	}
+
+	private final Event event;
+	private final Type type;
+	private final List<String> urls;
+
+	/**
+	 * Creates a new {@link IdentityRequest}.
+	 *
+	 * @param event the decoded {@link Event}; should not be null
+	 * @param type  the {@link Type} of the request; should not be null
+	 * @param urls  the URLs to decorate with the URL variables, may be null
+	 */
+	IdentityRequest(@NonNull final Event event, @NonNull final Type type, final List<String> urls) {
+		this.event = event;
+		this.type = type;
+		this.urls = urls;
+	}
+
+	/**
+	 * @return the {@link Event} this request was decoded from
+	 */
+	@NonNull Event getEvent() {
+		return event;
+	}
+
+	@NonNull Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the URLs to decorate for a {@link Type#GET_URL_VARIABLES} request, or null if none were provided
+	 */
+	List<String> getUrls() {
+		return urls;
+	}
+}
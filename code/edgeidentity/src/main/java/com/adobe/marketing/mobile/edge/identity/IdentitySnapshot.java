@@ -0,0 +1,62 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A point-in-time view of the identities held by the Identity for Edge Network extension,
+ * as returned by {@link Identity#getIdentitiesSnapshot()}.
+ * <p>
+ * A new snapshot is published each time the identities change, so a snapshot never changes once created
+ * and can be freely shared between threads.
+ */
+public final class IdentitySnapshot {
+
+	// returned until the extension has booted and published its identities
+	static final IdentitySnapshot NOT_BOOTED = new IdentitySnapshot(new IdentityMap().asReadOnly(), false);
+
+	private final IdentityMap identityMap;
+	private final boolean isBooted;
+
+	/**
+	 * Creates a new {@link IdentitySnapshot}.
+	 *
+	 * @param identityMap the read-only {@link IdentityMap} of current identities; should not be null
+	 * @param isBooted    true if the extension has completed its bootup
+	 */
+	IdentitySnapshot(@NonNull final IdentityMap identityMap, final boolean isBooted) {
+		this.identityMap = identityMap;
+		this.isBooted = isBooted;
+	}
+
+	/**
+	 * Returns the identities held by the extension when this snapshot was published.
+	 * The returned {@link IdentityMap} is read-only, any attempt to add or remove items is ignored and logs a
+	 * warning. To modify the identities, add the items to a new {@code IdentityMap}.
+	 *
+	 * @return the read-only {@code IdentityMap} of this snapshot, empty if the extension has not booted yet
+	 */
+	@NonNull public IdentityMap getIdentityMap() {
+		return identityMap;
+	}
+
+	/**
+	 * Indicates whether the extension had completed its bootup when this snapshot was published.
+	 * Until then, the snapshot contains no identities.
+	 *
+	 * @return true if the Identity for Edge Network extension has booted
+	 */
+	public boolean isBooted() {
+		return isBooted;
+	}
+}
@@ -27,20 +27,58 @@ import com.adobe.marketing.mobile.util.DataReader;
 import com.adobe.marketing.mobile.util.MapUtils;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 
 /**
  * Manages the business logic of this Identity extension
  */
 class IdentityState {
 
+	/**
+	 * The bootup steps of the extension. Each step is only left once, so the checks done in a step are not repeated.
+	 */
+	enum BootState {
+		/** The persisted identities are being loaded. */
+		LOADED,
+		/** No ECID was persisted, waiting for the EventHub shared state listing the registered extensions. */
+		WAITING_HUB,
+		/** The direct Identity extension is registered without a persisted ECID, waiting for its shared state. */
+		WAITING_DIRECT,
+		/** The ECID is set and the first shared state was created. */
+		BOOTED,
+	}
+
 	private static final String LOG_SOURCE = "IdentityState";
+	private static final String BACKGROUND_THREAD_NAME = "EdgeIdentityBackground";
 
 	private final IdentityStorageManager identityStorageManager;
+	private final Executor backgroundExecutor;
+	private FutureTask<IdentityProperties> preloadTask;
+	private FutureTask<ECID> nextECIDTask;
+	private boolean isShutdown;
+	private boolean isECIDPreMintEnabled = IdentityConstants.Default.ECID_PRE_MINT_ENABLED;
+	private long updateCoalescingWindowMillis = IdentityConstants.Default.UPDATE_COALESCING_WINDOW_MILLIS;
+	private int maxIdentitiesPerNamespace = IdentityConstants.Default.MAX_IDENTITIES_PER_NAMESPACE;
+	private int maxIdentities = IdentityConstants.Default.MAX_IDENTITIES;
+	private long evictedIdentityCount;
 	private IdentityProperties identityProperties;
-	private boolean hasBooted;
+	private BootState bootState = BootState.LOADED;
+	private long bootStateStartNanos = IdentityMetrics.startBootTimer();
 
+	/**
+	 * Starts loading the persisted identities (if any) on a background thread, so the extension registration
+	 * is not blocked by reading and parsing the persisted identities.
+	 * The same single background thread is used to pre-mint ECIDs, and is stopped by {@link #shutdown()}.
+	 */
 	IdentityState() {
-		this(new IdentityStorageManager(ServiceProvider.getInstance().getDataStoreService()));
+		this(
+			new IdentityStorageManager(ServiceProvider.getInstance().getDataStoreService()),
+			Executors.newSingleThreadExecutor(Utils.daemonThreadFactory(BACKGROUND_THREAD_NAME))
+		);
 	}
 
 	/**
@@ -48,128 +86,346 @@ class IdentityState {
 	 */
 	@VisibleForTesting
 	IdentityState(final IdentityStorageManager identityStorageManager) {
-		this.identityStorageManager = identityStorageManager;
+		this(identityStorageManager, Runnable::run);
+	}
 
-		final IdentityProperties persistedProperties = identityStorageManager.loadPropertiesFromPersistence();
-		this.identityProperties = (persistedProperties != null) ? persistedProperties : new IdentityProperties();
+	/**
+	 * Loads the persisted identities (if any) using the given {@code backgroundExecutor}.
+	 * The loaded identities are applied to {@link #identityProperties} the first time they are needed.
+	 *
+	 * @param identityStorageManager the {@link IdentityStorageManager} used to load and save identities
+	 * @param backgroundExecutor the {@link Executor} used to load the persisted identities and to pre-mint ECIDs
+	 */
+	@VisibleForTesting
+	IdentityState(final IdentityStorageManager identityStorageManager, final Executor backgroundExecutor) {
+		this.identityStorageManager = identityStorageManager;
+		this.backgroundExecutor = backgroundExecutor;
+		this.preloadTask = new FutureTask<>(identityStorageManager::loadPropertiesFromPersistence);
+		backgroundExecutor.execute(preloadTask);
 	}
 
 	/**
 	 * @return The current {@link IdentityProperties} for this identity state
 	 */
 	@NonNull IdentityProperties getIdentityProperties() {
+		awaitPreload();
 		return identityProperties;
 	}
 
+	/**
+	 * @return the current {@link BootState} of this Identity extension
+	 */
+	@NonNull BootState getBootState() {
+		return bootState;
+	}
+
 	/**
 	 * Completes init for this Identity extension.
 	 * If no ECID is loaded from persistence (ideally meaning first launch), attempts to migrate existing ECID
 	 * from the direct Identity Extension, either from its persisted store or from its shared state if the
 	 * direct Identity extension is registered. If no ECID is found for migration, then a new ECID is generated.
 	 * Stores the {@code identityProperties} once an ECID is set and creates the first shared state.
+	 * <p>
+	 * Bootup advances through the {@link BootState} steps, so while waiting for a shared state only that shared
+	 * state is checked again; the direct Identity persistence and registration are only checked once.
+	 * Once booted, this method returns immediately.
 	 *
 	 * @param callback {@link SharedStateCallback} used to get the EventHub and/or Identity direct shared state
 	 *                 and create a shared state on the EventHub; should not be null
 	 * @return True if the bootup is complete
 	 */
 	boolean bootupIfReady(final SharedStateCallback callback) {
-		if (hasBooted) {
-			return true;
+		switch (bootState) {
+			case BOOTED:
+				return true;
+			case LOADED:
+				awaitPreload();
+
+				// Reuse the ECID from Identity Direct (if registered) or generate new ECID on first launch
+				if (identityProperties.getECID() != null) {
+					completeBootup(callback, false);
+					return true;
+				}
+
+				setBootState(BootState.WAITING_HUB);
+				return bootupIfReady(callback);
+			case WAITING_HUB:
+				return bootupFromEventHubState(callback);
+			case WAITING_DIRECT:
+				return bootupFromIdentityDirectState(callback);
+			default:
+				return false;
 		}
+	}
 
-		// Reuse the ECID from Identity Direct (if registered) or generate new ECID on first launch
-		if (identityProperties.getECID() == null) {
-			// Wait for all extensions to be registered as forthcoming logic depends on Identity Direct state.
-			// This is inferred via EventHub's shared state and is based on the assumption that EventHub
-			// sets its state only when all the extensions are registered initially.
-			final SharedStateResult eventHubStateResult = callback.getSharedState(
-				IdentityConstants.SharedState.Hub.NAME,
-				null
+	/**
+	 * Bootup step waiting for the EventHub shared state, then migrating the ECID persisted by the direct Identity
+	 * extension or generating a new ECID, unless the direct Identity extension is registered.
+	 *
+	 * @param callback {@link SharedStateCallback} used to get the shared states and create a shared state on the EventHub
+	 * @return True if the bootup is complete
+	 */
+	private boolean bootupFromEventHubState(final SharedStateCallback callback) {
+		// Wait for all extensions to be registered as forthcoming logic depends on Identity Direct state.
+		// This is inferred via EventHub's shared state and is based on the assumption that EventHub
+		// sets its state only when all the extensions are registered initially.
+		final SharedStateResult eventHubStateResult = callback.getSharedState(
+			IdentityConstants.SharedState.Hub.NAME,
+			null
+		);
+		if (eventHubStateResult == null || eventHubStateResult.getStatus() != SharedStateStatus.SET) {
+			return false;
+		}
+
+		// Attempt to get ECID from direct Identity persistence to migrate an existing ECID
+		final ECID directIdentityEcid = identityStorageManager.loadEcidFromDirectIdentityPersistence();
+
+		if (directIdentityEcid != null) {
+			identityProperties.setECID(directIdentityEcid);
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"On bootup Loading ECID from direct Identity extension '" + directIdentityEcid + "'"
 			);
-			if (eventHubStateResult == null || eventHubStateResult.getStatus() != SharedStateStatus.SET) {
-				return false;
-			}
+		}
+		// If direct Identity has no persisted ECID, check if direct Identity is registered with the SDK
+		else if (isIdentityDirectRegistered(eventHubStateResult.getValue())) {
+			setBootState(BootState.WAITING_DIRECT);
+			return bootupFromIdentityDirectState(callback);
+		}
+		// Generate a new ECID as the direct Identity extension is not registered with the SDK and there was no direct Identity persisted ECID
+		else {
+			identityProperties.setECID(new ECID());
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Generating new ECID on bootup '" + identityProperties.getECID().toString() + "'"
+			);
+		}
 
-			// Attempt to get ECID from direct Identity persistence to migrate an existing ECID
-			final ECID directIdentityEcid = identityStorageManager.loadEcidFromDirectIdentityPersistence();
+		completeBootup(callback, true);
+		return true;
+	}
 
-			if (directIdentityEcid != null) {
-				identityProperties.setECID(directIdentityEcid);
-				Log.debug(
-					LOG_TAG,
-					LOG_SOURCE,
-					"On bootup Loading ECID from direct Identity extension '" + directIdentityEcid + "'"
-				);
-			}
-			// If direct Identity has no persisted ECID, check if direct Identity is registered with the SDK
-			else if (isIdentityDirectRegistered(eventHubStateResult.getValue())) {
-				// If the direct Identity extension is registered, attempt to get its shared state
-				final SharedStateResult sharedStateResult = callback.getSharedState(
-					IdentityConstants.SharedState.IdentityDirect.NAME,
-					null
-				);
+	/**
+	 * Bootup step waiting for the shared state of the registered direct Identity extension, then using its ECID.
+	 *
+	 * @param callback {@link SharedStateCallback} used to get the shared states and create a shared state on the EventHub
+	 * @return True if the bootup is complete
+	 */
+	private boolean bootupFromIdentityDirectState(final SharedStateCallback callback) {
+		final SharedStateResult sharedStateResult = callback.getSharedState(
+			IdentityConstants.SharedState.IdentityDirect.NAME,
+			null
+		);
 
-				// If there is no direct Identity shared state, abort boot-up and try again when direct Identity shares its state
-				if (sharedStateResult == null || sharedStateResult.getStatus() != SharedStateStatus.SET) {
-					Log.debug(
-						LOG_TAG,
-						LOG_SOURCE,
-						"On bootup direct Identity extension is registered, waiting for its state change."
-					);
-					return false;
-				}
+		// If there is no direct Identity shared state, abort boot-up and try again when direct Identity shares its state
+		if (sharedStateResult == null || sharedStateResult.getStatus() != SharedStateStatus.SET) {
+			Log.debug(
+				LOG_TAG,
+				LOG_SOURCE,
+				"On bootup direct Identity extension is registered, waiting for its state change."
+			);
+			return false;
+		}
 
-				final Map<String, Object> identityDirectSharedState = sharedStateResult.getValue();
-				handleECIDFromIdentityDirect(EventUtils.getECID(identityDirectSharedState));
-			}
-			// Generate a new ECID as the direct Identity extension is not registered with the SDK and there was no direct Identity persisted ECID
-			else {
-				identityProperties.setECID(new ECID());
-				Log.debug(
-					LOG_TAG,
-					LOG_SOURCE,
-					"Generating new ECID on bootup '" + identityProperties.getECID().toString() + "'"
-				);
-			}
+		final Map<String, Object> identityDirectSharedState = sharedStateResult.getValue();
+		handleECIDFromIdentityDirect(EventUtils.getECID(identityDirectSharedState));
+		completeBootup(callback, true);
+		return true;
+	}
 
-			identityStorageManager.savePropertiesToPersistence(identityProperties);
+	/**
+	 * Completes the bootup, publishing the identities and creating the first shared state.
+	 *
+	 * @param callback   {@link SharedStateCallback} used to create a shared state on the EventHub
+	 * @param persistECID true if the ECID was set during bootup and needs to be persisted
+	 */
+	private void completeBootup(final SharedStateCallback callback, final boolean persistECID) {
+		if (persistECID) {
+			persist(IdentityJournalEntry.setECID(identityProperties.getECID()));
 		}
 
-		hasBooted = true;
+		setBootState(BootState.BOOTED);
+		publishIdentities();
+		preMintNextECID();
 		Log.debug(LOG_TAG, LOG_SOURCE, "Edge Identity has successfully booted up");
 		callback.createXDMSharedState(identityProperties.toXDMData(), null);
+	}
 
-		return hasBooted;
+	/**
+	 * Moves to the given bootup step, recording the time spent in the current step.
+	 *
+	 * @param newState the next {@link BootState}
+	 */
+	private void setBootState(final BootState newState) {
+		IdentityMetrics.recordBootState(bootState.name(), bootStateStartNanos);
+		bootState = newState;
+		bootStateStartNanos = IdentityMetrics.startBootTimer();
 	}
 
 	/**
 	 * Clears all identities and regenerates a new ECID value, then saves the new identities to persistence.
+	 * When ECID pre-minting is enabled, the ECID generated ahead of time is used as the new ECID.
 	 */
 	void resetIdentifiers() {
+		awaitPreload();
 		identityProperties = new IdentityProperties();
-		identityProperties.setECID(new ECID());
+		identityProperties.setECID(takeNextECID());
 		identityProperties.setECIDSecondary(null);
 		identityStorageManager.savePropertiesToPersistence(identityProperties);
+		// the reset identities must not be lost if the app is terminated before a deferred write
+		identityStorageManager.flush();
+		publishIdentities();
+		preMintNextECID();
+	}
+
+	/**
+	 * Writes any pending identity properties to persistence, for example when the application moves to the background
+	 * or when a burst of coalesced identity changes ends.
+	 */
+	void flushPersistence() {
+		identityStorageManager.flush();
+	}
+
+	/**
+	 * Writes any pending identity properties to persistence and stops the background threads, when the extension
+	 * is unregistered.
+	 */
+	void shutdown() {
+		isShutdown = true;
+		nextECIDTask = null;
+
+		if (backgroundExecutor instanceof ExecutorService) {
+			((ExecutorService) backgroundExecutor).shutdown();
+		}
+
+		identityStorageManager.shutdown();
+	}
+
+	/**
+	 * Applies the Edge Identity settings found in the Configuration shared state.
+	 *
+	 * @param configurationState the Configuration shared state data; settings not present are reset to their defaults
+	 */
+	void updateConfiguration(final Map<String, Object> configurationState) {
+		updateCoalescingWindowMillis = EventUtils.getUpdateCoalescingWindow(configurationState);
+		identityStorageManager.setWriteDelay(EventUtils.getPersistenceWriteDelay(configurationState));
+		identityStorageManager.setJournalEnabled(EventUtils.isPersistenceJournalEnabled(configurationState));
+		identityStorageManager.setCompactFormatEnabled(EventUtils.isPersistenceCompactFormatEnabled(configurationState));
+		setECIDPreMintEnabled(EventUtils.isECIDPreMintEnabled(configurationState));
+		IdentityMetrics.setAggregationEnabled(EventUtils.isMetricsEnabled(configurationState));
+		setIdentityLimits(
+			EventUtils.getMaxIdentitiesPerNamespace(configurationState),
+			EventUtils.getMaxIdentities(configurationState)
+		);
+	}
+
+	/**
+	 * Sets the limits on the number of customer identifiers, which are enforced the next time identifiers are
+	 * updated by evicting LOGGED_OUT and non-primary identifiers first, least recently updated first.
+	 * The ECID and advertising identifier are never evicted and are not counted against the limits.
+	 *
+	 * @param maxPerNamespace the maximum number of identifiers in each namespace, or zero or less for no limit
+	 * @param maxTotal        the maximum number of identifiers in all namespaces, or zero or less for no limit
+	 */
+	void setIdentityLimits(final int maxPerNamespace, final int maxTotal) {
+		maxIdentitiesPerNamespace = maxPerNamespace;
+		maxIdentities = maxTotal;
+	}
+
+	/**
+	 * @return the number of customer identifiers evicted since this {@code IdentityState} was created
+	 */
+	long getEvictedIdentityCount() {
+		return evictedIdentityCount;
+	}
+
+	/**
+	 * Gets the time consecutive identity updates and removals may be coalesced into a single shared state.
+	 *
+	 * @return the update coalescing window in milliseconds; zero or less if coalescing is disabled
+	 */
+	long getUpdateCoalescingWindow() {
+		return updateCoalescingWindowMillis;
+	}
+
+	/**
+	 * Enables or disables generating the next ECID ahead of time.
+	 * When enabled, the next ECID is generated on a background thread once Edge Identity has booted and
+	 * after each reset, so {@link #resetIdentifiers()} does not generate it inline.
+	 *
+	 * @param enabled true to generate the next ECID ahead of time
+	 */
+	void setECIDPreMintEnabled(final boolean enabled) {
+		isECIDPreMintEnabled = enabled;
+
+		if (enabled) {
+			preMintNextECID();
+		} else {
+			nextECIDTask = null;
+		}
 	}
 
 	/**
 	 * Update the customer identifiers by merging the passed in {@link IdentityMap} with the current identifiers present in {@link #identityProperties}.
 	 *
+	 * Identities are only saved to persistence if the current identifiers were modified.
+	 *
 	 * @param map the {@code IdentityMap} containing customer identifiers to add or update with the current customer identifiers
+	 * @return true if the current identifiers were modified
 	 */
-	void updateCustomerIdentifiers(final IdentityMap map) {
-		identityProperties.updateCustomerIdentifiers(map);
-		identityStorageManager.savePropertiesToPersistence(identityProperties);
+	boolean updateCustomerIdentifiers(final IdentityMap map) {
+		awaitPreload();
+
+		if (!identityProperties.updateCustomerIdentifiers(map)) {
+			return false;
+		}
+
+		persistCustomerIdentifierChange(IdentityJournalEntry.update(map));
+		publishIdentities();
+		return true;
 	}
 
 	/**
 	 * Remove customer identifiers specified in passed in {@link IdentityMap} from the current identifiers present in {@link #identityProperties}.
 	 *
+	 * Identities are only saved to persistence if the current identifiers were modified.
+	 *
 	 * @param map the {@code IdentityMap} with items to remove from current identifiers
+	 * @return true if the current identifiers were modified
 	 */
-	void removeCustomerIdentifiers(final IdentityMap map) {
-		identityProperties.removeCustomerIdentifiers(map);
-		identityStorageManager.savePropertiesToPersistence(identityProperties);
+	boolean removeCustomerIdentifiers(final IdentityMap map) {
+		awaitPreload();
+
+		if (!identityProperties.removeCustomerIdentifiers(map)) {
+			return false;
+		}
+
+		persistIdentityChange(IdentityJournalEntry.remove(map));
+		publishIdentities();
+		return true;
+	}
+
+	/**
+	 * Removes and then updates customer identifiers in {@link #identityProperties} as a single change.
+	 *
+	 * Identities are saved to persistence with a single write, and only if the current identifiers were modified.
+	 *
+	 * @param addedMap   the {@code IdentityMap} containing customer identifiers to add or update; may be null
+	 * @param removedMap the {@code IdentityMap} with customer identifiers to remove; may be null
+	 * @return true if the current identifiers were modified
+	 */
+	boolean applyCustomerIdentifierChanges(final IdentityMap addedMap, final IdentityMap removedMap) {
+		awaitPreload();
+
+		if (!identityProperties.applyCustomerIdentifierChanges(addedMap, removedMap)) {
+			return false;
+		}
+
+		persistCustomerIdentifierChange(IdentityJournalEntry.applyChanges(addedMap, removedMap));
+		publishIdentities();
+		return true;
 	}
 
 	/**
@@ -180,11 +436,13 @@ class IdentityState {
 	 * 	   <li>Dispatch consent event - only when ad ID changes from invalid/valid and vice versa</li>
 	 * </ul>
 	 *
-	 * @param event the {@link Event} containing the advertising identifier
+	 * @param request the {@link AdIdRequest} containing the advertising identifier
 	 * @param callback {@link SharedStateCallback} used to create a shared state on the EventHub; should not be null
 	 */
-	void updateAdvertisingIdentifier(final Event event, final SharedStateCallback callback) {
-		final String newAdId = EventUtils.getAdId(event);
+	void updateAdvertisingIdentifier(final AdIdRequest request, final SharedStateCallback callback) {
+		awaitPreload();
+
+		final String newAdId = request.getAdId();
 		if (identityProperties == null) {
 			identityProperties = new IdentityProperties();
 		}
@@ -208,8 +466,9 @@ class IdentityState {
 		}
 
 		// Save to persistence
-		identityStorageManager.savePropertiesToPersistence(identityProperties);
-		callback.createXDMSharedState(identityProperties.toXDMData(), event);
+		persist(IdentityJournalEntry.setAdId(newAdId));
+		publishIdentities();
+		callback.createXDMSharedState(identityProperties.toXDMData(), request.getEvent());
 	}
 
 	/**
@@ -220,6 +479,7 @@ class IdentityState {
 	 * @return true if the legacy ECID was updated in {@code IdentityProperties}
 	 */
 	boolean updateLegacyExperienceCloudId(final ECID legacyEcid) {
+		awaitPreload();
 		final ECID ecid = identityProperties.getECID();
 		final ECID ecidSecondary = identityProperties.getECIDSecondary();
 
@@ -233,7 +493,8 @@ class IdentityState {
 		}
 
 		identityProperties.setECIDSecondary(legacyEcid);
-		identityStorageManager.savePropertiesToPersistence(identityProperties);
+		persist(IdentityJournalEntry.setECIDSecondary(legacyEcid));
+		publishIdentities();
 		Log.debug(
 			LOG_TAG,
 			LOG_SOURCE,
@@ -297,6 +558,144 @@ class IdentityState {
 		return !MapUtils.isNullOrEmpty(identityDirectInfo);
 	}
 
+	/**
+	 * Applies the result of the persisted identities preload to {@link #identityProperties}, waiting for the preload
+	 * to complete if it is still running. Does nothing once the preload result has been applied.
+	 * If the preload failed, the persisted identities are loaded on the calling thread instead.
+	 */
+	private void awaitPreload() {
+		if (preloadTask == null) {
+			return;
+		}
+
+		IdentityProperties persistedProperties;
+
+		try {
+			persistedProperties = preloadTask.get();
+		} catch (final InterruptedException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Interrupted while preloading identities, loading them directly.");
+			Thread.currentThread().interrupt();
+			persistedProperties = identityStorageManager.loadPropertiesFromPersistence();
+		} catch (final ExecutionException e) {
+			Log.warning(
+				LOG_TAG,
+				LOG_SOURCE,
+				"Failed to preload identities (%s), loading them directly.",
+				e.getLocalizedMessage()
+			);
+			persistedProperties = identityStorageManager.loadPropertiesFromPersistence();
+		}
+
+		preloadTask = null;
+		identityProperties = (persistedProperties != null) ? persistedProperties : new IdentityProperties();
+	}
+
+	/**
+	 * Publishes a snapshot of the current identities to the {@link Identity} class, so
+	 * {@link Identity#getIdentitiesSnapshot()} can return them without dispatching an event.
+	 * Called on bootup, on reset and whenever the identities are modified.
+	 */
+	private void publishIdentities() {
+		Identity.setIdentitySnapshot(
+			new IdentitySnapshot(identityProperties.toReadOnlyIdentityMap(), bootState == BootState.BOOTED)
+		);
+	}
+
+	/**
+	 * Starts generating the next ECID on the background executor, if pre-minting is enabled, Edge Identity has
+	 * booted, no ECID is already pre-minted and the background executor was not shut down.
+	 */
+	private void preMintNextECID() {
+		if (isShutdown || !isECIDPreMintEnabled || bootState != BootState.BOOTED || nextECIDTask != null) {
+			return;
+		}
+
+		nextECIDTask = new FutureTask<>(ECID::new);
+		backgroundExecutor.execute(nextECIDTask);
+	}
+
+	/**
+	 * Takes the pre-minted ECID, if available. The ECID is generated inline when none was pre-minted or
+	 * its generation has not completed yet.
+	 *
+	 * @return a new {@link ECID}
+	 */
+	private ECID takeNextECID() {
+		final FutureTask<ECID> task = nextECIDTask;
+		nextECIDTask = null;
+
+		if (task != null && task.isDone()) {
+			try {
+				return task.get();
+			} catch (final InterruptedException | ExecutionException e) {
+				Log.debug(
+					LOG_TAG,
+					LOG_SOURCE,
+					"Failed to pre-mint ECID (%s), generating a new one.",
+					e.getLocalizedMessage()
+				);
+			}
+		}
+
+		return new ECID();
+	}
+
+	/**
+	 * Persists the change described by {@code entry}, which was already applied to {@link #identityProperties}.
+	 * The change is appended to the identity journal when enabled, otherwise all the identity properties are saved.
+	 *
+	 * @param entry the {@link IdentityJournalEntry} describing the change
+	 */
+	private void persist(final IdentityJournalEntry entry) {
+		if (!identityStorageManager.appendToJournal(identityProperties, entry)) {
+			identityStorageManager.savePropertiesToPersistence(identityProperties);
+		}
+	}
+
+	/**
+	 * Enforces the identity limits after customer identifiers were added, then persists the change described by
+	 * {@code entry}. Evictions are not journaled, so all the identity properties are saved when any identifier was evicted.
+	 *
+	 * @param entry the {@link IdentityJournalEntry} describing the change
+	 */
+	private void persistCustomerIdentifierChange(final IdentityJournalEntry entry) {
+		final long startNanos = IdentityMetrics.startTimer();
+		final int evictedCount = identityProperties.evictCustomerIdentifiers(maxIdentitiesPerNamespace, maxIdentities);
+
+		if (evictedCount <= 0) {
+			persistIdentityChange(entry);
+			return;
+		}
+
+		IdentityMetrics.recordIdentitiesEvicted(startNanos, evictedCount);
+		evictedIdentityCount += evictedCount;
+		Log.debug(
+			LOG_TAG,
+			LOG_SOURCE,
+			"Evicted %d identities as the identity limits were reached, %d evicted in total.",
+			evictedCount,
+			evictedIdentityCount
+		);
+		persistIdentityChange(null);
+	}
+
+	/**
+	 * Persists a change to the customer identifiers made by an identity update or removal event. When update
+	 * coalescing is enabled, the write is deferred until {@link #flushPersistence()} is called once the coalesced
+	 * shared state of the burst is resolved, so a burst of changes costs a single write.
+	 *
+	 * @param entry the {@link IdentityJournalEntry} describing the change, or null if it cannot be journaled
+	 */
+	private void persistIdentityChange(final IdentityJournalEntry entry) {
+		if (updateCoalescingWindowMillis > 0) {
+			identityStorageManager.deferPropertiesToPersistence(identityProperties);
+		} else if (entry != null) {
+			persist(entry);
+		} else {
+			identityStorageManager.savePropertiesToPersistence(identityProperties);
+		}
+	}
+
 	/**
 	 * Construct the advertising identifier consent request event data using the provided consent value
 	 * @param consentVal the consent value defined by {@link IdentityConstants.XDMKeys.Consent#YES}
@@ -19,18 +19,50 @@ import com.adobe.marketing.mobile.services.NamedCollection;
 import com.adobe.marketing.mobile.util.JSONUtils;
 import com.adobe.marketing.mobile.util.StringUtils;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
  * Manages persistence for this Identity extension
+ * <p>
+ * By default identity properties are written synchronously on every save. When a write delay is set through
+ * {@link #setWriteDelay(long)}, saves only mark the properties as dirty and the latest properties are written once
+ * the delay elapses, so multiple saves within that window cost a single serialization and write.
+ * Pending properties can be written at any time using {@link #flush()}, and
+ * {@link #deferPropertiesToPersistence(IdentityProperties)} defers a save until the next flush.
+ * <p>
+ * When journaling is enabled through {@link #setJournalEnabled(boolean)}, changes can be recorded with
+ * {@link #appendToJournal(IdentityProperties, IdentityJournalEntry)} as small journal entries next to the last
+ * snapshot, instead of serializing all the identity properties. Each entry is stored under its own key followed by
+ * the number of entries, so appending a change writes two small values whatever the length of the journal. Note that
+ * the {@code SharedPreferences} backing the data store still rewrite their whole file when values are changed, so the
+ * journal saves serializing the identities, not the file write. The journal is compacted back into the snapshot once
+ * it reaches {@link IdentityConstants.Default#JOURNAL_COMPACTION_THRESHOLD} entries, and any snapshot write supersedes it.
+ * Changes are not journaled while a write delay is set, as they are coalesced into the deferred snapshot instead.
+ * The journal is always replayed when loading the properties, regardless of the current setting.
+ * <p>
+ * When the compact format is enabled through {@link #setCompactFormatEnabled(boolean)}, snapshots are written using
+ * the binary {@link IdentityMapCodec} format instead of JSON. Both formats are always readable.
  */
 class IdentityStorageManager {
 
 	private static final String LOG_SOURCE = "IdentityStorageManager";
+	private static final String FLUSH_THREAD_NAME = "EdgeIdentityPersistence";
 	private final NamedCollection edgeIdentityStore;
 	private final NamedCollection directIdentityStore;
 
+	private long writeDelayMillis = IdentityConstants.Default.PERSISTENCE_WRITE_DELAY_MILLIS;
+	private boolean isJournalEnabled = IdentityConstants.Default.PERSISTENCE_JOURNAL_ENABLED;
+	private boolean isCompactFormatEnabled = IdentityConstants.Default.PERSISTENCE_COMPACT_FORMAT_ENABLED;
+	private IdentityProperties pendingProperties;
+	private boolean isDirty;
+	private ScheduledExecutorService flushExecutor;
+	private ScheduledFuture<?> scheduledFlush;
+
 	IdentityStorageManager(final DataStoring dataStoreService) {
 		this.edgeIdentityStore = dataStoreService.getNamedCollection(IdentityConstants.DataStoreKey.DATASTORE_NAME);
 		this.directIdentityStore =
@@ -42,7 +74,7 @@ class IdentityStorageManager {
 	 *
 	 * @return {@code IdentityProperties} stored in local storage if present;
 	 *         null - if the content cannot be loaded from persistence or, if the content cannot be
-	 *         serialized to a {@code JSONObject}
+	 *         deserialized from either the compact format or a {@code JSONObject}
 	 */
 	IdentityProperties loadPropertiesFromPersistence() {
 		if (edgeIdentityStore == null) {
@@ -53,9 +85,14 @@ class IdentityStorageManager {
 			);
 			return null;
 		}
-		final String jsonString = edgeIdentityStore.getString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, null);
+		final long startNanos = IdentityMetrics.startTimer();
+		final String persistedString = edgeIdentityStore.getString(
+			IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES,
+			null
+		);
+		final int journalSize = getJournalSize();
 
-		if (jsonString == null) {
+		if (persistedString == null && journalSize == 0) {
 			Log.debug(
 				LOG_TAG,
 				LOG_SOURCE,
@@ -65,9 +102,30 @@ class IdentityStorageManager {
 		}
 
 		try {
-			final JSONObject jsonObject = new JSONObject(jsonString);
-			final Map<String, Object> propertyMap = JSONUtils.toMap(jsonObject);
-			return new IdentityProperties(propertyMap);
+			final IdentityProperties properties;
+
+			if (persistedString == null) {
+				properties = new IdentityProperties();
+			} else if (IdentityMapCodec.isCompactFormat(persistedString)) {
+				properties = IdentityProperties.fromCompactString(persistedString);
+
+				if (properties == null) {
+					Log.debug(
+						LOG_TAG,
+						LOG_SOURCE,
+						"Decoding error while reading compact properties from persistence. Unable to load saved identity properties from persistence."
+					);
+					return null;
+				}
+			} else {
+				final JSONObject jsonObject = new JSONObject(persistedString);
+				final Map<String, Object> propertyMap = JSONUtils.toMap(jsonObject);
+				properties = new IdentityProperties(propertyMap);
+			}
+
+			replayJournal(properties, journalSize);
+			IdentityMetrics.recordPersistenceRead(startNanos, persistedString);
+			return properties;
 		} catch (JSONException exception) {
 			Log.debug(
 				LOG_TAG,
@@ -80,10 +138,11 @@ class IdentityStorageManager {
 
 	/**
 	 * Saves identity properties to local storage.
+	 * If a write delay is set, the write is deferred and coalesced with any other saves made within the delay.
 	 *
 	 * @param properties properties to be stored
 	 */
-	void savePropertiesToPersistence(final IdentityProperties properties) {
+	synchronized void savePropertiesToPersistence(final IdentityProperties properties) {
 		if (edgeIdentityStore == null) {
 			Log.warning(
 				LOG_TAG,
@@ -95,13 +154,147 @@ class IdentityStorageManager {
 
 		if (properties == null) {
 			Log.debug(LOG_TAG, LOG_SOURCE, "Identity Properties are null, removing them from persistence.");
+			clearPendingWrite();
 			edgeIdentityStore.remove(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES);
+			clearJournal();
 			return;
 		}
 
-		final JSONObject jsonObject = new JSONObject(properties.toXDMData());
-		final String jsonString = jsonObject.toString();
-		edgeIdentityStore.setString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, jsonString);
+		if (writeDelayMillis <= 0) {
+			clearPendingWrite();
+			writePropertiesToPersistence(properties);
+			return;
+		}
+
+		deferWrite(properties);
+	}
+
+	/**
+	 * Marks identity properties as pending without writing them, so that consecutive changes cost a single write
+	 * when {@link #flush()} is called, or when the write delay elapses if one is set.
+	 *
+	 * @param properties properties to be stored
+	 */
+	synchronized void deferPropertiesToPersistence(final IdentityProperties properties) {
+		if (edgeIdentityStore == null || properties == null) {
+			savePropertiesToPersistence(properties);
+			return;
+		}
+
+		deferWrite(properties);
+	}
+
+	/**
+	 * Writes any pending identity properties to local storage immediately.
+	 * Does nothing if there are no pending changes.
+	 */
+	synchronized void flush() {
+		if (!isDirty) {
+			return;
+		}
+
+		final IdentityProperties properties = pendingProperties;
+		clearPendingWrite();
+		writePropertiesToPersistence(properties);
+	}
+
+	/**
+	 * Writes any pending identity properties to local storage and stops the thread used for deferred writes.
+	 * Later saves with a write delay start a new thread.
+	 */
+	synchronized void shutdown() {
+		flush();
+
+		if (flushExecutor != null) {
+			flushExecutor.shutdown();
+			flushExecutor = null;
+		}
+	}
+
+	/**
+	 * Sets the delay used to coalesce writes to local storage.
+	 * A delay of zero or less writes identity properties synchronously on every save and flushes any pending changes.
+	 *
+	 * @param delayMillis the write delay in milliseconds
+	 */
+	synchronized void setWriteDelay(final long delayMillis) {
+		if (writeDelayMillis == delayMillis) {
+			return;
+		}
+
+		writeDelayMillis = delayMillis;
+
+		if (delayMillis <= 0) {
+			flush();
+		}
+
+		Log.debug(LOG_TAG, LOG_SOURCE, "Identity properties persistence write delay set to %d ms.", delayMillis);
+	}
+
+	/**
+	 * Records a change to the identity properties as a journal entry, if journaling is enabled and no write delay
+	 * is set. The entry is written under its own key, so appending does not read or rewrite the previous entries.
+	 * Once the journal reaches {@link IdentityConstants.Default#JOURNAL_COMPACTION_THRESHOLD} entries, the given
+	 * {@code properties} are written as a new snapshot instead and the journal is cleared.
+	 *
+	 * @param properties the current properties, including the change recorded by {@code entry}
+	 * @param entry the {@link IdentityJournalEntry} describing the change
+	 * @return true if the change was persisted, false if journaling is disabled or a write delay is set and
+	 *         {@link #savePropertiesToPersistence(IdentityProperties)} should be used instead
+	 */
+	synchronized boolean appendToJournal(final IdentityProperties properties, final IdentityJournalEntry entry) {
+		if (!isJournalEnabled || edgeIdentityStore == null || properties == null || entry == null) {
+			return false;
+		}
+
+		// the journal is replayed on top of the written snapshot, so changes made while a deferred write is
+		// configured are coalesced into that write instead
+		if (writeDelayMillis > 0 || isDirty) {
+			return false;
+		}
+
+		final int journalSize = getJournalSize();
+
+		if (journalSize >= IdentityConstants.Default.JOURNAL_COMPACTION_THRESHOLD) {
+			Log.trace(LOG_TAG, LOG_SOURCE, "Compacting identity journal of %d entries.", journalSize);
+			writePropertiesToPersistence(properties);
+			return true;
+		}
+
+		final long startNanos = IdentityMetrics.startTimer();
+		final String entryString = entry.toJSONString();
+		// the entry is only part of the journal once the size is written, so an interrupted append is ignored
+		edgeIdentityStore.setString(getJournalEntryKey(journalSize), entryString);
+		edgeIdentityStore.setInt(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_SIZE, journalSize + 1);
+		IdentityMetrics.recordPersistenceWrite(startNanos, entryString);
+		return true;
+	}
+
+	/**
+	 * Enables or disables recording identity changes in the journal.
+	 *
+	 * @param enabled true to record changes in the journal
+	 * @see #appendToJournal(IdentityProperties, IdentityJournalEntry)
+	 */
+	synchronized void setJournalEnabled(final boolean enabled) {
+		isJournalEnabled = enabled;
+	}
+
+	/**
+	 * Enables or disables writing the identity properties in the compact binary format.
+	 * Takes effect on the next write; properties persisted in either format can always be loaded.
+	 *
+	 * @param enabled true to write the compact format, false to write JSON
+	 */
+	synchronized void setCompactFormatEnabled(final boolean enabled) {
+		isCompactFormatEnabled = enabled;
+	}
+
+	/**
+	 * @return true if there are identity properties waiting to be written to local storage
+	 */
+	synchronized boolean hasPendingWrite() {
+		return isDirty;
 	}
 
 	/**
@@ -126,4 +319,101 @@ class IdentityStorageManager {
 
 		return StringUtils.isNullOrEmpty(ecidString) ? null : new ECID(ecidString);
 	}
+
+	/**
+	 * Serializes the given properties and writes them to local storage.
+	 *
+	 * @param properties properties to be stored; should not be null
+	 */
+	private void writePropertiesToPersistence(final IdentityProperties properties) {
+		final long startNanos = IdentityMetrics.startTimer();
+		final String persistedString = isCompactFormatEnabled
+			? properties.toCompactString()
+			: new JSONObject(properties.toXDMData()).toString();
+		edgeIdentityStore.setString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, persistedString);
+		// the snapshot includes all the journaled changes
+		clearJournal();
+		IdentityMetrics.recordPersistenceWrite(startNanos, persistedString);
+	}
+
+	/**
+	 * Applies the persisted journal entries, in order, to the given properties.
+	 *
+	 * @param properties the properties loaded from the snapshot
+	 * @param journalSize the number of persisted journal entries
+	 */
+	private void replayJournal(final IdentityProperties properties, final int journalSize) {
+		for (int i = 0; i < journalSize; i++) {
+			final IdentityJournalEntry entry = IdentityJournalEntry.fromJSONString(
+				edgeIdentityStore.getString(getJournalEntryKey(i), null)
+			);
+
+			if (entry != null) {
+				entry.applyTo(properties);
+			}
+		}
+	}
+
+	/**
+	 * Removes all the persisted journal entries.
+	 */
+	private void clearJournal() {
+		final int journalSize = getJournalSize();
+
+		if (journalSize == 0) {
+			return;
+		}
+
+		// removing the size first empties the journal even if removing the entries is interrupted
+		edgeIdentityStore.remove(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_SIZE);
+
+		for (int i = 0; i < journalSize; i++) {
+			edgeIdentityStore.remove(getJournalEntryKey(i));
+		}
+	}
+
+	/**
+	 * @return the number of persisted journal entries
+	 */
+	private int getJournalSize() {
+		return Math.max(0, edgeIdentityStore.getInt(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_SIZE, 0));
+	}
+
+	private static String getJournalEntryKey(final int index) {
+		return IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + index;
+	}
+
+	/**
+	 * Marks the given properties as pending, scheduling a flush if a write delay is set.
+	 */
+	private void deferWrite(final IdentityProperties properties) {
+		// keep a snapshot as the properties may be changed while the write is pending
+		pendingProperties = properties.copy();
+		isDirty = true;
+
+		if (writeDelayMillis > 0 && scheduledFlush == null) {
+			scheduledFlush = getFlushExecutor().schedule(this::flush, writeDelayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Discards the pending properties and cancels the scheduled flush, if any.
+	 */
+	private void clearPendingWrite() {
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+			scheduledFlush = null;
+		}
+
+		pendingProperties = null;
+		isDirty = false;
+	}
+
+	private ScheduledExecutorService getFlushExecutor() {
+		if (flushExecutor == null) {
+			flushExecutor = Executors.newSingleThreadScheduledExecutor(Utils.daemonThreadFactory(FLUSH_THREAD_NAME));
+		}
+
+		return flushExecutor;
+	}
 }
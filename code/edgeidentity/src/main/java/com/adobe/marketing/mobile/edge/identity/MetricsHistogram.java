@@ -0,0 +1,115 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+/**
+ * Histogram of non-negative values with logarithmic buckets, each power of two being split in
+ * {@link #SUB_BUCKET_COUNT} linear sub-buckets, so percentiles are reported within 12.5% of the recorded values
+ * with a fixed memory footprint. Not thread-safe.
+ */
+final class MetricsHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+	private final long[] buckets = new long[BUCKET_COUNT];
+	private long count;
+	private long min = Long.MAX_VALUE;
+	private long max;
+	private long total;
+
+	/**
+	 * Records the given value. Negative values are recorded as zero.
+	 *
+	 * @param value the value to record
+	 */
+	void record(final long value) {
+		final long recorded = Math.max(0, value);
+		buckets[bucketIndex(recorded)]++;
+		count++;
+		total += recorded;
+		min = Math.min(min, recorded);
+		max = Math.max(max, recorded);
+	}
+
+	long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the smallest recorded value, or 0 if no value was recorded
+	 */
+	long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	long getMax() {
+		return max;
+	}
+
+	/**
+	 * @return the mean of the recorded values, or 0 if no value was recorded
+	 */
+	long getMean() {
+		return count == 0 ? 0 : total / count;
+	}
+
+	/**
+	 * Gets an upper bound of the given percentile of the recorded values.
+	 *
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the largest value of the bucket containing the percentile, capped to the largest recorded value,
+	 *         or 0 if no value was recorded
+	 */
+	long getPercentile(final double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+		long cumulative = 0;
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			cumulative += buckets[i];
+
+			if (cumulative >= rank) {
+				return Math.min(bucketUpperBound(i), max);
+			}
+		}
+
+		return max;
+	}
+
+	static int bucketIndex(final long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+
+		final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		final int shift = exponent - SUB_BUCKET_BITS;
+		final int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+		return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	static long bucketUpperBound(final int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+
+		final int shift = index / SUB_BUCKET_COUNT - 1;
+		final long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+		final long upperBound = lowerBound + (1L << shift) - 1;
+		// the last bucket overflows
+		return upperBound < lowerBound ? Long.MAX_VALUE : upperBound;
+	}
+}
@@ -0,0 +1,133 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static com.adobe.marketing.mobile.edge.identity.IdentityConstants.LOG_TAG;
+
+import com.adobe.marketing.mobile.SharedStateResolver;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces the XDM shared states of consecutive identity updates and removals into a single shared state.
+ * <p>
+ * The first change of a burst creates a pending shared state, and each following change only replaces the state
+ * the pending shared state is resolved with. The pending shared state is resolved when an event other than an
+ * update or removal is processed, or at the latest when the coalescing window elapses.
+ * The resolved states must be immutable, as they are read by the thread resolving the shared state.
+ * <p>
+ * An optional callback is run each time a burst is resolved, so that work deferred during the burst, such as
+ * persisting the identities, is done once per burst.
+ */
+final class SharedStateCoalescer {
+
+	private static final String LOG_SOURCE = "SharedStateCoalescer";
+	private static final String RESOLVE_THREAD_NAME = "EdgeIdentitySharedStateCoalescer";
+
+	private SharedStateResolver pendingResolver;
+	private Map<String, Object> pendingState;
+	private ScheduledFuture<?> scheduledResolve;
+	private ScheduledExecutorService resolveExecutor;
+	private int coalescedCount;
+	private final Runnable onResolved;
+
+	SharedStateCoalescer() {
+		this(null);
+	}
+
+	/**
+	 * @param onResolved run after the pending shared state of each burst is resolved, on the resolving thread;
+	 *                   may be null
+	 */
+	SharedStateCoalescer(final Runnable onResolved) {
+		this.onResolved = onResolved;
+	}
+
+	/**
+	 * Replaces the state of the pending shared state, if any.
+	 *
+	 * @param state the immutable XDM state to resolve the pending shared state with
+	 * @return true if a shared state is pending and {@code state} was coalesced into it, false otherwise
+	 */
+	synchronized boolean coalesce(final Map<String, Object> state) {
+		if (pendingResolver == null) {
+			return false;
+		}
+
+		pendingState = state;
+		coalescedCount++;
+		return true;
+	}
+
+	/**
+	 * Starts a new burst with the given pending shared state, which is resolved with {@code state} unless
+	 * replaced by {@link #coalesce(Map)}.
+	 *
+	 * @param resolver     the {@link SharedStateResolver} of the pending shared state; should not be null
+	 * @param state        the immutable XDM state to resolve the pending shared state with
+	 * @param windowMillis the maximum time in milliseconds the shared state is kept pending
+	 */
+	synchronized void start(final SharedStateResolver resolver, final Map<String, Object> state, final long windowMillis) {
+		resolve();
+		pendingResolver = resolver;
+		pendingState = state;
+		scheduledResolve = getResolveExecutor().schedule(this::resolve, windowMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Resolves the pending shared state, if any, with the latest coalesced state.
+	 */
+	synchronized void resolve() {
+		if (pendingResolver == null) {
+			return;
+		}
+
+		if (scheduledResolve != null) {
+			scheduledResolve.cancel(false);
+			scheduledResolve = null;
+		}
+
+		final SharedStateResolver resolver = pendingResolver;
+		final Map<String, Object> state = pendingState;
+		final int count = coalescedCount;
+		pendingResolver = null;
+		pendingState = null;
+		coalescedCount = 0;
+
+		Log.trace(LOG_TAG, LOG_SOURCE, "Resolving shared state coalescing %d identity changes.", count + 1);
+		resolver.resolve(state);
+
+		if (onResolved != null) {
+			onResolved.run();
+		}
+	}
+
+	/**
+	 * @return true if a shared state is pending resolution
+	 */
+	synchronized boolean isPending() {
+		return pendingResolver != null;
+	}
+
+	private ScheduledExecutorService getResolveExecutor() {
+		if (resolveExecutor == null) {
+			// shared states are not persisted, so the thread does not need to keep the process alive
+			resolveExecutor = Executors.newSingleThreadScheduledExecutor(Utils.daemonThreadFactory(RESOLVE_THREAD_NAME));
+		}
+
+		return resolveExecutor;
+	}
+}
@@ -17,7 +17,7 @@ import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.util.StringUtils;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 class URLUtils {
 
@@ -54,7 +54,7 @@ class URLUtils {
 				// No need to encode
 				urlFragment.append("null");
 			} else {
-				urlFragment.append(URLEncoder.encode(theIdString, Charset.forName("UTF-8").name()));
+				urlFragment.append(URLEncoder.encode(theIdString, StandardCharsets.UTF_8.name()));
 			}
 		} catch (UnsupportedEncodingException | IllegalArgumentException e) {
 			urlFragment.append("null");
@@ -92,4 +92,30 @@ class URLUtils {
 			return String.format("%s|%s", originalString, newUrlVariable);
 		}
 	}
+
+	/**
+	 * Appends the URL variables payload to the query of the given URL, keeping any fragment at the end.
+	 *
+	 * @param url the URL to decorate
+	 * @param urlVariables the URL variables payload created by {@link #generateURLVariablesPayload(String, String, String)}
+	 * @return the URL with the URL variables appended, or {@code url} if {@code url} or {@code urlVariables} are null or empty
+	 */
+	static String appendURLVariablesToURL(final String url, final String urlVariables) {
+		if (StringUtils.isNullOrEmpty(url) || StringUtils.isNullOrEmpty(urlVariables)) {
+			return url;
+		}
+
+		final int fragmentIndex = url.indexOf('#');
+		final String base = fragmentIndex >= 0 ? url.substring(0, fragmentIndex) : url;
+		final String fragment = fragmentIndex >= 0 ? url.substring(fragmentIndex) : "";
+		final StringBuilder decoratedUrl = new StringBuilder(url.length() + urlVariables.length() + 1).append(base);
+
+		if (base.indexOf('?') < 0) {
+			decoratedUrl.append('?');
+		} else if (!base.endsWith("?") && !base.endsWith("&")) {
+			decoratedUrl.append('&');
+		}
+
+		return decoratedUrl.append(urlVariables).append(fragment).toString();
+	}
 }
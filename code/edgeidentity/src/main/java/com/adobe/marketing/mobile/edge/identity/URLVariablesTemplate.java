@@ -0,0 +1,127 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static com.adobe.marketing.mobile.edge.identity.IdentityConstants.LOG_TAG;
+
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.util.StringUtils;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Objects;
+
+/**
+ * Pre-encoded URL variables payload for an ECID and Experience Cloud Org ID pair.
+ * <p>
+ * Only the timestamp changes between URL variables requests, so the encoded segments before and after the
+ * timestamp are built once and the payload is rebuilt only when the timestamp changes.
+ * The generated payload is identical to {@link URLUtils#generateURLVariablesPayload(String, String, String)}.
+ */
+final class URLVariablesTemplate {
+
+	private static final String LOG_SOURCE = "URLVariablesTemplate";
+	private static final String ENCODING = "UTF-8";
+
+	private final String ecid;
+	private final String orgId;
+	private final String prefix;
+	private final String suffix;
+
+	private String lastTimestamp;
+	private String lastPayload;
+
+	private URLVariablesTemplate(final String ecid, final String orgId, final String prefix, final String suffix) {
+		this.ecid = ecid;
+		this.orgId = orgId;
+		this.prefix = prefix;
+		this.suffix = suffix;
+	}
+
+	/**
+	 * Creates the template for the given ECID and Experience Cloud Org ID.
+	 *
+	 * @param ecid the ECID string; should not be null or empty
+	 * @param orgId the Experience Cloud Org ID; should not be null or empty
+	 * @return the {@link URLVariablesTemplate}, or null if the values cannot be encoded
+	 */
+	static URLVariablesTemplate create(final String ecid, final String orgId) {
+		if (StringUtils.isNullOrEmpty(ecid) || StringUtils.isNullOrEmpty(orgId)) {
+			return null;
+		}
+
+		try {
+			final String prefix =
+				IdentityConstants.UrlKeys.PAYLOAD + "=" + URLEncoder.encode(IdentityConstants.UrlKeys.TS + "=", ENCODING);
+			final String suffix = URLEncoder.encode(
+				"|" +
+				IdentityConstants.UrlKeys.EXPERIENCE_CLOUD_ID +
+				"=" +
+				ecid +
+				"|" +
+				IdentityConstants.UrlKeys.EXPERIENCE_CLOUD_ORG_ID +
+				"=" +
+				orgId,
+				ENCODING
+			);
+			return new URLVariablesTemplate(ecid, orgId, prefix, suffix);
+		} catch (final UnsupportedEncodingException | IllegalArgumentException e) {
+			Log.debug(LOG_TAG, LOG_SOURCE, "Failed to create urlVariables template: %s", e.getLocalizedMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * @param ecid the ECID string
+	 * @param orgId the Experience Cloud Org ID
+	 * @return true if this template was created for the given {@code ecid} and {@code orgId}
+	 */
+	boolean matches(final String ecid, final String orgId) {
+		return Objects.equals(this.ecid, ecid) && Objects.equals(this.orgId, orgId);
+	}
+
+	/**
+	 * Builds the URL variables payload for the given timestamp.
+	 *
+	 * @param ts timestamp {@link String} denoting time when url variables request was made
+	 * @return {@link String} formatted with the visitor id payload
+	 */
+	String build(final String ts) {
+		if (ts != null && ts.equals(lastTimestamp)) {
+			return lastPayload;
+		}
+
+		if (!isDigits(ts)) {
+			// timestamps are expected to be digits, which do not need encoding
+			return URLUtils.generateURLVariablesPayload(ts, ecid, orgId);
+		}
+
+		lastPayload = prefix + ts + suffix;
+		lastTimestamp = ts;
+		return lastPayload;
+	}
+
+	private static boolean isDigits(final String value) {
+		if (StringUtils.isNullOrEmpty(value)) {
+			return false;
+		}
+
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
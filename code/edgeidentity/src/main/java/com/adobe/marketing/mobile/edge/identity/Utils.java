@@ -12,6 +12,7 @@
 package com.adobe.marketing.mobile.edge.identity;
 
 import java.util.List;
+import java.util.concurrent.ThreadFactory;
 
 class Utils {
 
@@ -26,4 +27,85 @@ class Utils {
 	static boolean isNullOrEmpty(final List<?> list) {
 		return list == null || list.isEmpty();
 	}
+
+	/**
+	 * Folds the case of the given {@code String} so that two strings which are equal ignoring case,
+	 * as defined by {@link String#equalsIgnoreCase(String)}, have equal case-folded values.
+	 *
+	 * @param value the {@code String} to fold; should not be null
+	 * @return the case-folded {@code String}, or {@code value} itself if it is already case-folded
+	 */
+	static String foldCase(final String value) {
+		final int length = value.length();
+		int index = 0;
+
+		// avoid allocating when the value is already case-folded, which is the common case
+		while (index < length && isCaseFolded(value.charAt(index))) {
+			index++;
+		}
+
+		if (index == length) {
+			return value;
+		}
+
+		final char[] chars = value.toCharArray();
+
+		for (; index < length; index++) {
+			chars[index] = Character.toLowerCase(Character.toUpperCase(chars[index]));
+		}
+
+		return new String(chars);
+	}
+
+	/**
+	 * Computes the length of the UTF-8 encoding of the given {@code String} without encoding it.
+	 *
+	 * @param value the {@code String} to measure, may be null
+	 * @return the number of bytes of the UTF-8 encoding of {@code value}, or 0 if {@code value} is null
+	 */
+	static int utf8Length(final String value) {
+		if (value == null) {
+			return 0;
+		}
+
+		final int length = value.length();
+		int bytes = 0;
+
+		for (int i = 0; i < length; i++) {
+			final char c = value.charAt(i);
+
+			if (c < 0x80) {
+				bytes++;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				bytes += 4;
+				i++;
+			} else {
+				// unpaired surrogates are encoded as '?'
+				bytes += Character.isSurrogate(c) ? 1 : 3;
+			}
+		}
+
+		return bytes;
+	}
+
+	/**
+	 * Creates a {@link ThreadFactory} for the background threads of this extension. The threads are daemon threads,
+	 * so they never keep the application process alive.
+	 *
+	 * @param name the name of the created threads
+	 * @return a {@code ThreadFactory} creating daemon threads named {@code name}
+	 */
+	static ThreadFactory daemonThreadFactory(final String name) {
+		return runnable -> {
+			final Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private static boolean isCaseFolded(final char c) {
+		return Character.toLowerCase(Character.toUpperCase(c)) == c;
+	}
 }
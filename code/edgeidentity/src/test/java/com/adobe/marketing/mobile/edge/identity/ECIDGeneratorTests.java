@@ -0,0 +1,83 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.Test;
+
+public class ECIDGeneratorTests {
+
+	@Test
+	public void test_format_matchesLegacyFormat() {
+		final Random random = new Random(42);
+
+		for (int i = 0; i < 10000; i++) {
+			final long most = random.nextLong();
+			final long least = random.nextLong();
+			assertEquals(legacyFormat(most, least), ECIDGenerator.format(most, least));
+		}
+	}
+
+	@Test
+	public void test_format_edgeValues() {
+		final long[] values = { 0L, 1L, -1L, 9L, 10L, Long.MAX_VALUE, -Long.MAX_VALUE, Long.MIN_VALUE };
+
+		for (final long most : values) {
+			for (final long least : values) {
+				assertEquals(legacyFormat(most, least), ECIDGenerator.format(most, least));
+			}
+		}
+	}
+
+	@Test
+	public void test_generate_setsUUIDVersionAndVariantBits() {
+		final long[] values = { -1L, 0L };
+		final int[] index = { 0 };
+		final ECIDGenerator generator = new ECIDGenerator(() -> values[index[0]++ % values.length]);
+
+		final UUID uuid = new UUID(0xFFFFFFFFFFFF4FFFL, 0x8000000000000000L);
+		assertEquals(legacyFormat(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()), generator.generate());
+		assertEquals(4, uuid.version());
+		assertEquals(2, uuid.variant());
+	}
+
+	@Test
+	public void test_generate_usesRandomSource() {
+		final Random random = new Random(7);
+		final ECIDGenerator generator = new ECIDGenerator(random::nextLong);
+		final String ecid = generator.generate();
+
+		assertEquals(38, ecid.length());
+		assertTrue(ecid.matches("[0-9]+"));
+		assertEquals(ecid, new ECIDGenerator(new Random(7)::nextLong).generate());
+		assertNotEquals(ecid, generator.generate());
+	}
+
+	@Test
+	public void test_getDefault_generatesValidECIDs() {
+		final String ecid = ECIDGenerator.getDefault().generate();
+
+		assertEquals(38, ecid.length());
+		assertTrue(ecid.matches("[0-9]+"));
+		assertNotEquals(ecid, ECIDGenerator.getDefault().generate());
+	}
+
+	private static String legacyFormat(final long most, final long least) {
+		return String.format(Locale.US, "%019d%019d", most < 0 ? -most : most, least < 0 ? -least : least);
+	}
+}
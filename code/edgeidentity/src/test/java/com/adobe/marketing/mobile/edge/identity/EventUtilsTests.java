@@ -13,12 +13,14 @@ package com.adobe.marketing.mobile.edge.identity;
 
 import static junit.framework.TestCase.assertFalse;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import com.adobe.marketing.mobile.Event;
 import com.adobe.marketing.mobile.EventSource;
 import com.adobe.marketing.mobile.EventType;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -27,12 +29,17 @@ import org.junit.Test;
 public class EventUtilsTests {
 
 	// ======================================================================================================================
-	// Tests for method : isGetUrlVariablesRequestEvent(final Event event)
+	// Tests for method : decodeIdentityRequest(final Event event)
 	// ======================================================================================================================
 
 	@Test
-	public void test_isRequestIdentityEventForGetUrlVariable_nullEvent_returnsFalse() {
-		assertFalse(EventUtils.isGetUrlVariablesRequestEvent(null));
+	public void test_decodeIdentityRequest_noEventData_returnsGetIdentitiesRequest() {
+		final Event event = new Event.Builder("Get", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY).build();
+
+		final IdentityRequest request = EventUtils.decodeIdentityRequest(event);
+		assertEquals(IdentityRequest.Type.GET_IDENTITIES, request.getType());
+		assertEquals(event, request.getEvent());
+		assertNull(request.getUrls());
 	}
 
 	@Test
@@ -51,7 +58,7 @@ public class EventUtilsTests {
 			)
 			.build();
 
-		assertTrue(EventUtils.isGetUrlVariablesRequestEvent(event));
+		assertTrue(isUrlVariablesRequest(event));
 
 		// eventType is not edgeIdentity and eventSource is not requestIdentity
 		event =
@@ -69,7 +76,7 @@ public class EventUtilsTests {
 				)
 				.build();
 
-		assertFalse(EventUtils.isGetUrlVariablesRequestEvent(event));
+		assertFalse(isUrlVariablesRequest(event));
 	}
 
 	@Test
@@ -89,7 +96,7 @@ public class EventUtilsTests {
 			)
 			.build();
 
-		assertTrue(EventUtils.isGetUrlVariablesRequestEvent(event));
+		assertTrue(isUrlVariablesRequest(event));
 
 		// eventType is not edgeIdentity and eventSource is not requestIdentity
 		event =
@@ -107,7 +114,7 @@ public class EventUtilsTests {
 				)
 				.build();
 
-		assertTrue(EventUtils.isGetUrlVariablesRequestEvent(event));
+		assertTrue(isUrlVariablesRequest(event));
 	}
 
 	@Test
@@ -126,7 +133,7 @@ public class EventUtilsTests {
 			)
 			.build();
 
-		assertFalse(EventUtils.isGetUrlVariablesRequestEvent(event));
+		assertFalse(isUrlVariablesRequest(event));
 
 		// eventType is not edgeIdentity and eventSource is not requestIdentity
 		event =
@@ -144,7 +151,7 @@ public class EventUtilsTests {
 				)
 				.build();
 
-		assertFalse(EventUtils.isGetUrlVariablesRequestEvent(event));
+		assertFalse(isUrlVariablesRequest(event));
 	}
 
 	// ======================================================================================================================
@@ -179,41 +186,334 @@ public class EventUtilsTests {
 	}
 
 	// ======================================================================================================================
-	// Tests for method : isAdIdEvent(final Event event)
+	// Tests for method : getPersistenceWriteDelay(final Map<String, Object> configurationSharedState)
 	// ======================================================================================================================
 
 	@Test
-	public void test_isAdIdEvent_whenIsAdIdEvent_thenTrue() {
-		final Event event = createGenericIdentityEvent(
-			new HashMap<String, Object>() {
-				{
-					put(IdentityConstants.EventDataKeys.ADVERTISING_IDENTIFIER, "adId");
+	public void test_getPersistenceWriteDelay_validValue_returnsValue() {
+		assertEquals(
+			250L,
+			EventUtils.getPersistenceWriteDelay(
+				new HashMap<String, Object>() {
+					{
+						put("edgeIdentity.persistenceWriteDelay", 250);
+					}
 				}
-			}
+			)
+		);
+	}
+
+	@Test
+	public void test_getPersistenceWriteDelay_invalidValue_returnsDefault() {
+		assertEquals(
+			0L,
+			EventUtils.getPersistenceWriteDelay(
+				new HashMap<String, Object>() {
+					{
+						put("edgeIdentity.persistenceWriteDelay", "250");
+					}
+				}
+			)
+		);
+		assertEquals(0L, EventUtils.getPersistenceWriteDelay(null));
+	}
+
+	@Test
+	public void test_isPersistenceJournalEnabled() {
+		assertTrue(
+			EventUtils.isPersistenceJournalEnabled(
+				new HashMap<String, Object>() {
+					{
+						put("edgeIdentity.persistenceJournal", true);
+					}
+				}
+			)
+		);
+		assertFalse(EventUtils.isPersistenceJournalEnabled(new HashMap<>()));
+		assertFalse(EventUtils.isPersistenceJournalEnabled(null));
+	}
+
+	@Test
+	public void test_isPersistenceCompactFormatEnabled() {
+		assertTrue(
+			EventUtils.isPersistenceCompactFormatEnabled(
+				new HashMap<String, Object>() {
+					{
+						put("edgeIdentity.persistenceCompactFormat", true);
+					}
+				}
+			)
+		);
+		assertFalse(EventUtils.isPersistenceCompactFormatEnabled(new HashMap<>()));
+		assertFalse(EventUtils.isPersistenceCompactFormatEnabled(null));
+	}
+
+	@Test
+	public void test_decodeIdentityRequest_urls() {
+		final Event event = new Event.Builder("Test event", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
+			.setEventData(
+				new HashMap<String, Object>() {
+					{
+						put("urlvariables", true);
+						put("urls", Arrays.asList("https://example.com"));
+					}
+				}
+			)
+			.build();
+
+		assertEquals(Arrays.asList("https://example.com"), EventUtils.decodeIdentityRequest(event).getUrls());
+		assertNull(
+			EventUtils
+				.decodeIdentityRequest(
+					new Event.Builder("Test event", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
+						.setEventData(Collections.singletonMap("urlvariables", true))
+						.build()
+				)
+				.getUrls()
+		);
+	}
+
+	@Test
+	public void test_isECIDPreMintEnabled() {
+		assertTrue(
+			EventUtils.isECIDPreMintEnabled(
+				new HashMap<String, Object>() {
+					{
+						put("edgeIdentity.ecidPreMint", true);
+					}
+				}
+			)
+		);
+		assertFalse(EventUtils.isECIDPreMintEnabled(new HashMap<>()));
+		assertFalse(EventUtils.isECIDPreMintEnabled(null));
+	}
+
+	@Test
+	public void test_getUpdateCoalescingWindow() {
+		assertEquals(
+			50L,
+			EventUtils.getUpdateCoalescingWindow(
+				Collections.singletonMap(IdentityConstants.SharedState.Configuration.UPDATE_COALESCING_WINDOW, 50)
+			)
+		);
+		assertEquals(0L, EventUtils.getUpdateCoalescingWindow(new HashMap<>()));
+		assertEquals(0L, EventUtils.getUpdateCoalescingWindow(null));
+	}
+
+	@Test
+	public void test_isMetricsEnabled() {
+		assertTrue(
+			EventUtils.isMetricsEnabled(
+				Collections.singletonMap(IdentityConstants.SharedState.Configuration.METRICS_ENABLED, true)
+			)
+		);
+		assertFalse(EventUtils.isMetricsEnabled(new HashMap<>()));
+		assertFalse(EventUtils.isMetricsEnabled(null));
+	}
+
+	@Test
+	public void test_getMaxIdentitiesPerNamespace() {
+		assertEquals(
+			10,
+			EventUtils.getMaxIdentitiesPerNamespace(
+				Collections.singletonMap(IdentityConstants.SharedState.Configuration.MAX_IDENTITIES_PER_NAMESPACE, 10)
+			)
+		);
+		assertEquals(0, EventUtils.getMaxIdentitiesPerNamespace(new HashMap<>()));
+		assertEquals(0, EventUtils.getMaxIdentitiesPerNamespace(null));
+	}
+
+	@Test
+	public void test_getMaxIdentities() {
+		assertEquals(
+			100,
+			EventUtils.getMaxIdentities(
+				Collections.singletonMap(IdentityConstants.SharedState.Configuration.MAX_IDENTITIES, 100)
+			)
+		);
+		assertEquals(0, EventUtils.getMaxIdentities(new HashMap<>()));
+		assertEquals(0, EventUtils.getMaxIdentities(null));
+	}
+
+	@Test
+	public void test_decodeIdentityRequest_metrics() {
+		final Event event = new Event.Builder("Metrics", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
+			.setEventData(Collections.singletonMap(IdentityConstants.EventDataKeys.METRICS, true))
+			.build();
+
+		assertEquals(IdentityRequest.Type.GET_METRICS, EventUtils.decodeIdentityRequest(event).getType());
+	}
+
+	@Test
+	public void test_decodeUpdateIdentitiesRequest() {
+		final Map<String, Object> updatedXDM = IdentityTestUtil.createXDMIdentityMap(
+			new IdentityTestUtil.TestItem("CRMID", "crmId")
+		);
+		final Map<String, Object> eventData = new HashMap<>(updatedXDM);
+		eventData.put(IdentityConstants.EventDataKeys.REMOVED_IDENTITIES, updatedXDM);
+
+		final IdentityChangeRequest update = EventUtils.decodeUpdateIdentitiesRequest(
+			new Event.Builder("Update", EventType.EDGE_IDENTITY, EventSource.UPDATE_IDENTITY)
+				.setEventData(eventData)
+				.build()
+		);
+		assertEquals(updatedXDM, update.getUpdatedIdentities().asXDMMap(false));
+		assertNull(update.getRemovedIdentities()); // only read from apply identity changes events
+		assertNull(
+			EventUtils.decodeUpdateIdentitiesRequest(
+				new Event.Builder("Update", EventType.EDGE_IDENTITY, EventSource.UPDATE_IDENTITY).build()
+			)
+		);
+		assertNull(EventUtils.decodeUpdateIdentitiesRequest(null));
+	}
+
+	@Test
+	public void test_decodeApplyIdentityChangesRequest() {
+		final Map<String, Object> updatedXDM = IdentityTestUtil.createXDMIdentityMap(
+			new IdentityTestUtil.TestItem("CRMID", "crmId")
+		);
+		final Map<String, Object> removedXDM = IdentityTestUtil.createXDMIdentityMap(
+			new IdentityTestUtil.TestItem("anonymous", "anonymousId")
+		);
+		final Map<String, Object> eventData = new HashMap<>(updatedXDM);
+		eventData.put(IdentityConstants.EventDataKeys.REMOVED_IDENTITIES, removedXDM);
+
+		final IdentityChangeRequest changes = EventUtils.decodeApplyIdentityChangesRequest(
+			new Event.Builder(
+				"Apply",
+				EventType.EDGE_IDENTITY,
+				IdentityConstants.EventSources.APPLY_IDENTITY_CHANGES
+			)
+				.setEventData(eventData)
+				.build()
 		);
+		assertEquals(updatedXDM, changes.getUpdatedIdentities().asXDMMap(false));
+		assertEquals(removedXDM, changes.getRemovedIdentities().asXDMMap(false));
 
-		assertTrue(EventUtils.isAdIdEvent(event));
+		final IdentityChangeRequest removals = EventUtils.decodeApplyIdentityChangesRequest(
+			new Event.Builder(
+				"Apply",
+				EventType.EDGE_IDENTITY,
+				IdentityConstants.EventSources.APPLY_IDENTITY_CHANGES
+			)
+				.setEventData(Collections.singletonMap(IdentityConstants.EventDataKeys.REMOVED_IDENTITIES, removedXDM))
+				.build()
+		);
+		assertNull(removals.getUpdatedIdentities());
+		assertEquals(removedXDM, removals.getRemovedIdentities().asXDMMap(false));
+		assertNull(EventUtils.decodeApplyIdentityChangesRequest(null));
 	}
 
 	@Test
-	public void test_isAdIdEvent_whenIsNotAdIdEvent_thenFalse() {
+	public void test_decodeRemoveIdentitiesRequest() {
+		final Map<String, Object> removedXDM = IdentityTestUtil.createXDMIdentityMap(
+			new IdentityTestUtil.TestItem("anonymous", "anonymousId")
+		);
+		final Event event = new Event.Builder("Remove", EventType.EDGE_IDENTITY, EventSource.REMOVE_IDENTITY)
+			.setEventData(removedXDM)
+			.build();
+
+		final IdentityChangeRequest removal = EventUtils.decodeRemoveIdentitiesRequest(event);
+		assertNull(removal.getUpdatedIdentities());
+		assertEquals(removedXDM, removal.getRemovedIdentities().asXDMMap(false));
+		assertNull(EventUtils.decodeRemoveIdentitiesRequest(null));
+	}
+
+	// ======================================================================================================================
+	// Tests for method : isIdentityChangeEvent(final Event event)
+	// ======================================================================================================================
+
+	@Test
+	public void test_isIdentityChangeEvent() {
+		assertTrue(
+			EventUtils.isIdentityChangeEvent(
+				new Event.Builder("Update", EventType.EDGE_IDENTITY, EventSource.UPDATE_IDENTITY).build()
+			)
+		);
+		assertTrue(
+			EventUtils.isIdentityChangeEvent(
+				new Event.Builder("Remove", EventType.EDGE_IDENTITY, EventSource.REMOVE_IDENTITY).build()
+			)
+		);
+		assertTrue(
+			EventUtils.isIdentityChangeEvent(
+				new Event.Builder(
+					"Apply",
+					EventType.EDGE_IDENTITY,
+					IdentityConstants.EventSources.APPLY_IDENTITY_CHANGES
+				)
+					.build()
+			)
+		);
+		assertFalse(
+			EventUtils.isIdentityChangeEvent(
+				new Event.Builder("Request", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY).build()
+			)
+		);
+		assertFalse(
+			EventUtils.isIdentityChangeEvent(
+				new Event.Builder("Update", EventType.GENERIC_IDENTITY, EventSource.UPDATE_IDENTITY).build()
+			)
+		);
+		assertFalse(EventUtils.isIdentityChangeEvent(null));
+	}
+
+	// ======================================================================================================================
+	// Tests for method : isLifecyclePauseEvent(final Event event)
+	// ======================================================================================================================
+
+	@Test
+	public void test_isLifecyclePauseEvent_pauseAction_returnsTrue() {
+		final Event event = new Event.Builder("Pause", EventType.GENERIC_LIFECYCLE, EventSource.REQUEST_CONTENT)
+			.setEventData(
+				new HashMap<String, Object>() {
+					{
+						put("action", "pause");
+					}
+				}
+			)
+			.build();
+
+		assertTrue(EventUtils.isLifecyclePauseEvent(event));
+	}
+
+	@Test
+	public void test_isLifecyclePauseEvent_otherAction_returnsFalse() {
+		final Event event = new Event.Builder("Start", EventType.GENERIC_LIFECYCLE, EventSource.REQUEST_CONTENT)
+			.setEventData(
+				new HashMap<String, Object>() {
+					{
+						put("action", "start");
+					}
+				}
+			)
+			.build();
+
+		assertFalse(EventUtils.isLifecyclePauseEvent(event));
+		assertFalse(EventUtils.isLifecyclePauseEvent(null));
+	}
+
+	// ======================================================================================================================
+	// Tests for method : decodeAdIdRequest(final Event event)
+	// ======================================================================================================================
+
+	@Test
+	public void test_decodeAdIdRequest_whenIsAdIdEvent_thenNotNull() {
 		final Event event = createGenericIdentityEvent(
 			new HashMap<String, Object>() {
 				{
-					put("someKey", "someValue");
+					put(IdentityConstants.EventDataKeys.ADVERTISING_IDENTIFIER, "adId");
 				}
 			}
 		);
 
-		assertFalse(EventUtils.isAdIdEvent(event));
+		final AdIdRequest request = EventUtils.decodeAdIdRequest(event);
+		assertNotNull(request);
+		assertEquals(event, request.getEvent());
 	}
 
-	// ======================================================================================================================
-	// Tests for method : getAdId(final Event event)
-	// ======================================================================================================================
-
 	@Test
-	public void test_getAdId_whenIsNotAdIdEvent_thenEmpty() {
+	public void test_decodeAdIdRequest_whenIsNotAdIdEvent_thenNull() {
 		final Event event = createGenericIdentityEvent(
 			new HashMap<String, Object>() {
 				{
@@ -222,11 +522,17 @@ public class EventUtilsTests {
 			}
 		);
 
-		assertEquals("", EventUtils.getAdId(event));
+		assertNull(EventUtils.decodeAdIdRequest(event));
 	}
 
 	@Test
-	public void test_getAdId_whenAllZeros_thenEmpty() {
+	public void test_decodeAdIdRequest_whenNoEventData_thenNull() {
+		assertNull(EventUtils.decodeAdIdRequest(createGenericIdentityEvent(null)));
+		assertNull(EventUtils.decodeAdIdRequest(null));
+	}
+
+	@Test
+	public void test_decodeAdIdRequest_whenAllZeros_thenEmpty() {
 		final Event event = createGenericIdentityEvent(
 			new HashMap<String, Object>() {
 				{
@@ -238,11 +544,11 @@ public class EventUtilsTests {
 			}
 		);
 
-		assertEquals("", EventUtils.getAdId(event));
+		assertEquals("", EventUtils.decodeAdIdRequest(event).getAdId());
 	}
 
 	@Test
-	public void test_getAdId_whenNull_thenEmpty() {
+	public void test_decodeAdIdRequest_whenNull_thenEmpty() {
 		final Event event = createGenericIdentityEvent(
 			new HashMap<String, Object>() {
 				{
@@ -251,11 +557,11 @@ public class EventUtilsTests {
 			}
 		);
 
-		assertEquals("", EventUtils.getAdId(event));
+		assertEquals("", EventUtils.decodeAdIdRequest(event).getAdId());
 	}
 
 	@Test
-	public void test_getAdId_whenEmpty_thenEmpty() {
+	public void test_decodeAdIdRequest_whenEmpty_thenEmpty() {
 		final Event event = createGenericIdentityEvent(
 			new HashMap<String, Object>() {
 				{
@@ -264,11 +570,11 @@ public class EventUtilsTests {
 			}
 		);
 
-		assertEquals("", EventUtils.getAdId(event));
+		assertEquals("", EventUtils.decodeAdIdRequest(event).getAdId());
 	}
 
 	@Test
-	public void test_getAdId_whenUnexpectedType_thenEmpty() {
+	public void test_decodeAdIdRequest_whenUnexpectedType_thenEmpty() {
 		final Event event = createGenericIdentityEvent(
 			new HashMap<String, Object>() {
 				{
@@ -277,11 +583,11 @@ public class EventUtilsTests {
 			}
 		);
 
-		assertEquals("", EventUtils.getAdId(event));
+		assertEquals("", EventUtils.decodeAdIdRequest(event).getAdId());
 	}
 
 	@Test
-	public void test_getAdId_whenValid_thenValid() {
+	public void test_decodeAdIdRequest_whenValid_thenValid() {
 		final Event event = createGenericIdentityEvent(
 			new HashMap<String, Object>() {
 				{
@@ -290,15 +596,15 @@ public class EventUtilsTests {
 			}
 		);
 
-		assertEquals("adId", EventUtils.getAdId(event));
+		assertEquals("adId", EventUtils.decodeAdIdRequest(event).getAdId());
 	}
 
 	// ======================================================================================================================
-	// Tests for method : isSharedStateUpdateFor(final String stateOwnerName, final Event event)
+	// Tests for method : getSharedStateOwner(final Event event)
 	// ======================================================================================================================
 
 	@Test
-	public void test_isSharedStateUpdateFor_stateOwnerIsNull() {
+	public void test_getSharedStateOwner_stateOwnerIsMissing() {
 		final Event event = new Event.Builder(
 			"Shared state event",
 			EventType.GENERIC_IDENTITY,
@@ -307,16 +613,16 @@ public class EventUtilsTests {
 			.setEventData(Collections.EMPTY_MAP)
 			.build();
 
-		assertFalse(EventUtils.isSharedStateUpdateFor(null, event));
+		assertNull(EventUtils.getSharedStateOwner(event));
 	}
 
 	@Test
-	public void test_isSharedStateUpdateFor_eventIsNull() {
-		assertFalse(EventUtils.isSharedStateUpdateFor(IdentityConstants.SharedState.Configuration.NAME, null));
+	public void test_getSharedStateOwner_eventIsNull() {
+		assertNull(EventUtils.getSharedStateOwner(null));
 	}
 
 	@Test
-	public void test_isSharedStateUpdateFor_stateOwnerValueIsNull() {
+	public void test_getSharedStateOwner_stateOwnerValueIsNull() {
 		final Event event = new Event.Builder(
 			"Shared state event",
 			EventType.GENERIC_IDENTITY,
@@ -325,11 +631,11 @@ public class EventUtilsTests {
 			.setEventData(Collections.singletonMap(IdentityConstants.EventDataKeys.STATE_OWNER, null))
 			.build();
 
-		assertFalse(EventUtils.isSharedStateUpdateFor(EventType.GENERIC_IDENTITY, event));
+		assertNull(EventUtils.getSharedStateOwner(event));
 	}
 
 	@Test
-	public void test_isSharedStateUpdateFor_stateOwnerValueIsEmpty() {
+	public void test_getSharedStateOwner_stateOwnerValueIsEmpty() {
 		final Event event = new Event.Builder(
 			"Shared state event",
 			EventType.GENERIC_IDENTITY,
@@ -338,11 +644,11 @@ public class EventUtilsTests {
 			.setEventData(Collections.singletonMap(IdentityConstants.EventDataKeys.STATE_OWNER, ""))
 			.build();
 
-		assertFalse(EventUtils.isSharedStateUpdateFor(IdentityConstants.EXTENSION_NAME, event));
+		assertEquals("", EventUtils.getSharedStateOwner(event));
 	}
 
 	@Test
-	public void test_isSharedStateUpdateFor_stateOwnerValueExists() {
+	public void test_getSharedStateOwner_stateOwnerValueExists() {
 		final Event event = new Event.Builder(
 			"Shared state event",
 			EventType.GENERIC_IDENTITY,
@@ -353,8 +659,7 @@ public class EventUtilsTests {
 			)
 			.build();
 
-		assertTrue(EventUtils.isSharedStateUpdateFor("com.adobe.module.configuration", event));
-		assertFalse(EventUtils.isSharedStateUpdateFor(IdentityConstants.EXTENSION_NAME, event));
+		assertEquals("com.adobe.module.configuration", EventUtils.getSharedStateOwner(event));
 	}
 
 	// ======================================================================================================================
@@ -395,4 +700,8 @@ public class EventUtilsTests {
 			.setEventData(data)
 			.build();
 	}
+
+	private static boolean isUrlVariablesRequest(final Event event) {
+		return EventUtils.decodeIdentityRequest(event).getType() == IdentityRequest.Type.GET_URL_VARIABLES;
+	}
 }
@@ -22,6 +22,7 @@ import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -34,9 +35,11 @@ import com.adobe.marketing.mobile.SharedStateResolution;
 import com.adobe.marketing.mobile.SharedStateResolver;
 import com.adobe.marketing.mobile.SharedStateResult;
 import com.adobe.marketing.mobile.SharedStateStatus;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -63,6 +66,11 @@ public class IdentityExtensionTests {
 		MockitoAnnotations.openMocks(this);
 	}
 
+	@After
+	public void teardown() {
+		IdentityMetrics.setAggregationEnabled(false);
+	}
+
 	// ========================================================================================
 	// onRegistered
 	// ========================================================================================
@@ -83,6 +91,14 @@ public class IdentityExtensionTests {
 			.registerEventListener(eq(EventType.EDGE_IDENTITY), eq(EventSource.UPDATE_IDENTITY), any());
 		verify(mockExtensionApi)
 			.registerEventListener(eq(EventType.EDGE_IDENTITY), eq(EventSource.REMOVE_IDENTITY), any());
+		verify(mockExtensionApi)
+			.registerEventListener(
+				eq(EventType.EDGE_IDENTITY),
+				eq(IdentityConstants.EventSources.APPLY_IDENTITY_CHANGES),
+				any()
+			);
+		verify(mockExtensionApi)
+			.registerEventListener(eq(EventType.GENERIC_LIFECYCLE), eq(EventSource.REQUEST_CONTENT), any());
 		verify(mockExtensionApi).registerEventListener(eq(EventType.HUB), eq(EventSource.SHARED_STATE), any());
 
 		verifyNoMoreInteractions(mockExtensionApi);
@@ -129,6 +145,64 @@ public class IdentityExtensionTests {
 		);
 	}
 
+	// ========================================================================================
+	// onUnregistered
+	// ========================================================================================
+	@Test
+	public void test_onUnregistered_resetsIdentitiesSnapshot() {
+		// setup
+		Identity.setIdentitySnapshot(new IdentitySnapshot(new IdentityMap().asReadOnly(), true));
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		// test
+		extension.onUnregistered();
+
+		// verify
+		assertFalse(Identity.getIdentitiesSnapshot().isBooted());
+	}
+
+	@Test
+	public void test_onUnregistered_shutsDownIdentityState() {
+		// setup
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		// test
+		extension.onUnregistered();
+
+		// verify pending writes are persisted and background threads stopped
+		verify(mockIdentityState).shutdown();
+	}
+
+	@Test
+	public void test_onUnregistered_respondsToPendingUrlVariablesRequests() {
+		// setup
+		final Event urlVariablesEvent = buildUrlVariablesRequest();
+		when(
+			mockExtensionApi.getSharedState(
+				IdentityConstants.SharedState.Configuration.NAME,
+				urlVariablesEvent,
+				false,
+				SharedStateResolution.LAST_SET
+			)
+		)
+			.thenReturn(new SharedStateResult(SharedStateStatus.PENDING, null));
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+		extension.handleRequestIdentity(urlVariablesEvent);
+		verify(mockExtensionApi, never()).dispatch(any());
+
+		// test
+		extension.onUnregistered();
+
+		// verify the waiting request gets the failure response instead of timing out
+		final ArgumentCaptor<Event> responseEventCaptor = ArgumentCaptor.forClass(Event.class);
+		verify(mockExtensionApi, times(1)).dispatch(responseEventCaptor.capture());
+		final Event responseEvent = responseEventCaptor.getValue();
+		assertEquals(IdentityConstants.EventNames.IDENTITY_RESPONSE_URL_VARIABLES, responseEvent.getName());
+		assertEquals(urlVariablesEvent.getUniqueIdentifier(), responseEvent.getResponseID());
+		assertTrue(responseEvent.getEventData().containsKey(IdentityConstants.EventDataKeys.URL_VARIABLES));
+		assertNull(responseEvent.getEventData().get(IdentityConstants.EventDataKeys.URL_VARIABLES));
+	}
+
 	// ========================================================================================
 	// readyForEvent(Event event)
 	// ========================================================================================
@@ -143,18 +217,10 @@ public class IdentityExtensionTests {
 	}
 
 	@Test
-	public void test_readyForEvent_GetUrlVariablesRequestButConfigurationStateUnavailable() {
+	public void test_readyForEvent_GetUrlVariablesRequestButConfigurationStateUnavailable_returnsTrue() {
 		// setup
 		when(mockIdentityState.bootupIfReady(any())).thenReturn(true);
-		Event event = new Event.Builder("Test event", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
-			.setEventData(
-				new HashMap<String, Object>() {
-					{
-						put("urlvariables", true);
-					}
-				}
-			)
-			.build();
+		Event event = buildUrlVariablesRequest();
 
 		when(
 			mockExtensionApi.getSharedState(
@@ -166,53 +232,100 @@ public class IdentityExtensionTests {
 		)
 			.thenReturn(null);
 
-		// test and verify
+		// test and verify, the request waits for configuration without blocking the other events
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
-		assertFalse(extension.readyForEvent(event));
+		assertTrue(extension.readyForEvent(event));
 	}
 
 	@Test
-	public void test_readyForEvent_GetUrlVariablesRequest_ConfigurationStatePending() {
+	public void test_handleRequestIdentity_GetUrlVariablesRequest_ConfigurationStatePending_waitsForConfiguration() {
 		// setup
 		when(mockIdentityState.bootupIfReady(any())).thenReturn(true);
-		Event event = new Event.Builder("Test event", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
+
+		final Event urlVariablesEvent = buildUrlVariablesRequest();
+		final Event updateEvent = buildUpdateIdentityRequest(createXDMIdentityMap(new TestItem("CRMID", "crmId")));
+		final Event configurationEvent = new Event.Builder(
+			"Shared state update",
+			EventType.HUB,
+			EventSource.SHARED_STATE
+		)
 			.setEventData(
-				new HashMap<String, Object>() {
-					{
-						put("urlvariables", true);
-					}
-				}
+				Collections.singletonMap(
+					IdentityConstants.EventDataKeys.STATE_OWNER,
+					IdentityConstants.SharedState.Configuration.NAME
+				)
 			)
 			.build();
+		final SharedStateResult configurationState = new SharedStateResult(
+			SharedStateStatus.SET,
+			Collections.singletonMap(IdentityConstants.SharedState.Configuration.EXPERIENCE_CLOUD_ORGID, "SomeOrgId@AdobeOrg")
+		);
 
 		when(
 			mockExtensionApi.getSharedState(
 				IdentityConstants.SharedState.Configuration.NAME,
-				event,
+				urlVariablesEvent,
 				false,
 				SharedStateResolution.LAST_SET
 			)
 		)
 			.thenReturn(new SharedStateResult(SharedStateStatus.PENDING, null));
 
-		// test and verify
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
-		assertFalse(extension.readyForEvent(event));
+
+		// test, the request is parked and the update is still handled
+		assertTrue(extension.readyForEvent(urlVariablesEvent));
+		extension.handleRequestIdentity(urlVariablesEvent);
+		assertTrue(extension.readyForEvent(updateEvent));
+		extension.handleUpdateIdentities(updateEvent);
+
+		verify(mockIdentityState).updateCustomerIdentifiers(any());
+		verify(mockExtensionApi, never()).dispatch(any());
+
+		// configuration is set
+		when(
+			mockExtensionApi.getSharedState(
+				IdentityConstants.SharedState.Configuration.NAME,
+				urlVariablesEvent,
+				false,
+				SharedStateResolution.LAST_SET
+			)
+		)
+			.thenReturn(configurationState);
+		when(
+			mockExtensionApi.getSharedState(
+				IdentityConstants.SharedState.Configuration.NAME,
+				configurationEvent,
+				false,
+				SharedStateResolution.LAST_SET
+			)
+		)
+			.thenReturn(configurationState);
+
+		extension.handleSharedStateUpdate(configurationEvent);
+
+		// verify the parked request is answered
+		final ArgumentCaptor<Event> responseEventCaptor = ArgumentCaptor.forClass(Event.class);
+		verify(mockExtensionApi).dispatch(responseEventCaptor.capture());
+		final Event responseEvent = responseEventCaptor.getValue();
+		assertEquals(urlVariablesEvent.getUniqueIdentifier(), responseEvent.getResponseID());
+		assertTrue(((String) responseEvent.getEventData().get("urlvariables")).contains("SomeOrgId%40AdobeOrg"));
+
+		// the request is only answered once
+		extension.handleSharedStateUpdate(configurationEvent);
+		verify(mockExtensionApi).dispatch(any());
 	}
 
 	@Test
-	public void test_readyForEvent_GetUrlVariablesRequest_ConfigurationStateSet() {
+	public void test_handleRequestIdentity_GetUrlVariablesRequest_ConfigurationStateSet_dispatchesResponse() {
 		// setup
-		when(mockIdentityState.bootupIfReady(any())).thenReturn(true);
-		Event event = new Event.Builder("Test event", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
-			.setEventData(
-				new HashMap<String, Object>() {
-					{
-						put("urlvariables", true);
-					}
-				}
-			)
-			.build();
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
+		Event event = buildUrlVariablesRequest();
 
 		when(
 			mockExtensionApi.getSharedState(
@@ -224,9 +337,14 @@ public class IdentityExtensionTests {
 		)
 			.thenReturn(new SharedStateResult(SharedStateStatus.SET, Collections.EMPTY_MAP));
 
-		// test and verify
+		// test
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
-		assertTrue(extension.readyForEvent(event));
+		extension.handleRequestIdentity(event);
+
+		// verify
+		final ArgumentCaptor<Event> responseEventCaptor = ArgumentCaptor.forClass(Event.class);
+		verify(mockExtensionApi).dispatch(responseEventCaptor.capture());
+		assertEquals(event.getUniqueIdentifier(), responseEventCaptor.getValue().getResponseID());
 	}
 
 	@Test
@@ -273,12 +391,68 @@ public class IdentityExtensionTests {
 		assertEquals(ecid, properties.getECID().toString());
 	}
 
+	@Test
+	public void test_handleRequestIdentity_metricsRequest_dispatchesAggregatedMetrics() {
+		// setup
+		IdentityMetrics.setAggregationEnabled(true);
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
+
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+		extension.handleRequestIdentity(
+			new Event.Builder("Get identities", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY).build()
+		);
+
+		final Event event = new Event.Builder("Get metrics", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
+			.setEventData(Collections.singletonMap(IdentityConstants.EventDataKeys.METRICS, true))
+			.build();
+		final ArgumentCaptor<Event> responseEventCaptor = ArgumentCaptor.forClass(Event.class);
+
+		// test
+		extension.handleRequestIdentity(event);
+
+		// verify
+		verify(mockExtensionApi, times(2)).dispatch(responseEventCaptor.capture());
+		final Event metricsResponseEvent = responseEventCaptor.getAllValues().get(1);
+		assertEquals(IdentityConstants.EventNames.IDENTITY_RESPONSE_METRICS, metricsResponseEvent.getName());
+		assertEquals(event.getUniqueIdentifier(), metricsResponseEvent.getResponseID());
+
+		final Map<String, Object> metrics = (Map<String, Object>) metricsResponseEvent
+			.getEventData()
+			.get(IdentityConstants.EventDataKeys.METRICS);
+		final Map<String, Object> getIdentities = (Map<String, Object>) metrics.get(IdentityMetrics.GET_IDENTITIES);
+		assertEquals(1L, getIdentities.get(IdentityConstants.EventDataKeys.Metrics.COUNT));
+		assertEquals(1L, getIdentities.get(IdentityConstants.EventDataKeys.Metrics.MAX_SIZE));
+	}
+
+	@Test
+	public void test_handleRequestIdentity_metricsRequest_whenAggregationDisabled_dispatchesEmptyMetrics() {
+		// setup
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+		final Event event = new Event.Builder("Get metrics", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
+			.setEventData(Collections.singletonMap(IdentityConstants.EventDataKeys.METRICS, true))
+			.build();
+		final ArgumentCaptor<Event> responseEventCaptor = ArgumentCaptor.forClass(Event.class);
+
+		// test
+		extension.handleRequestIdentity(event);
+
+		// verify
+		verify(mockExtensionApi).dispatch(responseEventCaptor.capture());
+		assertEquals(
+			Collections.EMPTY_MAP,
+			responseEventCaptor.getValue().getEventData().get(IdentityConstants.EventDataKeys.METRICS)
+		);
+		verify(mockIdentityState, never()).getIdentityProperties();
+	}
+
 	// ========================================================================================
-	// handleIdentityDirectECIDUpdate
+	// handleSharedStateUpdate - Identity Direct
 	// ========================================================================================
 
 	@Test
-	public void test_handleIdentityDirectECIDUpdate_notAnIdentityDirectStateUpdate() {
+	public void test_handleSharedStateUpdate_notAnIdentityDirectStateUpdate() {
 		final Event event = new Event.Builder(
 			"Not an IdentityDirect State event",
 			EventType.HUB,
@@ -294,7 +468,7 @@ public class IdentityExtensionTests {
 			.build();
 
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
-		extension.handleIdentityDirectECIDUpdate(event);
+		extension.handleSharedStateUpdate(event);
 
 		verify(mockExtensionApi, never()).getSharedState(any(), any(), anyBoolean(), any());
 		verify(mockIdentityState, never()).updateLegacyExperienceCloudId(any());
@@ -302,7 +476,7 @@ public class IdentityExtensionTests {
 	}
 
 	@Test
-	public void test_handleIdentityDirectECIDUpdate_identityDirectStateResultIsNull() {
+	public void test_handleSharedStateUpdate_identityDirectStateResultIsNull() {
 		final Event event = new Event.Builder("IdentityDirect State event", EventType.HUB, EventSource.SHARED_STATE)
 			.setEventData(
 				new HashMap<String, Object>() {
@@ -326,7 +500,7 @@ public class IdentityExtensionTests {
 			.thenReturn(null);
 
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
-		extension.handleIdentityDirectECIDUpdate(event);
+		extension.handleSharedStateUpdate(event);
 
 		verify(mockExtensionApi)
 			.getSharedState(
@@ -340,7 +514,7 @@ public class IdentityExtensionTests {
 	}
 
 	@Test
-	public void test_handleIdentityDirectECIDUpdate_identityDirectStateIsNull() {
+	public void test_handleSharedStateUpdate_identityDirectStateIsNull() {
 		final Event event = new Event.Builder("IdentityDirect State event", EventType.HUB, EventSource.SHARED_STATE)
 			.setEventData(
 				new HashMap<String, Object>() {
@@ -364,7 +538,7 @@ public class IdentityExtensionTests {
 			.thenReturn(new SharedStateResult(SharedStateStatus.SET, null));
 
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
-		extension.handleIdentityDirectECIDUpdate(event);
+		extension.handleSharedStateUpdate(event);
 
 		verify(mockExtensionApi)
 			.getSharedState(
@@ -378,7 +552,7 @@ public class IdentityExtensionTests {
 	}
 
 	@Test
-	public void test_handleIdentityDirectECIDUpdate_legacyEcidUpdateFailed() {
+	public void test_handleSharedStateUpdate_identityDirectLegacyEcidUpdateFailed() {
 		final Event event = new Event.Builder("IdentityDirect State event", EventType.HUB, EventSource.SHARED_STATE)
 			.setEventData(
 				new HashMap<String, Object>() {
@@ -409,7 +583,7 @@ public class IdentityExtensionTests {
 		when(mockIdentityState.updateLegacyExperienceCloudId(any())).thenReturn(false);
 
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
-		extension.handleIdentityDirectECIDUpdate(event);
+		extension.handleSharedStateUpdate(event);
 
 		verify(mockExtensionApi)
 			.getSharedState(
@@ -423,7 +597,7 @@ public class IdentityExtensionTests {
 	}
 
 	@Test
-	public void test_handleIdentityDirectECIDUpdate_identityDirectStateValidECID() {
+	public void test_handleSharedStateUpdate_identityDirectStateValidECID() {
 		final Event event = new Event.Builder("IdentityDirect State event", EventType.HUB, EventSource.SHARED_STATE)
 			.setEventData(
 				new HashMap<String, Object>() {
@@ -464,7 +638,7 @@ public class IdentityExtensionTests {
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
 		when(mockIdentityState.getIdentityProperties()).thenReturn(new IdentityProperties());
 
-		extension.handleIdentityDirectECIDUpdate(event);
+		extension.handleSharedStateUpdate(event);
 
 		verify(mockExtensionApi)
 			.getSharedState(
@@ -494,16 +668,7 @@ public class IdentityExtensionTests {
 				}
 			)
 			.build();
-		// Simulate null config state
-		when(
-			mockExtensionApi.getSharedState(
-				IdentityConstants.SharedState.Configuration.NAME,
-				event,
-				false,
-				SharedStateResolution.LAST_SET
-			)
-		)
-			.thenReturn(null);
+		// no Configuration shared state update handled yet
 
 		final IdentityProperties properties = new IdentityProperties();
 		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
@@ -512,7 +677,7 @@ public class IdentityExtensionTests {
 		final ArgumentCaptor<Event> responseEventCaptor = ArgumentCaptor.forClass(Event.class);
 
 		// test
-		extension.handleUrlVariablesRequest(event);
+		extension.handleUrlVariablesRequest(EventUtils.decodeIdentityRequest(event));
 
 		// verify that response event is dispatched
 		verify(mockExtensionApi).dispatch(responseEventCaptor.capture());
@@ -565,7 +730,7 @@ public class IdentityExtensionTests {
 		final ArgumentCaptor<Event> responseEventCaptor = ArgumentCaptor.forClass(Event.class);
 
 		// test
-		extension.handleUrlVariablesRequest(event);
+		extension.handleRequestIdentity(event);
 
 		// verify that response event is dispatched
 		verify(mockExtensionApi).dispatch(responseEventCaptor.capture());
@@ -621,7 +786,7 @@ public class IdentityExtensionTests {
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
 
 		// test
-		extension.handleUrlVariablesRequest(event);
+		extension.handleRequestIdentity(event);
 
 		// verify that response event is dispatched
 		final ArgumentCaptor<Event> responseEventCaptor = ArgumentCaptor.forClass(Event.class);
@@ -646,65 +811,229 @@ public class IdentityExtensionTests {
 		assertTrue(urlvariables.contains(expectedUrlVariableIdentifiersString));
 	}
 
-	// ========================================================================================
-	// handleUpdateIdentities
-	// ========================================================================================
-
 	@Test
-	public void test_handleUpdateIdentities_whenValidData_updatesCustomerIdentifiers_updatesSharedState() {
+	public void test_handleUrlVariablesRequest_withUrls_returnsDecoratedUrls() {
 		// setup
+		Event event = new Event.Builder("Test event", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
+			.setEventData(
+				new HashMap<String, Object>() {
+					{
+						put("urlvariables", true);
+						put("urls", Arrays.asList("https://example.com", "https://example.com/page?a=b#top", ""));
+					}
+				}
+			)
+			.build();
+
+		final SharedStateResult configSharedStateResult = new SharedStateResult(
+			SharedStateStatus.SET,
+			Collections.singletonMap(
+				IdentityConstants.SharedState.Configuration.EXPERIENCE_CLOUD_ORGID,
+				"SomeOrgId@AdobeOrg"
+			)
+		);
+		when(
+			mockExtensionApi.getSharedState(
+				IdentityConstants.SharedState.Configuration.NAME,
+				event,
+				false,
+				SharedStateResolution.LAST_SET
+			)
+		)
+			.thenReturn(configSharedStateResult);
+
 		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
 		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
 
-		// simulate an update to the identity properties
-		doAnswer(invocation -> {
-				final IdentityMap arg = (IdentityMap) invocation.getArgument(0);
-				properties.updateCustomerIdentifiers(arg);
-				return null;
-			})
-			.when(mockIdentityState)
-			.updateCustomerIdentifiers(any());
-		when(mockExtensionApi.createPendingXDMSharedState(any())).thenReturn(mockSharedStateResolver);
-
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
 
 		// test
-		final Map<String, Object> identityXDM = createXDMIdentityMap(
-			new TestItem("id1", "somevalue"),
-			new TestItem("id2", "othervalue")
-		);
-		final Event updateIdentityEvent = new Event.Builder(
-			"Update Identity Event",
-			EventType.EDGE_IDENTITY,
-			EventSource.UPDATE_IDENTITY
-		)
-			.setEventData(identityXDM)
-			.build();
-		extension.handleUpdateIdentities(updateIdentityEvent);
-
-		// verify identifiers updated
-		final ArgumentCaptor<IdentityMap> identityMapCaptor = ArgumentCaptor.forClass(IdentityMap.class);
-		verify(mockIdentityState).updateCustomerIdentifiers(identityMapCaptor.capture());
-		assertEquals(identityXDM, identityMapCaptor.getValue().asXDMMap(false));
+		extension.handleRequestIdentity(event);
 
-		// verify pending state is created and resolved
-		verify(mockExtensionApi).createPendingXDMSharedState(eq(updateIdentityEvent));
-		verify(mockSharedStateResolver).resolve(eq(properties.toXDMData(false)));
+		// verify a single response event contains all the decorated urls
+		final ArgumentCaptor<Event> responseEventCaptor = ArgumentCaptor.forClass(Event.class);
+		verify(mockExtensionApi).dispatch(responseEventCaptor.capture());
+		final Map<String, Object> data = responseEventCaptor.getValue().getEventData();
+		final String urlVariables = (String) data.get("urlvariables");
 
-		verify(mockExtensionApi, never()).dispatch(any());
+		assertNotNull(urlVariables);
+		assertEquals(
+			Arrays.asList(
+				"https://example.com?" + urlVariables,
+				"https://example.com/page?a=b&" + urlVariables + "#top",
+				""
+			),
+			data.get("urls")
+		);
 	}
 
 	@Test
-	public void test_handleUpdateIdentities_nullEventData_returns() {
+	public void test_handleUrlVariablesRequest_whenECIDChanges_returnsUrlVariablesWithNewECID() {
 		// setup
+		Event event = new Event.Builder("Test event", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
+			.setEventData(
+				new HashMap<String, Object>() {
+					{
+						put("urlvariables", true);
+					}
+				}
+			)
+			.build();
+
+		final SharedStateResult configSharedStateResult = new SharedStateResult(
+			SharedStateStatus.SET,
+			Collections.singletonMap(
+				IdentityConstants.SharedState.Configuration.EXPERIENCE_CLOUD_ORGID,
+				"SomeOrgId@AdobeOrg"
+			)
+		);
+		when(
+			mockExtensionApi.getSharedState(
+				IdentityConstants.SharedState.Configuration.NAME,
+				event,
+				false,
+				SharedStateResolution.LAST_SET
+			)
+		)
+			.thenReturn(configSharedStateResult);
+
 		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		final ECID initialECID = properties.getECID();
 		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
-		when(mockExtensionApi.createPendingXDMSharedState(any())).thenReturn(mockSharedStateResolver);
 
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
 
 		// test
-		final Event updateIdentityEvent = new Event.Builder(
+		extension.handleRequestIdentity(event);
+		properties.setECID(new ECID());
+		extension.handleRequestIdentity(event);
+
+		// verify
+		final ArgumentCaptor<Event> responseEventCaptor = ArgumentCaptor.forClass(Event.class);
+		verify(mockExtensionApi, times(2)).dispatch(responseEventCaptor.capture());
+		final String firstUrlVariables = (String) responseEventCaptor
+			.getAllValues()
+			.get(0)
+			.getEventData()
+			.get("urlvariables");
+		final String secondUrlVariables = (String) responseEventCaptor
+			.getAllValues()
+			.get(1)
+			.getEventData()
+			.get("urlvariables");
+
+		assertTrue(firstUrlVariables.contains("%7CMCMID%3D" + initialECID + "%7CMCORGID%3DSomeOrgId%40AdobeOrg"));
+		assertTrue(
+			secondUrlVariables.contains("%7CMCMID%3D" + properties.getECID() + "%7CMCORGID%3DSomeOrgId%40AdobeOrg")
+		);
+	}
+
+	@Test
+	public void test_handleUrlVariablesRequest_usesOrgIdFromConfigurationUpdates() {
+		// setup
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		final Event firstConfigurationEvent = buildConfigurationSharedStateEvent("FirstOrgId@AdobeOrg");
+		final Event firstRequest = buildUrlVariablesRequest();
+		final Event secondConfigurationEvent = buildConfigurationSharedStateEvent("SecondOrgId@AdobeOrg");
+		final Event secondRequest = buildUrlVariablesRequest();
+
+		// test
+		extension.handleSharedStateUpdate(firstConfigurationEvent);
+		extension.handleRequestIdentity(firstRequest);
+		extension.handleSharedStateUpdate(secondConfigurationEvent);
+		extension.handleRequestIdentity(secondRequest);
+
+		// verify the requests use the Org ID cached from the updates, without reading the shared state
+		verify(mockExtensionApi, never())
+			.getSharedState(
+				IdentityConstants.SharedState.Configuration.NAME,
+				firstRequest,
+				false,
+				SharedStateResolution.LAST_SET
+			);
+		verify(mockExtensionApi, never())
+			.getSharedState(
+				IdentityConstants.SharedState.Configuration.NAME,
+				secondRequest,
+				false,
+				SharedStateResolution.LAST_SET
+			);
+
+		final ArgumentCaptor<Event> responseEventCaptor = ArgumentCaptor.forClass(Event.class);
+		verify(mockExtensionApi, times(2)).dispatch(responseEventCaptor.capture());
+		assertTrue(
+			((String) responseEventCaptor.getAllValues().get(0).getEventData().get("urlvariables")).contains(
+					"MCORGID%3DFirstOrgId%40AdobeOrg"
+				)
+		);
+		assertTrue(
+			((String) responseEventCaptor.getAllValues().get(1).getEventData().get("urlvariables")).contains(
+					"MCORGID%3DSecondOrgId%40AdobeOrg"
+				)
+		);
+	}
+
+	// ========================================================================================
+	// handleUpdateIdentities
+	// ========================================================================================
+
+	@Test
+	public void test_handleUpdateIdentities_whenValidData_updatesCustomerIdentifiers_updatesSharedState() {
+		// setup
+		final IdentityProperties properties = new IdentityProperties();
+		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
+
+		// simulate an update to the identity properties
+		doAnswer(invocation -> {
+				final IdentityMap arg = (IdentityMap) invocation.getArgument(0);
+				return properties.updateCustomerIdentifiers(arg);
+			})
+			.when(mockIdentityState)
+			.updateCustomerIdentifiers(any());
+
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		// test
+		final Map<String, Object> identityXDM = createXDMIdentityMap(
+			new TestItem("id1", "somevalue"),
+			new TestItem("id2", "othervalue")
+		);
+		final Event updateIdentityEvent = new Event.Builder(
+			"Update Identity Event",
+			EventType.EDGE_IDENTITY,
+			EventSource.UPDATE_IDENTITY
+		)
+			.setEventData(identityXDM)
+			.build();
+		extension.handleUpdateIdentities(updateIdentityEvent);
+
+		// verify identifiers updated
+		final ArgumentCaptor<IdentityMap> identityMapCaptor = ArgumentCaptor.forClass(IdentityMap.class);
+		verify(mockIdentityState).updateCustomerIdentifiers(identityMapCaptor.capture());
+		assertEquals(identityXDM, identityMapCaptor.getValue().asXDMMap(false));
+
+		// verify shared state is created
+		verify(mockExtensionApi).createXDMSharedState(eq(properties.toXDMData(false)), eq(updateIdentityEvent));
+
+		verify(mockExtensionApi, never()).dispatch(any());
+	}
+
+	@Test
+	public void test_handleUpdateIdentities_nullEventData_returns() {
+		// setup
+		final IdentityProperties properties = new IdentityProperties();
+		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
+
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		// test
+		final Event updateIdentityEvent = new Event.Builder(
 			"Update Identity Event",
 			EventType.EDGE_IDENTITY,
 			EventSource.UPDATE_IDENTITY
@@ -717,9 +1046,9 @@ public class IdentityExtensionTests {
 		// verify that no event is dispatched
 		verify(mockExtensionApi, never()).dispatch(any());
 
-		// verify pending state is created and resolved
-		verify(mockExtensionApi).createPendingXDMSharedState(eq(updateIdentityEvent));
-		verify(mockSharedStateResolver).resolve(eq(properties.toXDMData(false)));
+		// verify no shared state is created
+		verify(mockExtensionApi, never()).createPendingXDMSharedState(any());
+		verify(mockExtensionApi, never()).createXDMSharedState(any(), any());
 	}
 
 	@Test
@@ -727,7 +1056,6 @@ public class IdentityExtensionTests {
 		// setup
 		final IdentityProperties properties = new IdentityProperties();
 		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
-		when(mockExtensionApi.createPendingXDMSharedState(any())).thenReturn(mockSharedStateResolver);
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
 
 		// test
@@ -745,9 +1073,121 @@ public class IdentityExtensionTests {
 		// verify that no event is dispatched
 		verify(mockExtensionApi, never()).dispatch(any());
 
-		// verify pending state is created and resolved
-		verify(mockExtensionApi).createPendingXDMSharedState(eq(updateIdentityEvent));
-		verify(mockSharedStateResolver).resolve(eq(properties.toXDMData(false)));
+		// verify no shared state is created
+		verify(mockExtensionApi, never()).createPendingXDMSharedState(any());
+		verify(mockExtensionApi, never()).createXDMSharedState(any(), any());
+	}
+
+	@Test
+	public void test_handleUpdateIdentities_whenIdentifiersNotModified_doesNotUpdateSharedState() {
+		// setup
+		when(mockIdentityState.updateCustomerIdentifiers(any())).thenReturn(false);
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		// test
+		final Event updateIdentityEvent = new Event.Builder(
+			"Update Identity Event",
+			EventType.EDGE_IDENTITY,
+			EventSource.UPDATE_IDENTITY
+		)
+			.setEventData(createXDMIdentityMap(new TestItem("id1", "somevalue")))
+			.build();
+		extension.handleUpdateIdentities(updateIdentityEvent);
+
+		// verify
+		verify(mockIdentityState).updateCustomerIdentifiers(any());
+		verify(mockExtensionApi, never()).createPendingXDMSharedState(any());
+		verify(mockExtensionApi, never()).createXDMSharedState(any(), any());
+	}
+
+	@Test
+	public void test_handleUpdateIdentities_withRemovedIdentities_ignoresRemovedIdentities() {
+		// setup
+		when(mockIdentityState.updateCustomerIdentifiers(any())).thenReturn(true);
+		when(mockIdentityState.getIdentityProperties()).thenReturn(new IdentityProperties());
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		// test
+		final Map<String, Object> eventData = new HashMap<>(createXDMIdentityMap(new TestItem("CRMID", "crmId")));
+		eventData.put(
+			IdentityConstants.EventDataKeys.REMOVED_IDENTITIES,
+			createXDMIdentityMap(new TestItem("anonymous", "anonymousId"))
+		);
+		extension.handleUpdateIdentities(buildUpdateIdentityRequest(eventData));
+
+		// verify, removals are only applied by apply identity changes events
+		verify(mockIdentityState).updateCustomerIdentifiers(any());
+		verify(mockIdentityState, never()).applyCustomerIdentifierChanges(any(), any());
+		verify(mockIdentityState, never()).removeCustomerIdentifiers(any());
+	}
+
+	// ========================================================================================
+	// handleApplyIdentityChanges
+	// ========================================================================================
+	@Test
+	public void test_handleApplyIdentityChanges_appliesChangesWithSingleSharedState() {
+		// setup
+		final IdentityProperties properties = new IdentityProperties(
+			createXDMIdentityMap(new TestItem("anonymous", "anonymousId"))
+		);
+		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
+		doAnswer(invocation ->
+				properties.applyCustomerIdentifierChanges(invocation.getArgument(0), invocation.getArgument(1))
+			)
+			.when(mockIdentityState)
+			.applyCustomerIdentifierChanges(any(), any());
+
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		// test
+		final Map<String, Object> eventData = new HashMap<>(createXDMIdentityMap(new TestItem("CRMID", "crmId")));
+		eventData.put(
+			IdentityConstants.EventDataKeys.REMOVED_IDENTITIES,
+			createXDMIdentityMap(new TestItem("anonymous", "anonymousId"))
+		);
+		final Event applyChangesEvent = buildApplyIdentityChangesRequest(eventData);
+		extension.handleApplyIdentityChanges(applyChangesEvent);
+
+		// verify
+		verify(mockIdentityState, never()).updateCustomerIdentifiers(any());
+		verify(mockIdentityState, never()).removeCustomerIdentifiers(any());
+		assertEquals(createXDMIdentityMap(new TestItem("CRMID", "crmId")), properties.toXDMData(false));
+		verify(mockExtensionApi, times(1)).createXDMSharedState(any(), any());
+		verify(mockExtensionApi).createXDMSharedState(eq(properties.toXDMData(false)), eq(applyChangesEvent));
+	}
+
+	@Test
+	public void test_handleApplyIdentityChanges_notModified_doesNotUpdateSharedState() {
+		// setup
+		when(mockIdentityState.applyCustomerIdentifierChanges(any(), any())).thenReturn(false);
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		// test
+		final Event applyChangesEvent = buildApplyIdentityChangesRequest(
+			Collections.singletonMap(
+				IdentityConstants.EventDataKeys.REMOVED_IDENTITIES,
+				createXDMIdentityMap(new TestItem("anonymous", "anonymousId"))
+			)
+		);
+		extension.handleApplyIdentityChanges(applyChangesEvent);
+
+		// verify
+		verify(mockIdentityState).applyCustomerIdentifierChanges(eq(null), any());
+		verify(mockExtensionApi, never()).createXDMSharedState(any(), any());
+	}
+
+	@Test
+	public void test_handleApplyIdentityChanges_noIdentities_doesNotApplyChanges() {
+		// setup
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		// test
+		extension.handleApplyIdentityChanges(buildApplyIdentityChangesRequest(Collections.EMPTY_MAP));
+		extension.handleApplyIdentityChanges(buildApplyIdentityChangesRequest(null));
+
+		// verify
+		verify(mockIdentityState, never()).applyCustomerIdentifierChanges(any(), any());
+		verify(mockExtensionApi, never()).createXDMSharedState(any(), any());
 	}
 
 	// ========================================================================================
@@ -767,15 +1207,13 @@ public class IdentityExtensionTests {
 				@Override
 				public Object answer(InvocationOnMock invocation) throws Throwable {
 					final IdentityMap args = (IdentityMap) invocation.getArgument(0);
-					properties.removeCustomerIdentifiers(args);
-					return null;
+					return properties.removeCustomerIdentifiers(args);
 				}
 			}
 		)
 			.when(mockIdentityState)
 			.removeCustomerIdentifiers(any());
 
-		when(mockExtensionApi.createPendingXDMSharedState(any())).thenReturn(mockSharedStateResolver);
 
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
 
@@ -792,9 +1230,8 @@ public class IdentityExtensionTests {
 			removedIdentityMapCaptor.getValue().toString()
 		);
 
-		// verify pending state is created and resolved
-		verify(mockExtensionApi).createPendingXDMSharedState(eq(removeIdentityEvent));
-		verify(mockSharedStateResolver).resolve(eq(properties.toXDMData(false)));
+		// verify shared state is created
+		verify(mockExtensionApi).createXDMSharedState(eq(properties.toXDMData(false)), eq(removeIdentityEvent));
 	}
 
 	@Test
@@ -806,7 +1243,6 @@ public class IdentityExtensionTests {
 		);
 		final IdentityProperties properties = new IdentityProperties(identityXDM);
 		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
-		when(mockExtensionApi.createPendingXDMSharedState(any())).thenReturn(mockSharedStateResolver);
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
 
 		// test
@@ -816,9 +1252,9 @@ public class IdentityExtensionTests {
 		// verify identifiers not removed
 		verify(mockIdentityState, never()).removeCustomerIdentifiers(any());
 
-		// verify pending state is created and resolved
-		verify(mockExtensionApi).createPendingXDMSharedState(eq(removeIdentityEvent));
-		verify(mockSharedStateResolver).resolve(eq(properties.toXDMData(false)));
+		// verify no shared state is created
+		verify(mockExtensionApi, never()).createPendingXDMSharedState(any());
+		verify(mockExtensionApi, never()).createXDMSharedState(any(), any());
 	}
 
 	@Test
@@ -826,7 +1262,6 @@ public class IdentityExtensionTests {
 		// setup
 		final IdentityProperties properties = new IdentityProperties();
 		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
-		when(mockExtensionApi.createPendingXDMSharedState(any())).thenReturn(mockSharedStateResolver);
 		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
 
 		// test
@@ -836,9 +1271,130 @@ public class IdentityExtensionTests {
 		// verify identifiers not removed
 		verify(mockIdentityState, never()).removeCustomerIdentifiers(any());
 
-		// verify pending state is created and resolved
-		verify(mockExtensionApi).createPendingXDMSharedState(eq(notARemoveIdentityEvent));
-		verify(mockSharedStateResolver).resolve(eq(properties.toXDMData(false)));
+		// verify no shared state is created
+		verify(mockExtensionApi, never()).createPendingXDMSharedState(any());
+		verify(mockExtensionApi, never()).createXDMSharedState(any(), any());
+	}
+
+	@Test
+	public void test_handleRemoveIdentity_whenIdentifiersNotModified_doesNotUpdateSharedState() {
+		// setup
+		when(mockIdentityState.removeCustomerIdentifiers(any())).thenReturn(false);
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		// test
+		extension.handleRemoveIdentity(
+			buildRemoveIdentityRequest(createXDMIdentityMap(new TestItem("UserId", "unknownID")))
+		);
+
+		// verify
+		verify(mockIdentityState).removeCustomerIdentifiers(any());
+		verify(mockExtensionApi, never()).createPendingXDMSharedState(any());
+		verify(mockExtensionApi, never()).createXDMSharedState(any(), any());
+	}
+
+	// ========================================================================================
+	// update coalescing
+	// ========================================================================================
+	@Test
+	public void test_handleUpdateAndRemove_coalescingEnabled_createsOnePendingSharedState() {
+		// setup
+		final IdentityProperties properties = new IdentityProperties();
+		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
+		when(mockIdentityState.bootupIfReady(any())).thenReturn(true);
+		when(mockIdentityState.getUpdateCoalescingWindow()).thenReturn(60000L);
+		doAnswer(invocation -> properties.updateCustomerIdentifiers(invocation.getArgument(0)))
+			.when(mockIdentityState)
+			.updateCustomerIdentifiers(any());
+		doAnswer(invocation -> properties.removeCustomerIdentifiers(invocation.getArgument(0)))
+			.when(mockIdentityState)
+			.removeCustomerIdentifiers(any());
+		when(mockExtensionApi.createPendingXDMSharedState(any())).thenReturn(mockSharedStateResolver);
+
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		final Event removeAnonymousEvent = buildRemoveIdentityRequest(
+			createXDMIdentityMap(new TestItem("anonymous", "anonymousId"))
+		);
+		final Event addCrmEvent = buildUpdateIdentityRequest(createXDMIdentityMap(new TestItem("CRMID", "crmId")));
+		final Event addEmailEvent = buildUpdateIdentityRequest(createXDMIdentityMap(new TestItem("Email", "hash")));
+		properties.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(createXDMIdentityMap(new TestItem("anonymous", "anonymousId")))
+		);
+
+		// test
+		for (final Event event : Arrays.asList(removeAnonymousEvent, addCrmEvent, addEmailEvent)) {
+			assertTrue(extension.readyForEvent(event));
+
+			if (EventSource.REMOVE_IDENTITY.equals(event.getSource())) {
+				extension.handleRemoveIdentity(event);
+			} else {
+				extension.handleUpdateIdentities(event);
+			}
+		}
+
+		// verify a single pending shared state was created for the first event, not yet resolved
+		verify(mockExtensionApi).createPendingXDMSharedState(removeAnonymousEvent);
+		verify(mockExtensionApi, never()).createXDMSharedState(any(), any());
+		verify(mockSharedStateResolver, never()).resolve(any());
+		verify(mockIdentityState, never()).flushPersistence();
+
+		// any other event resolves the pending shared state with the net identities
+		final Event requestEvent = new Event.Builder("Request", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
+			.build();
+		assertTrue(extension.readyForEvent(requestEvent));
+
+		final Map<String, Object> expectedXDM = createXDMIdentityMap(
+			new TestItem("CRMID", "crmId"),
+			new TestItem("Email", "hash")
+		);
+		verify(mockSharedStateResolver).resolve(expectedXDM);
+		verify(mockExtensionApi).createPendingXDMSharedState(any());
+		// the identities of the burst are persisted once
+		verify(mockIdentityState, times(1)).flushPersistence();
+	}
+
+	@Test
+	public void test_handleUpdateIdentities_coalescingEnabled_pendingSharedStateUnavailable_createsSharedState() {
+		// setup
+		final IdentityProperties properties = new IdentityProperties();
+		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
+		when(mockIdentityState.getUpdateCoalescingWindow()).thenReturn(60000L);
+		doAnswer(invocation -> properties.updateCustomerIdentifiers(invocation.getArgument(0)))
+			.when(mockIdentityState)
+			.updateCustomerIdentifiers(any());
+		when(mockExtensionApi.createPendingXDMSharedState(any())).thenReturn(null);
+
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+
+		// test
+		final Event updateIdentityEvent = buildUpdateIdentityRequest(createXDMIdentityMap(new TestItem("id", "value")));
+		extension.handleUpdateIdentities(updateIdentityEvent);
+
+		// verify
+		verify(mockExtensionApi).createXDMSharedState(eq(properties.toXDMData(false)), eq(updateIdentityEvent));
+		verify(mockIdentityState).flushPersistence();
+	}
+
+	@Test
+	public void test_onUnregistered_resolvesPendingCoalescedSharedState() {
+		// setup
+		final IdentityProperties properties = new IdentityProperties();
+		when(mockIdentityState.getIdentityProperties()).thenReturn(properties);
+		when(mockIdentityState.getUpdateCoalescingWindow()).thenReturn(60000L);
+		doAnswer(invocation -> properties.updateCustomerIdentifiers(invocation.getArgument(0)))
+			.when(mockIdentityState)
+			.updateCustomerIdentifiers(any());
+		when(mockExtensionApi.createPendingXDMSharedState(any())).thenReturn(mockSharedStateResolver);
+
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+		extension.handleUpdateIdentities(buildUpdateIdentityRequest(createXDMIdentityMap(new TestItem("id", "value"))));
+
+		// test
+		extension.onUnregistered();
+
+		// verify
+		verify(mockSharedStateResolver).resolve(properties.toXDMData(false));
 	}
 
 	// ========================================================================================
@@ -867,7 +1423,10 @@ public class IdentityExtensionTests {
 		// Test
 		extension.handleRequestContent(event);
 
-		verify(mockIdentityState).updateAdvertisingIdentifier(eq(event), any(SharedStateCallback.class));
+		final ArgumentCaptor<AdIdRequest> requestCaptor = ArgumentCaptor.forClass(AdIdRequest.class);
+		verify(mockIdentityState).updateAdvertisingIdentifier(requestCaptor.capture(), any(SharedStateCallback.class));
+		assertEquals(event, requestCaptor.getValue().getEvent());
+		assertEquals("adId", requestCaptor.getValue().getAdId());
 	}
 
 	@Test
@@ -892,7 +1451,96 @@ public class IdentityExtensionTests {
 		// Test
 		extension.handleRequestContent(event);
 
-		verify(mockIdentityState, never()).updateAdvertisingIdentifier(eq(event), any(SharedStateCallback.class));
+		verify(mockIdentityState, never()).updateAdvertisingIdentifier(any(), any(SharedStateCallback.class));
+	}
+
+	// ========================================================================================
+	// handleLifecycleRequest
+	// ========================================================================================
+
+	@Test
+	public void test_handleLifecycleRequest_lifecyclePause_flushesPersistence() {
+		final Event event = new Event.Builder("Pause", EventType.GENERIC_LIFECYCLE, EventSource.REQUEST_CONTENT)
+			.setEventData(Collections.singletonMap(IdentityConstants.EventDataKeys.LIFECYCLE_ACTION, "pause"))
+			.build();
+
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+		extension.handleLifecycleRequest(event);
+
+		verify(mockIdentityState).flushPersistence();
+	}
+
+	@Test
+	public void test_handleLifecycleRequest_lifecycleStart_doesNotFlushPersistence() {
+		final Event event = new Event.Builder("Start", EventType.GENERIC_LIFECYCLE, EventSource.REQUEST_CONTENT)
+			.setEventData(Collections.singletonMap(IdentityConstants.EventDataKeys.LIFECYCLE_ACTION, "start"))
+			.build();
+
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+		extension.handleLifecycleRequest(event);
+
+		verify(mockIdentityState, never()).flushPersistence();
+	}
+
+	// ========================================================================================
+	// handleSharedStateUpdate
+	// ========================================================================================
+
+	@Test
+	public void test_handleSharedStateUpdate_configurationState_updatesConfiguration() {
+		final Event event = new Event.Builder("Shared state change", EventType.HUB, EventSource.SHARED_STATE)
+			.setEventData(
+				Collections.singletonMap(
+					IdentityConstants.EventDataKeys.STATE_OWNER,
+					IdentityConstants.SharedState.Configuration.NAME
+				)
+			)
+			.build();
+		final Map<String, Object> configuration = Collections.singletonMap(
+			IdentityConstants.SharedState.Configuration.PERSISTENCE_WRITE_DELAY,
+			1000L
+		);
+		when(
+			mockExtensionApi.getSharedState(
+				IdentityConstants.SharedState.Configuration.NAME,
+				event,
+				false,
+				SharedStateResolution.LAST_SET
+			)
+		)
+			.thenReturn(new SharedStateResult(SharedStateStatus.SET, configuration));
+
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+		extension.handleSharedStateUpdate(event);
+
+		verify(mockIdentityState).updateConfiguration(configuration);
+		verify(mockIdentityState, never()).updateLegacyExperienceCloudId(any());
+	}
+
+	@Test
+	public void test_handleSharedStateUpdate_configurationStatePending_doesNotUpdateConfiguration() {
+		final Event event = new Event.Builder("Shared state change", EventType.HUB, EventSource.SHARED_STATE)
+			.setEventData(
+				Collections.singletonMap(
+					IdentityConstants.EventDataKeys.STATE_OWNER,
+					IdentityConstants.SharedState.Configuration.NAME
+				)
+			)
+			.build();
+		when(
+			mockExtensionApi.getSharedState(
+				IdentityConstants.SharedState.Configuration.NAME,
+				event,
+				false,
+				SharedStateResolution.LAST_SET
+			)
+		)
+			.thenReturn(new SharedStateResult(SharedStateStatus.PENDING, null));
+
+		extension = new IdentityExtension(mockExtensionApi, mockIdentityState);
+		extension.handleSharedStateUpdate(event);
+
+		verify(mockIdentityState, never()).updateConfiguration(any());
 	}
 
 	// ========================================================================================
@@ -918,4 +1566,30 @@ public class IdentityExtensionTests {
 		verify(mockExtensionApi).createPendingXDMSharedState(eq(resetEvent));
 		verify(mockSharedStateResolver).resolve(eq(properties.toXDMData(false)));
 	}
+
+	private Event buildConfigurationSharedStateEvent(final String orgId) {
+		final Event event = new Event.Builder("Shared state update", EventType.HUB, EventSource.SHARED_STATE)
+			.setEventData(
+				Collections.singletonMap(
+					IdentityConstants.EventDataKeys.STATE_OWNER,
+					IdentityConstants.SharedState.Configuration.NAME
+				)
+			)
+			.build();
+		when(
+			mockExtensionApi.getSharedState(
+				IdentityConstants.SharedState.Configuration.NAME,
+				event,
+				false,
+				SharedStateResolution.LAST_SET
+			)
+		)
+			.thenReturn(
+				new SharedStateResult(
+					SharedStateStatus.SET,
+					Collections.singletonMap(IdentityConstants.SharedState.Configuration.EXPERIENCE_CLOUD_ORGID, orgId)
+				)
+			);
+		return event;
+	}
 }
@@ -17,7 +17,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import org.junit.Test;
 
 public class IdentityItemTests {
@@ -181,4 +183,25 @@ public class IdentityItemTests {
 
 		assertFalse(item1.equals(item2));
 	}
+
+	@Test
+	public void testIdentityItem_isEqualIgnoringCase_hasSameHashCode() {
+		IdentityItem item1 = new IdentityItem("John@Example.com", AuthenticatedState.AMBIGUOUS, false);
+		IdentityItem item2 = new IdentityItem("john@EXAMPLE.COM", AuthenticatedState.AUTHENTICATED, true);
+
+		assertTrue(item1.equals(item2));
+		assertEquals(item1.hashCode(), item2.hashCode());
+		assertEquals(item1.hashCode(), new IdentityItem(item1).hashCode());
+	}
+
+	@Test
+	public void testIdentityItem_hashedCollection_dedupesIgnoringCase() {
+		Set<IdentityItem> items = new HashSet<>();
+
+		assertTrue(items.add(new IdentityItem("id")));
+		assertFalse(items.add(new IdentityItem("ID")));
+		assertTrue(items.contains(new IdentityItem("Id")));
+		assertTrue(items.add(new IdentityItem("id2")));
+		assertEquals(2, items.size());
+	}
 }
@@ -0,0 +1,146 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static com.adobe.marketing.mobile.edge.identity.IdentityTestUtil.createXDMIdentityMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IdentityJournalEntryTests {
+
+	@Test
+	public void test_update_roundTrip_appliesUpdate() {
+		final IdentityMap map = IdentityMap.fromXDMMap(
+			createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "secretID"))
+		);
+		final IdentityJournalEntry entry = IdentityJournalEntry.fromJSONString(
+			IdentityJournalEntry.update(map).toJSONString()
+		);
+
+		assertNotNull(entry);
+		assertEquals(IdentityJournalEntry.Operation.UPDATE, entry.getOperation());
+
+		final IdentityProperties properties = new IdentityProperties();
+		entry.applyTo(properties);
+		assertEquals(map.asXDMMap(false), properties.toXDMData(false));
+	}
+
+	@Test
+	public void test_remove_roundTrip_appliesRemove() {
+		final IdentityProperties properties = new IdentityProperties(
+			createXDMIdentityMap(
+				new IdentityTestUtil.TestItem("UserId", "secretID"),
+				new IdentityTestUtil.TestItem("PushId", "token")
+			)
+		);
+		final IdentityMap removed = IdentityMap.fromXDMMap(
+			createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "secretID"))
+		);
+
+		IdentityJournalEntry.fromJSONString(IdentityJournalEntry.remove(removed).toJSONString()).applyTo(properties);
+
+		assertEquals(
+			createXDMIdentityMap(new IdentityTestUtil.TestItem("PushId", "token")),
+			properties.toXDMData(false)
+		);
+	}
+
+	@Test
+	public void test_setECID_roundTrip_appliesECIDs() {
+		final ECID ecid = new ECID();
+		final ECID secondaryEcid = new ECID();
+		final IdentityProperties properties = new IdentityProperties();
+
+		IdentityJournalEntry.fromJSONString(IdentityJournalEntry.setECID(ecid).toJSONString()).applyTo(properties);
+		IdentityJournalEntry
+			.fromJSONString(IdentityJournalEntry.setECIDSecondary(secondaryEcid).toJSONString())
+			.applyTo(properties);
+
+		assertEquals(ecid, properties.getECID());
+		assertEquals(secondaryEcid, properties.getECIDSecondary());
+
+		IdentityJournalEntry.fromJSONString(IdentityJournalEntry.setECIDSecondary(null).toJSONString()).applyTo(properties);
+		assertEquals(ecid, properties.getECID());
+		assertNull(properties.getECIDSecondary());
+	}
+
+	@Test
+	public void test_setAdId_roundTrip_appliesAdId() {
+		final IdentityProperties properties = new IdentityProperties();
+
+		IdentityJournalEntry.fromJSONString(IdentityJournalEntry.setAdId("adId").toJSONString()).applyTo(properties);
+		assertEquals("adId", properties.getAdId());
+
+		IdentityJournalEntry.fromJSONString(IdentityJournalEntry.setAdId("").toJSONString()).applyTo(properties);
+		assertNull(properties.getAdId());
+	}
+
+	@Test
+	public void test_applyChanges_roundTrip_removesThenUpdates() {
+		final IdentityProperties properties = new IdentityProperties(
+			createXDMIdentityMap(
+				new IdentityTestUtil.TestItem("anonymous", "anonymousId"),
+				new IdentityTestUtil.TestItem("PushId", "token")
+			)
+		);
+		final IdentityMap added = IdentityMap.fromXDMMap(
+			createXDMIdentityMap(new IdentityTestUtil.TestItem("CRMID", "crmId"))
+		);
+		final IdentityMap removed = IdentityMap.fromXDMMap(
+			createXDMIdentityMap(new IdentityTestUtil.TestItem("anonymous", "anonymousId"))
+		);
+		final IdentityJournalEntry entry = IdentityJournalEntry.fromJSONString(
+			IdentityJournalEntry.applyChanges(added, removed).toJSONString()
+		);
+
+		assertNotNull(entry);
+		assertEquals(IdentityJournalEntry.Operation.APPLY_CHANGES, entry.getOperation());
+
+		entry.applyTo(properties);
+		assertEquals(
+			createXDMIdentityMap(
+				new IdentityTestUtil.TestItem("PushId", "token"),
+				new IdentityTestUtil.TestItem("CRMID", "crmId")
+			),
+			properties.toXDMData(false)
+		);
+	}
+
+	@Test
+	public void test_applyChanges_onlyRemovals_roundTrip() {
+		final IdentityProperties properties = new IdentityProperties(
+			createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "secretID"))
+		);
+		final IdentityMap removed = IdentityMap.fromXDMMap(
+			createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "secretID"))
+		);
+
+		IdentityJournalEntry
+			.fromJSONString(IdentityJournalEntry.applyChanges(null, removed).toJSONString())
+			.applyTo(properties);
+
+		assertTrue(properties.toXDMData(false).isEmpty());
+	}
+
+	@Test
+	public void test_fromJSONString_invalidEntries_returnNull() {
+		assertNull(IdentityJournalEntry.fromJSONString(null));
+		assertNull(IdentityJournalEntry.fromJSONString("{notjson"));
+		assertNull(IdentityJournalEntry.fromJSONString("{\"op\":\"unknown\"}"));
+		assertNull(IdentityJournalEntry.fromJSONString("{\"op\":\"update\"}"));
+		assertNull(IdentityJournalEntry.fromJSONString("{\"op\":\"applyChanges\"}"));
+	}
+}
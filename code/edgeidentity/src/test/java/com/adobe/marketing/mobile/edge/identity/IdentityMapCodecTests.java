@@ -0,0 +1,150 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+public class IdentityMapCodecTests {
+
+	private MockedStatic<?> mockedBase64;
+
+	@Before
+	public void setup() {
+		mockedBase64 = IdentityTestUtil.mockAndroidBase64();
+	}
+
+	@After
+	public void teardown() {
+		mockedBase64.close();
+	}
+
+	@Test
+	public void test_encodeDecode_roundTrip() {
+		final IdentityMap map = new IdentityMap();
+		map.addItem(new IdentityItem("ecid", AuthenticatedState.AMBIGUOUS, false), "ECID");
+		map.addItem(new IdentityItem("user", AuthenticatedState.AUTHENTICATED, true), "UserId");
+		map.addItem(new IdentityItem("old", AuthenticatedState.LOGGED_OUT, false), "UserId");
+		map.addItem(new IdentityItem("\u00fcn\u00efc\u00f8d\u00e9 \u2713", AuthenticatedState.AMBIGUOUS, true), "\u540d\u524d");
+
+		final String encoded = IdentityMapCodec.encode(map);
+		final IdentityMap decoded = IdentityMapCodec.decode(encoded);
+
+		assertNotNull(decoded);
+		assertTrue(IdentityMapCodec.isCompactFormat(encoded));
+		assertEquals(map.asXDMMap(false), decoded.asXDMMap(false));
+
+		final List<IdentityItem> userItems = decoded.getIdentityItemsForNamespace("UserId");
+		assertEquals("user", userItems.get(0).getId());
+		assertEquals(AuthenticatedState.AUTHENTICATED, userItems.get(0).getAuthenticatedState());
+		assertTrue(userItems.get(0).isPrimary());
+		assertEquals("old", userItems.get(1).getId());
+		assertEquals(AuthenticatedState.LOGGED_OUT, userItems.get(1).getAuthenticatedState());
+		assertFalse(userItems.get(1).isPrimary());
+	}
+
+	@Test
+	public void test_encode_authenticatedStateCodes() {
+		assertArrayEquals(encodedSingleItem(0x00), encodeSingleItem(AuthenticatedState.AMBIGUOUS, false));
+		assertArrayEquals(encodedSingleItem(0x01), encodeSingleItem(AuthenticatedState.AUTHENTICATED, false));
+		assertArrayEquals(encodedSingleItem(0x02), encodeSingleItem(AuthenticatedState.LOGGED_OUT, false));
+		assertArrayEquals(encodedSingleItem(0x06), encodeSingleItem(AuthenticatedState.LOGGED_OUT, true));
+	}
+
+	@Test
+	public void test_decode_authenticatedStateCodes() {
+		assertEquals(AuthenticatedState.AMBIGUOUS, decodeSingleItem(0x00).getAuthenticatedState());
+		assertEquals(AuthenticatedState.AUTHENTICATED, decodeSingleItem(0x01).getAuthenticatedState());
+		assertEquals(AuthenticatedState.LOGGED_OUT, decodeSingleItem(0x02).getAuthenticatedState());
+		assertEquals(AuthenticatedState.AMBIGUOUS, decodeSingleItem(0x03).getAuthenticatedState());
+		assertTrue(decodeSingleItem(0x05).isPrimary());
+		assertFalse(decodeSingleItem(0x01).isPrimary());
+	}
+
+	@Test
+	public void test_encodeDecode_emptyMap() {
+		final IdentityMap decoded = IdentityMapCodec.decode(IdentityMapCodec.encode(new IdentityMap()));
+
+		assertNotNull(decoded);
+		assertTrue(decoded.isEmpty());
+	}
+
+	@Test
+	public void test_encode_isSmallerThanJSON() {
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		properties.setECIDSecondary(new ECID());
+		properties.setAdId("fe2a6ea0-2e7c-4d0b-8b8e-0f8e4f4b0c4e");
+
+		final String json = new JSONObject(properties.toXDMData(false)).toString();
+		assertTrue(properties.toCompactString().length() < json.length());
+	}
+
+	@Test
+	public void test_decode_invalidInput_returnsNull() {
+		assertNull(IdentityMapCodec.decode(null));
+		assertNull(IdentityMapCodec.decode(""));
+		assertNull(IdentityMapCodec.decode("{\"identityMap\":{}}"));
+		assertNull(IdentityMapCodec.decode("not base64!"));
+		assertNull(IdentityMapCodec.decode("AAAA")); // invalid header
+		assertNull(IdentityMapCodec.decode("7QI=")); // unsupported version
+		assertNull(IdentityMapCodec.decode("7QEB")); // truncated
+	}
+
+	@Test
+	public void test_decode_trailingData_returnsNull() {
+		final byte[] encoded = encodedSingleItem(0x00);
+		final byte[] withTrailingByte = Arrays.copyOf(encoded, encoded.length + 1);
+
+		assertNotNull(IdentityMapCodec.decode(Base64.getEncoder().encodeToString(encoded)));
+		assertNull(IdentityMapCodec.decode(Base64.getEncoder().encodeToString(withTrailingByte)));
+	}
+
+	@Test
+	public void test_isCompactFormat() {
+		assertFalse(IdentityMapCodec.isCompactFormat(null));
+		assertFalse(IdentityMapCodec.isCompactFormat(""));
+		assertFalse(IdentityMapCodec.isCompactFormat("{}"));
+		assertTrue(IdentityMapCodec.isCompactFormat(IdentityMapCodec.encode(new IdentityMap())));
+	}
+
+	private static byte[] encodeSingleItem(final AuthenticatedState state, final boolean primary) {
+		final IdentityMap map = new IdentityMap();
+		map.addItem(new IdentityItem("i", state, primary), "n");
+		return Base64.getDecoder().decode(IdentityMapCodec.encode(map));
+	}
+
+	private static IdentityItem decodeSingleItem(final int flags) {
+		final IdentityMap map = IdentityMapCodec.decode(Base64.getEncoder().encodeToString(encodedSingleItem(flags)));
+		return map.getIdentityItemsForNamespace("n").get(0);
+	}
+
+	/**
+	 * @return the compact format of a map with the single item "i" in namespace "n", with the given flags byte
+	 */
+	private static byte[] encodedSingleItem(final int flags) {
+		return new byte[] { (byte) 0xED, 0x01, 0x01, 0x01, 'n', 0x01, 0x01, 'i', (byte) flags };
+	}
+}
@@ -12,10 +12,15 @@
 package com.adobe.marketing.mobile.edge.identity;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.adobe.marketing.mobile.util.JSONUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -136,7 +141,7 @@ public class IdentityMapTests {
 		// test
 		IdentityMap newMap = new IdentityMap();
 		newMap.addItem(new IdentityItem("doorNumber:544"), "location");
-		sampleUserMap.merge(newMap);
+		assertTrue(sampleUserMap.merge(newMap));
 
 		// verify the existing identityMap is unchanged
 		Map<String, List<IdentityItem>> castedMap = getCastedIdentityMap(sampleUserMap);
@@ -153,7 +158,7 @@ public class IdentityMapTests {
 		// test
 		IdentityMap newMap = new IdentityMap();
 		newMap.addItem(new IdentityItem("California", AuthenticatedState.AUTHENTICATED, true), "location");
-		baseMap.merge(newMap);
+		assertTrue(baseMap.merge(newMap));
 
 		// verify the existing identityMap is unchanged
 		Map<String, String> flattenedMap = IdentityTestUtil.flattenMap(baseMap.asXDMMap(false));
@@ -163,13 +168,126 @@ public class IdentityMapTests {
 		assertEquals("true", flattenedMap.get("identityMap.location[0].primary"));
 	}
 
+	@Test
+	public void test_merge_identicalItem_notModified() {
+		// setup
+		IdentityMap baseMap = new IdentityMap();
+		baseMap.addItem(new IdentityItem("California", AuthenticatedState.LOGGED_OUT, false), "location");
+
+		// test
+		IdentityMap sameMap = new IdentityMap();
+		sameMap.addItem(new IdentityItem("California", AuthenticatedState.LOGGED_OUT, false), "location");
+		assertFalse(baseMap.merge(sameMap));
+
+		// an id differing only by case still replaces the existing item
+		IdentityMap caseMap = new IdentityMap();
+		caseMap.addItem(new IdentityItem("CALIFORNIA", AuthenticatedState.LOGGED_OUT, false), "location");
+		assertTrue(baseMap.merge(caseMap));
+		assertEquals("CALIFORNIA", baseMap.getIdentityItemsForNamespace("location").get(0).getId());
+	}
+
+	@Test
+	public void test_firstIdFor_idAt() {
+		// setup
+		IdentityMap map = new IdentityMap();
+		map.addItem(new IdentityItem("first"), "namespace");
+		map.addItem(new IdentityItem("second"), "namespace");
+
+		// verify
+		assertEquals("first", map.firstIdFor("namespace"));
+		assertEquals("first", map.idAt("namespace", 0));
+		assertEquals("second", map.idAt("namespace", 1));
+		assertNull(map.idAt("namespace", 2));
+		assertNull(map.idAt("namespace", -1));
+		assertNull(map.firstIdFor("NAMESPACE"));
+		assertNull(map.firstIdFor("unknown"));
+		assertNull(map.firstIdFor(null));
+	}
+
+	@Test
+	public void test_merge_keepsOrder() {
+		// setup
+		IdentityMap baseMap = new IdentityMap();
+		baseMap.addItem(new IdentityItem("first"), "namespace");
+		baseMap.addItem(new IdentityItem("second"), "namespace");
+		baseMap.addItem(new IdentityItem("third"), "namespace");
+
+		// test
+		IdentityMap newMap = new IdentityMap();
+		newMap.addItem(new IdentityItem("SECOND", AuthenticatedState.AUTHENTICATED, true), "namespace");
+		newMap.addItem(new IdentityItem("fourth"), "namespace");
+		assertTrue(baseMap.merge(newMap));
+		baseMap.addItem(new IdentityItem("zeroth"), "namespace", true);
+
+		// verify replaced items keep their position, new items are appended unless added as first item
+		List<IdentityItem> items = baseMap.getIdentityItemsForNamespace("namespace");
+		assertEquals(5, items.size());
+		assertEquals("zeroth", items.get(0).getId());
+		assertEquals("first", items.get(1).getId());
+		assertEquals("SECOND", items.get(2).getId());
+		assertEquals(AuthenticatedState.AUTHENTICATED, items.get(2).getAuthenticatedState());
+		assertEquals("third", items.get(3).getId());
+		assertEquals("fourth", items.get(4).getId());
+	}
+
+	@Test
+	public void test_merge_newNamespace_caseInsensitiveIds() {
+		// setup
+		IdentityMap baseMap = new IdentityMap();
+		baseMap.addItem(new IdentityItem("id"), "existing");
+
+		IdentityMap newMap = new IdentityMap();
+		newMap.addItem(new IdentityItem("id"), "new");
+		newMap.addItem(new IdentityItem("ID", AuthenticatedState.LOGGED_OUT, false), "new");
+		newMap.addItem(new IdentityItem("ID"), "existing");
+
+		// test
+		assertTrue(baseMap.merge(newMap));
+
+		// verify
+		List<IdentityItem> newItems = baseMap.getIdentityItemsForNamespace("new");
+		assertEquals(1, newItems.size());
+		assertEquals("ID", newItems.get(0).getId());
+		assertEquals(AuthenticatedState.LOGGED_OUT, newItems.get(0).getAuthenticatedState());
+
+		List<IdentityItem> existingItems = baseMap.getIdentityItemsForNamespace("existing");
+		assertEquals(1, existingItems.size());
+		assertEquals("ID", existingItems.get(0).getId());
+
+		// merged namespaces are independent of the given map
+		newMap.addItem(new IdentityItem("other"), "new");
+		assertEquals(1, baseMap.getIdentityItemsForNamespace("new").size());
+		assertTrue(baseMap.clearItemsForNamespace("NEW"));
+	}
+
+	@Test
+	public void test_merge_largeMap() {
+		// setup
+		IdentityMap baseMap = new IdentityMap();
+		IdentityMap newMap = new IdentityMap();
+
+		for (int i = 0; i < 10000; i++) {
+			newMap.addItem(new IdentityItem("id" + i), "namespace");
+		}
+
+		// test
+		assertTrue(baseMap.merge(newMap));
+		assertFalse(baseMap.merge(newMap));
+
+		// verify
+		List<IdentityItem> items = baseMap.getIdentityItemsForNamespace("namespace");
+		assertEquals(10000, items.size());
+		assertEquals("id0", items.get(0).getId());
+		assertEquals("id9999", items.get(9999).getId());
+	}
+
 	@Test
 	public void test_merge_EmptyIdentityMap() {
 		// setup
 		IdentityMap sampleUserMap = buildSampleIdentityMap(); // 2 items with namespace "Location", 3 items with namespace "Login"
 
 		// test
-		sampleUserMap.merge(new IdentityMap());
+		assertFalse(sampleUserMap.merge(new IdentityMap()));
 
 		// verify the existing identityMap is unchanged
 		Map<String, List<IdentityItem>> castedMap = getCastedIdentityMap(sampleUserMap);
@@ -183,7 +301,7 @@ public class IdentityMapTests {
 		IdentityMap sampleUserMap = buildSampleIdentityMap(); // 2 items with namespace "location", 3 items with namespace "login"
 
 		// test
-		sampleUserMap.merge(null);
+		assertFalse(sampleUserMap.merge(null));
 
 		// verify the existing identityMap is unchanged
 		Map<String, List<IdentityItem>> castedMap = getCastedIdentityMap(sampleUserMap);
@@ -205,6 +323,27 @@ public class IdentityMapTests {
 		assertEquals(3, castedMap.get("login").size());
 	}
 
+	@Test
+	public void test_removeAllIdentityItemsForNamespace_ignoresCase() {
+		// setup
+		IdentityMap map = new IdentityMap();
+		map.addItem(new IdentityItem("id1"), "Email");
+		map.addItem(new IdentityItem("id2"), "EMAIL");
+		map.addItem(new IdentityItem("id3"), "phone");
+
+		// test
+		assertTrue(map.clearItemsForNamespace("email"));
+		assertFalse(map.clearItemsForNamespace("email"));
+
+		// verify
+		assertEquals(Collections.singletonList("phone"), map.getNamespaces());
+
+		// namespaces cleared can be added back
+		map.addItem(new IdentityItem("id4"), "Email");
+		assertTrue(map.clearItemsForNamespace("EMAIL"));
+		assertEquals(Collections.singletonList("phone"), map.getNamespaces());
+	}
+
 	@Test
 	public void test_removeAllIdentityItemsForNamespace_InvalidNamespace() {
 		// setup
@@ -239,7 +378,7 @@ public class IdentityMapTests {
 		tobeRemovedMap.addItem(new IdentityItem("California"), "location");
 
 		// test
-		sampleUserMap.remove(tobeRemovedMap);
+		assertTrue(sampleUserMap.remove(tobeRemovedMap));
 
 		// verify
 		Map<String, List<IdentityItem>> castedMap = getCastedIdentityMap(sampleUserMap);
@@ -253,8 +392,8 @@ public class IdentityMapTests {
 		IdentityMap sampleUserMap = buildSampleIdentityMap(); // 2 items with namespace "location", 3 items with namespace "login"
 
 		// test
-		sampleUserMap.remove(null);
-		sampleUserMap.remove(new IdentityMap());
+		assertFalse(sampleUserMap.remove(null));
+		assertFalse(sampleUserMap.remove(new IdentityMap()));
 
 		// verify the existing identityMap is unchanged
 		Map<String, List<IdentityItem>> castedMap = getCastedIdentityMap(sampleUserMap);
@@ -271,7 +410,7 @@ public class IdentityMapTests {
 		tobeRemovedMap.addItem(new IdentityItem("nonexistentID"), "login");
 
 		// test
-		sampleUserMap.remove(tobeRemovedMap);
+		assertFalse(sampleUserMap.remove(tobeRemovedMap));
 
 		// verify the existing identityMap is unchanged
 		Map<String, List<IdentityItem>> castedMap = getCastedIdentityMap(sampleUserMap);
@@ -471,6 +610,208 @@ public class IdentityMapTests {
 		assertNull(map);
 	}
 
+	@Test
+	public void testAsReadOnly_ignoresModifications() {
+		// setup
+		IdentityMap map = buildSampleIdentityMap().asReadOnly();
+		IdentityMap other = new IdentityMap();
+		other.addItem(new IdentityItem("id"), "namespace");
+
+		// test
+		map.addItem(new IdentityItem("John Doe 2"), "login");
+		map.removeItem(new IdentityItem("John Doe"), "login");
+		assertFalse(map.merge(other));
+		assertFalse(map.remove(buildSampleIdentityMap()));
+		assertFalse(map.clearItemsForNamespace("location"));
+
+		// verify
+		assertTrue(map.isReadOnly());
+		assertEquals(buildSampleIdentityMap().asXDMMap(false), map.asXDMMap(false));
+	}
+
+	@Test
+	public void testToReadOnlySnapshot_notAffectedByLaterChanges() {
+		// setup
+		IdentityMap map = buildSampleIdentityMap();
+		final Map<String, Object> expectedXDM = buildSampleIdentityMap().asXDMMap(false);
+
+		// test
+		IdentityMap snapshot = map.toReadOnlySnapshot();
+		map.addItem(new IdentityItem("John Doe 2"), "login");
+		map.removeItem(new IdentityItem("California"), "location");
+		map.addItem(new IdentityItem("id"), "namespace");
+		map.clearItemsForNamespace("login");
+
+		// verify
+		assertTrue(snapshot.isReadOnly());
+		assertFalse(map.isReadOnly());
+		assertEquals(expectedXDM, snapshot.asXDMMap(false));
+		assertEquals(Arrays.asList("280 Highway Lane"), getIds(map.getIdentityItemsForNamespace("location")));
+		assertEquals(1, map.getIdentityItemsForNamespace("namespace").size());
+		assertTrue(map.getIdentityItemsForNamespace("login").isEmpty());
+	}
+
+	@Test
+	public void testToReadOnlySnapshot_sharesUnchangedNamespaces() {
+		// setup
+		IdentityMap map = buildSampleIdentityMap();
+		IdentityMap firstSnapshot = map.toReadOnlySnapshot();
+
+		// test
+		map.addItem(new IdentityItem("John Doe 2"), "login");
+		IdentityMap secondSnapshot = map.toReadOnlySnapshot();
+		map.addItem(new IdentityItem("John Doe 3"), "login");
+
+		// verify the unchanged namespace is shared, the changed one is copied once per snapshot
+		assertSame(firstSnapshot.itemsFor("location"), secondSnapshot.itemsFor("location"));
+		assertSame(map.itemsFor("location"), secondSnapshot.itemsFor("location"));
+		assertEquals(3, firstSnapshot.itemsFor("login").size());
+		assertEquals(4, secondSnapshot.itemsFor("login").size());
+		assertEquals(5, map.itemsFor("login").size());
+		// copies of a snapshot rebuild the namespace index
+		assertEquals(6, new IdentityMap(secondSnapshot).getItemCount());
+		assertTrue(new IdentityMap(secondSnapshot).clearItemsForNamespace("LOGIN"));
+	}
+
+	@Test
+	public void testCopy_ofReadOnlyMap_isModifiable() {
+		// setup
+		IdentityMap copy = new IdentityMap(buildSampleIdentityMap().asReadOnly());
+
+		// test
+		copy.addItem(new IdentityItem("id"), "namespace");
+
+		// verify
+		assertFalse(copy.isReadOnly());
+		assertEquals(1, copy.getIdentityItemsForNamespace("namespace").size());
+	}
+
+	@Test
+	public void testItemsFor_returnsItemsInOrderWithoutCopying() {
+		IdentityMap map = buildSampleIdentityMap();
+
+		assertEquals(Arrays.asList("280 Highway Lane", "California"), getIds(new ArrayList<>(map.itemsFor("location"))));
+		assertSame(map.itemsFor("location").iterator().next(), map.itemsFor("location").iterator().next());
+		assertTrue(map.itemsFor("unknown").isEmpty());
+	}
+
+	@Test
+	public void testEvictItems_noLimits_nothingEvicted() {
+		IdentityMap map = buildSampleIdentityMap();
+
+		assertEquals(0, map.evictItems(0, 0, Collections.<String>emptyList()));
+		assertEquals(5, map.getItemCount());
+	}
+
+	@Test
+	public void testEvictItems_perNamespaceLimit_evictsLeastRecentlyUpdatedFirst() {
+		IdentityMap map = new IdentityMap();
+		map.addItem(new IdentityItem("id1"), "namespace");
+		map.addItem(new IdentityItem("id2"), "namespace");
+		map.addItem(new IdentityItem("id3"), "namespace");
+		map.addItem(new IdentityItem("other"), "other");
+		// changing id1 makes it the most recently updated item
+		map.addItem(new IdentityItem("id1", AuthenticatedState.AUTHENTICATED, false), "namespace");
+
+		assertEquals(1, map.evictItems(2, 0, Collections.<String>emptyList()));
+
+		List<IdentityItem> items = map.getIdentityItemsForNamespace("namespace");
+		assertEquals(2, items.size());
+		assertEquals("id1", items.get(0).getId());
+		assertEquals("id3", items.get(1).getId());
+		assertEquals(1, map.getIdentityItemsForNamespace("other").size());
+	}
+
+	@Test
+	public void testEvictItems_unchangedItemReAdded_keepsUpdateOrder() {
+		IdentityMap map = new IdentityMap();
+		map.addItem(new IdentityItem("id1"), "namespace");
+		map.addItem(new IdentityItem("id2"), "namespace");
+		// re-adding an unchanged item does not count as an update
+		assertFalse(map.addItem(new IdentityItem("id1"), "namespace", false));
+
+		assertEquals(1, map.evictItems(1, 0, Collections.<String>emptyList()));
+		assertEquals(Arrays.asList("id2"), getIds(map.getIdentityItemsForNamespace("namespace")));
+	}
+
+	@Test
+	public void testEvictItems_evictsLoggedOutAndNonPrimaryItemsFirst() {
+		IdentityMap map = new IdentityMap();
+		map.addItem(new IdentityItem("primary", AuthenticatedState.AUTHENTICATED, true), "namespace");
+		map.addItem(new IdentityItem("authenticated", AuthenticatedState.AUTHENTICATED, false), "namespace");
+		map.addItem(new IdentityItem("loggedOut", AuthenticatedState.LOGGED_OUT, false), "namespace");
+
+		assertEquals(1, map.evictItems(2, 0, Collections.<String>emptyList()));
+		assertEquals(
+			Arrays.asList("primary", "authenticated"),
+			getIds(map.getIdentityItemsForNamespace("namespace"))
+		);
+
+		assertEquals(1, map.evictItems(1, 0, Collections.<String>emptyList()));
+		assertEquals(Arrays.asList("primary"), getIds(map.getIdentityItemsForNamespace("namespace")));
+	}
+
+	@Test
+	public void testEvictItems_totalLimit_evictsAcrossNamespaces() {
+		IdentityMap map = new IdentityMap();
+		map.addItem(new IdentityItem("a1"), "a");
+		map.addItem(new IdentityItem("b1"), "b");
+		map.addItem(new IdentityItem("a2"), "a");
+		map.addItem(new IdentityItem("b2"), "b");
+
+		assertEquals(2, map.evictItems(0, 2, Collections.<String>emptyList()));
+		assertEquals(Arrays.asList("a2"), getIds(map.getIdentityItemsForNamespace("a")));
+		assertEquals(Arrays.asList("b2"), getIds(map.getIdentityItemsForNamespace("b")));
+	}
+
+	@Test
+	public void testEvictItems_emptiedNamespaceIsRemoved() {
+		IdentityMap map = new IdentityMap();
+		map.addItem(new IdentityItem("a1"), "a");
+		map.addItem(new IdentityItem("b1"), "b");
+
+		assertEquals(1, map.evictItems(0, 1, Collections.<String>emptyList()));
+		assertEquals(Collections.singletonList("b"), map.getNamespaces());
+		assertTrue(map.clearItemsForNamespace("B"));
+		assertFalse(map.clearItemsForNamespace("a"));
+	}
+
+	@Test
+	public void testEvictItems_protectedNamespacesAreNeverEvicted() {
+		IdentityMap map = new IdentityMap();
+		map.addItem(new IdentityItem("ecid1"), "ECID");
+		map.addItem(new IdentityItem("ecid2"), "ECID");
+		map.addItem(new IdentityItem("gaid", AuthenticatedState.LOGGED_OUT, false), "GAID");
+		map.addItem(new IdentityItem("id1"), "namespace");
+		map.addItem(new IdentityItem("id2"), "namespace");
+
+		assertEquals(1, map.evictItems(1, 1, Arrays.asList("ecid", "gaid")));
+		assertEquals(2, map.getIdentityItemsForNamespace("ECID").size());
+		assertEquals(1, map.getIdentityItemsForNamespace("GAID").size());
+		assertEquals(Arrays.asList("id2"), getIds(map.getIdentityItemsForNamespace("namespace")));
+	}
+
+	@Test
+	public void testEvictItems_copyKeepsUpdateOrder() {
+		IdentityMap map = new IdentityMap();
+		map.addItem(new IdentityItem("id1"), "namespace");
+		map.addItem(new IdentityItem("id2"), "namespace");
+		map.addItem(new IdentityItem("id1", AuthenticatedState.AUTHENTICATED, false), "namespace");
+		IdentityMap copy = new IdentityMap(map);
+
+		assertEquals(1, copy.evictItems(1, 0, Collections.<String>emptyList()));
+		assertEquals(Arrays.asList("id1"), getIds(copy.getIdentityItemsForNamespace("namespace")));
+		assertEquals(2, map.getItemCount());
+	}
+
+	@Test
+	public void testEvictItems_readOnly_nothingEvicted() {
+		IdentityMap map = buildSampleIdentityMap().asReadOnly();
+
+		assertEquals(0, map.evictItems(1, 1, Collections.<String>emptyList()));
+		assertEquals(5, map.getItemCount());
+	}
+
 	@Test
 	public void testAsXDMMap_AllowEmptyFalse() {
 		IdentityMap map = new IdentityMap();
@@ -493,6 +834,16 @@ public class IdentityMapTests {
 		return (Map<String, List<IdentityItem>>) xdmMap.get(IdentityConstants.XDMKeys.IDENTITY_MAP);
 	}
 
+	private List<String> getIds(final List<IdentityItem> items) {
+		final List<String> ids = new ArrayList<>();
+
+		for (final IdentityItem item : items) {
+			ids.add(item.getId());
+		}
+
+		return ids;
+	}
+
 	private IdentityMap buildSampleIdentityMap() {
 		// User Login Identity Items
 		IdentityItem email = new IdentityItem("john@doe", AuthenticatedState.AUTHENTICATED, true);
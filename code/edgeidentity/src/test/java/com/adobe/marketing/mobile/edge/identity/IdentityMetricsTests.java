@@ -0,0 +1,211 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IdentityMetricsTests {
+
+	@Before
+	public void setup() {
+		IdentityMetrics.clearBootStateDurations();
+	}
+
+	@After
+	public void teardown() {
+		IdentityMetrics.setInstrumentation(null);
+		IdentityMetrics.setAggregationEnabled(false);
+		IdentityMetrics.clearBootStateDurations();
+	}
+
+	@Test
+	public void test_startTimer_whenNothingEnabled_returnsNotTimed() {
+		assertEquals(IdentityMetrics.NOT_TIMED, IdentityMetrics.startTimer());
+		assertTrue(IdentityMetrics.getAggregatedMetrics().isEmpty());
+	}
+
+	@Test
+	public void test_recordEventHandled_reportsToInstrumentation() {
+		// setup
+		final RecordingInstrumentation instrumentation = new RecordingInstrumentation();
+		IdentityMetrics.setInstrumentation(instrumentation);
+
+		// test
+		final long startNanos = IdentityMetrics.startTimer();
+		IdentityMetrics.recordEventHandled(IdentityMetrics.UPDATE_IDENTITIES, startNanos, 3);
+		IdentityMetrics.recordPersistenceWrite(IdentityMetrics.startTimer(), "abc");
+		IdentityMetrics.recordPersistenceRead(IdentityMetrics.startTimer(), null);
+		IdentityMetrics.recordBootState("WAITING_HUB", IdentityMetrics.startBootTimer());
+		IdentityMetrics.recordIdentitiesEvicted(IdentityMetrics.startTimer(), 2);
+
+		// verify
+		assertEquals(5, instrumentation.records.size());
+		assertEquals("updateIdentities:3", instrumentation.records.get(0));
+		assertEquals("write:3", instrumentation.records.get(1));
+		assertEquals("read:0", instrumentation.records.get(2));
+		assertEquals("boot:WAITING_HUB", instrumentation.records.get(3));
+		assertEquals("evicted:2", instrumentation.records.get(4));
+		// aggregator is disabled
+		assertTrue(IdentityMetrics.getAggregatedMetrics().isEmpty());
+	}
+
+	@Test
+	public void test_recordEventHandled_whenInstrumentationThrows_stillAggregates() {
+		// setup
+		IdentityMetrics.setInstrumentation(new RecordingInstrumentation(true));
+		IdentityMetrics.setAggregationEnabled(true);
+
+		// test
+		IdentityMetrics.recordEventHandled(IdentityMetrics.REMOVE_IDENTITIES, IdentityMetrics.startTimer(), 1);
+
+		// verify
+		assertEquals(1, IdentityMetrics.getAggregatedMetrics().size());
+	}
+
+	@Test
+	public void test_getAggregatedMetrics_aggregatesPerOperation() {
+		// setup
+		IdentityMetrics.setAggregationEnabled(true);
+
+		// test
+		IdentityMetrics.recordEventHandled(IdentityMetrics.UPDATE_IDENTITIES, IdentityMetrics.startTimer(), 2);
+		IdentityMetrics.recordEventHandled(IdentityMetrics.UPDATE_IDENTITIES, IdentityMetrics.startTimer(), 5);
+		IdentityMetrics.recordPersistenceWrite(IdentityMetrics.startTimer(), "abcd");
+
+		// verify
+		final Map<String, Object> metrics = IdentityMetrics.getAggregatedMetrics();
+		assertEquals(2, metrics.size());
+
+		final Map<String, Object> updates = (Map<String, Object>) metrics.get(IdentityMetrics.UPDATE_IDENTITIES);
+		assertEquals(2L, updates.get(IdentityConstants.EventDataKeys.Metrics.COUNT));
+		assertEquals(5L, updates.get(IdentityConstants.EventDataKeys.Metrics.MAX_SIZE));
+		assertEquals(7L, updates.get(IdentityConstants.EventDataKeys.Metrics.TOTAL_SIZE));
+		assertTrue(
+			(long) updates.get(IdentityConstants.EventDataKeys.Metrics.MIN_NANOS) <=
+			(long) updates.get(IdentityConstants.EventDataKeys.Metrics.P99_NANOS)
+		);
+
+		final Map<String, Object> writes = (Map<String, Object>) metrics.get(IdentityMetrics.PERSISTENCE_WRITE);
+		assertEquals(1L, writes.get(IdentityConstants.EventDataKeys.Metrics.COUNT));
+		assertEquals(4L, writes.get(IdentityConstants.EventDataKeys.Metrics.TOTAL_SIZE));
+	}
+
+	@Test
+	public void test_getAggregatedMetrics_aggregatesEvictions() {
+		// setup
+		IdentityMetrics.setAggregationEnabled(true);
+
+		// test
+		IdentityMetrics.recordIdentitiesEvicted(IdentityMetrics.startTimer(), 1);
+		IdentityMetrics.recordIdentitiesEvicted(IdentityMetrics.startTimer(), 3);
+
+		// verify
+		final Map<String, Object> evictions = (Map<String, Object>) IdentityMetrics
+			.getAggregatedMetrics()
+			.get(IdentityMetrics.EVICT_IDENTITIES);
+		assertEquals(2L, evictions.get(IdentityConstants.EventDataKeys.Metrics.COUNT));
+		assertEquals(3L, evictions.get(IdentityConstants.EventDataKeys.Metrics.MAX_SIZE));
+		assertEquals(4L, evictions.get(IdentityConstants.EventDataKeys.Metrics.TOTAL_SIZE));
+	}
+
+	@Test
+	public void test_setAggregationEnabled_replaysCompletedBootStates() {
+		// bootup completes before the configuration enabling the aggregator is received
+		IdentityMetrics.recordBootState("LOADED", IdentityMetrics.startBootTimer());
+		assertTrue(IdentityMetrics.getAggregatedMetrics().isEmpty());
+
+		// test
+		IdentityMetrics.setAggregationEnabled(true);
+		IdentityMetrics.recordBootState("WAITING_HUB", IdentityMetrics.startBootTimer());
+
+		// verify
+		final Map<String, Object> metrics = IdentityMetrics.getAggregatedMetrics();
+		assertEquals(2, metrics.size());
+		final Map<String, Object> loaded = (Map<String, Object>) metrics.get(IdentityMetrics.BOOT_STATE_PREFIX + "LOADED");
+		assertEquals(1L, loaded.get(IdentityConstants.EventDataKeys.Metrics.COUNT));
+		assertTrue(metrics.containsKey(IdentityMetrics.BOOT_STATE_PREFIX + "WAITING_HUB"));
+
+		// enabling an already enabled aggregator does not replay the bootup steps again
+		IdentityMetrics.setAggregationEnabled(true);
+		final Map<String, Object> reloaded = (Map<String, Object>) IdentityMetrics
+			.getAggregatedMetrics()
+			.get(IdentityMetrics.BOOT_STATE_PREFIX + "LOADED");
+		assertEquals(1L, reloaded.get(IdentityConstants.EventDataKeys.Metrics.COUNT));
+	}
+
+	@Test
+	public void test_setAggregationEnabled_false_discardsMetrics() {
+		IdentityMetrics.setAggregationEnabled(true);
+		IdentityMetrics.recordEventHandled(IdentityMetrics.GET_IDENTITIES, IdentityMetrics.startTimer(), 0);
+
+		IdentityMetrics.setAggregationEnabled(false);
+		IdentityMetrics.setAggregationEnabled(true);
+
+		assertTrue(IdentityMetrics.getAggregatedMetrics().isEmpty());
+	}
+
+	private static class RecordingInstrumentation implements IdentityInstrumentation {
+
+		final List<String> records = new ArrayList<>();
+		private final boolean shouldThrow;
+
+		RecordingInstrumentation() {
+			this(false);
+		}
+
+		RecordingInstrumentation(final boolean shouldThrow) {
+			this.shouldThrow = shouldThrow;
+		}
+
+		@Override
+		public void onEventHandled(@NonNull final String name, final long durationNanos, final int identityCount) {
+			record(name + ":" + identityCount);
+		}
+
+		@Override
+		public void onPersistenceRead(final long durationNanos, final int bytes) {
+			record("read:" + bytes);
+		}
+
+		@Override
+		public void onPersistenceWrite(final long durationNanos, final int bytes) {
+			record("write:" + bytes);
+		}
+
+		@Override
+		public void onBootStateCompleted(@NonNull final String state, final long durationNanos) {
+			record("boot:" + state);
+		}
+
+		@Override
+		public void onIdentitiesEvicted(final long durationNanos, final int evictedCount) {
+			record("evicted:" + evictedCount);
+		}
+
+		private void record(final String value) {
+			if (shouldThrow) {
+				throw new IllegalStateException("instrumentation failure");
+			}
+
+			records.add(value);
+		}
+	}
+}
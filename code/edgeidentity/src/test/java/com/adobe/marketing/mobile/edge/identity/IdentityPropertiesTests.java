@@ -13,8 +13,11 @@ package com.adobe.marketing.mobile.edge.identity;
 
 import static com.adobe.marketing.mobile.edge.identity.IdentityTestUtil.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.adobe.marketing.mobile.util.DataReader;
@@ -86,6 +89,39 @@ public class IdentityPropertiesTests {
 		assertEquals("false", flatMap.get("identityMap.GAID[0].primary"));
 	}
 
+	@Test
+	public void test_toXDMData_returnsCachedDataUntilModified() {
+		// setup
+		IdentityProperties props = new IdentityProperties();
+		props.setECID(new ECID());
+
+		// test
+		Map<String, Object> xdmData = props.toXDMData(false);
+
+		// verify
+		assertSame(xdmData, props.toXDMData(false));
+		assertSame(xdmData, props.copy().toXDMData(false));
+
+		props.setAdId("test-ad-id");
+		Map<String, Object> updatedXdmData = props.toXDMData(false);
+		assertNotSame(xdmData, updatedXdmData);
+		assertEquals("test-ad-id", flattenMap(updatedXdmData).get("identityMap.GAID[0].id"));
+		assertNull(flattenMap(xdmData).get("identityMap.GAID[0].id"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test_toXDMData_isImmutable() {
+		// setup
+		IdentityProperties props = new IdentityProperties();
+		props.setECID(new ECID());
+
+		// test
+		Map<String, Object> identityMap = (Map<String, Object>) props
+			.toXDMData(false)
+			.get(IdentityConstants.XDMKeys.IDENTITY_MAP);
+		identityMap.remove("ECID");
+	}
+
 	@Test
 	public void test_toXDMData_OnlyPrimaryECID() {
 		// setup
@@ -342,6 +378,36 @@ public class IdentityPropertiesTests {
 	// =============================================================================================
 	// Tests for setAdId() getAdId()
 	// =============================================================================================
+	@Test
+	public void test_getECID_returnsCachedECIDUntilModified() {
+		// setup
+		IdentityProperties props = new IdentityProperties();
+		ECID primary = new ECID();
+		ECID secondary = new ECID();
+		props.setECID(primary);
+		props.setECIDSecondary(secondary);
+
+		// test
+		ECID ecid = props.getECID();
+		ECID ecidSecondary = props.getECIDSecondary();
+
+		// verify
+		assertEquals(primary, ecid);
+		assertEquals(secondary, ecidSecondary);
+		assertSame(ecid, props.getECID());
+		assertSame(ecidSecondary, props.getECIDSecondary());
+		assertSame(ecid, props.copy().getECID());
+
+		ECID newPrimary = new ECID();
+		props.setECID(newPrimary);
+		assertEquals(newPrimary, props.getECID());
+		assertEquals(secondary, props.getECIDSecondary());
+
+		props.setECID(null);
+		assertNull(props.getECID());
+		assertNull(props.getECIDSecondary());
+	}
+
 	@Test
 	public void test_getsetAdId_whenValid_thenValid() {
 		// Setup
@@ -452,6 +518,39 @@ public class IdentityPropertiesTests {
 		assertEquals(expectedProperties, props.toXDMData(false));
 	}
 
+	// ======================================================================================================================
+	// Tests for evictCustomerIdentifiers()
+	// ======================================================================================================================
+
+	@Test
+	public void test_evictCustomerIdentifiers_neverEvictsReservedNamespaces() {
+		// Setup
+		IdentityProperties props = new IdentityProperties();
+		props.setECID(new ECID("internalECID"));
+		props.setAdId("adId");
+		props.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(
+				createXDMIdentityMap(
+					new IdentityTestUtil.TestItem("UserId", "firstValue"),
+					new IdentityTestUtil.TestItem("UserId", "secondValue")
+				)
+			)
+		);
+		final Map<String, Object> cachedXDMData = props.toXDMData(false);
+
+		// Test
+		assertEquals(1, props.evictCustomerIdentifiers(1, 1));
+
+		// Verify
+		assertNotSame(cachedXDMData, props.toXDMData(false));
+		final Map<String, String> flattenedMap = flattenMap(props.toXDMData(false));
+		assertEquals("internalECID", flattenedMap.get("identityMap.ECID[0].id"));
+		assertEquals("adId", flattenedMap.get("identityMap.GAID[0].id"));
+		assertEquals("secondValue", flattenedMap.get("identityMap.UserId[0].id"));
+		assertNull(flattenedMap.get("identityMap.UserId[1].id"));
+		assertEquals(0, props.evictCustomerIdentifiers(1, 1));
+	}
+
 	// ======================================================================================================================
 	// Tests for removeCustomerIdentifiers()
 	// ======================================================================================================================
@@ -538,4 +637,64 @@ public class IdentityPropertiesTests {
 
 		assertEquals(expectedIdentityXDM, props.toXDMData(false));
 	}
+
+	@Test
+	public void test_applyCustomerIdentifierChanges_removesThenUpdates() {
+		// Setup
+		IdentityProperties props = new IdentityProperties();
+		props.setECID(new ECID("internalECID"));
+		props.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(
+				createXDMIdentityMap(
+					new IdentityTestUtil.TestItem("anonymous", "anonymousId"),
+					new IdentityTestUtil.TestItem("UserId", "secretID")
+				)
+			)
+		);
+
+		// test
+		final boolean isModified = props.applyCustomerIdentifierChanges(
+			IdentityMap.fromXDMMap(
+				createXDMIdentityMap(
+					new IdentityTestUtil.TestItem("CRMID", "crmId"),
+					new IdentityTestUtil.TestItem("UserId", "secretID")
+				)
+			),
+			IdentityMap.fromXDMMap(
+				createXDMIdentityMap(
+					new IdentityTestUtil.TestItem("anonymous", "anonymousId"),
+					new IdentityTestUtil.TestItem("UserId", "secretID"),
+					new IdentityTestUtil.TestItem("ECID", "internalECID")
+				)
+			)
+		);
+
+		// verify reserved namespaces are ignored and identifiers in both maps are kept
+		assertTrue(isModified);
+		final Map<String, Object> expectedIdentityXDM = createXDMIdentityMap(
+			new IdentityTestUtil.TestItem("ECID", "internalECID"),
+			new IdentityTestUtil.TestItem("CRMID", "crmId"),
+			new IdentityTestUtil.TestItem("UserId", "secretID")
+		);
+		assertEquals(expectedIdentityXDM, props.toXDMData(false));
+	}
+
+	@Test
+	public void test_applyCustomerIdentifierChanges_noChanges_returnsFalse() {
+		// Setup
+		IdentityProperties props = new IdentityProperties();
+		props.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "secretID")))
+		);
+
+		// test
+		final boolean isModified = props.applyCustomerIdentifierChanges(
+			IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "secretID"))),
+			IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("unknown", "id")))
+		);
+
+		// verify
+		assertFalse(isModified);
+		assertFalse(props.applyCustomerIdentifierChanges(null, null));
+	}
 }
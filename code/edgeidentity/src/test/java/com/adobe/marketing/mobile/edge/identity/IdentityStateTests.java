@@ -18,8 +18,10 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -35,9 +37,17 @@ import com.adobe.marketing.mobile.SharedStateResult;
 import com.adobe.marketing.mobile.SharedStateStatus;
 import com.adobe.marketing.mobile.services.DataStoring;
 import com.adobe.marketing.mobile.services.NamedCollection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -71,6 +81,14 @@ public class IdentityStateTests {
 			.thenReturn(mockEdgeIdentityNamedCollection);
 		when(mockDataStoreService.getNamedCollection(IdentityConstants.DataStoreKey.IDENTITY_DIRECT_DATASTORE_NAME))
 			.thenReturn(mockDirectIdentityNamedCollection);
+		Identity.setIdentitySnapshot(null);
+	}
+
+	@After
+	public void after() {
+		Identity.setIdentitySnapshot(null);
+		IdentityMetrics.setAggregationEnabled(false);
+		IdentityMetrics.clearBootStateDurations();
 	}
 
 	@Test
@@ -89,6 +107,78 @@ public class IdentityStateTests {
 			.createXDMSharedState(identityState.getIdentityProperties().toXDMData(false), null);
 	}
 
+	@Test
+	public void testBootUpIfReady_publishesIdentitiesSnapshot() {
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		state.getIdentityProperties().setECID(new ECID());
+		assertFalse(Identity.getIdentitiesSnapshot().isBooted());
+
+		assertTrue(state.bootupIfReady(mockSharedStateCallback));
+
+		final IdentitySnapshot snapshot = Identity.getIdentitiesSnapshot();
+		assertTrue(snapshot.isBooted());
+		assertTrue(snapshot.getIdentityMap().isReadOnly());
+		assertEquals(state.getIdentityProperties().toXDMData(false), snapshot.getIdentityMap().asXDMMap(false));
+	}
+
+	@Test
+	public void testBootUpIfReady_appliesPreloadedProperties() {
+		final IdentityProperties persistedProperties = new IdentityProperties();
+		persistedProperties.setECID(new ECID());
+		when(mockIdentityStorageManager.loadPropertiesFromPersistence()).thenReturn(persistedProperties);
+
+		// capture the preload instead of running it
+		final List<Runnable> preloads = new ArrayList<>();
+		final IdentityState identityState = new IdentityState(mockIdentityStorageManager, preloads::add);
+		verify(mockIdentityStorageManager, never()).loadPropertiesFromPersistence();
+		assertEquals(1, preloads.size());
+
+		preloads.get(0).run();
+
+		assertTrue(identityState.bootupIfReady(mockSharedStateCallback));
+		assertEquals(persistedProperties.getECID(), identityState.getIdentityProperties().getECID());
+		verify(mockIdentityStorageManager, times(1)).loadPropertiesFromPersistence();
+	}
+
+	@Test
+	public void testBootUpIfReady_waitsForPreloadToComplete() throws Exception {
+		final IdentityProperties persistedProperties = new IdentityProperties();
+		persistedProperties.setECID(new ECID());
+		final CountDownLatch loadStarted = new CountDownLatch(1);
+		final CountDownLatch releaseLoad = new CountDownLatch(1);
+		when(mockIdentityStorageManager.loadPropertiesFromPersistence())
+			.thenAnswer(invocation -> {
+				loadStarted.countDown();
+				releaseLoad.await();
+				return persistedProperties;
+			});
+
+		final IdentityState identityState = new IdentityState(
+			mockIdentityStorageManager,
+			command -> new Thread(command).start()
+		);
+		assertTrue(loadStarted.await(1, TimeUnit.SECONDS));
+		releaseLoad.countDown();
+
+		assertTrue(identityState.bootupIfReady(mockSharedStateCallback));
+		assertEquals(persistedProperties.getECID(), identityState.getIdentityProperties().getECID());
+	}
+
+	@Test
+	public void testBootUpIfReady_preloadFailed_loadsDirectly() {
+		final IdentityProperties persistedProperties = new IdentityProperties();
+		persistedProperties.setECID(new ECID());
+		when(mockIdentityStorageManager.loadPropertiesFromPersistence())
+			.thenThrow(new IllegalStateException("test"))
+			.thenReturn(persistedProperties);
+
+		final IdentityState identityState = new IdentityState(mockIdentityStorageManager);
+
+		assertTrue(identityState.bootupIfReady(mockSharedStateCallback));
+		assertEquals(persistedProperties.getECID(), identityState.getIdentityProperties().getECID());
+		verify(mockIdentityStorageManager, times(2)).loadPropertiesFromPersistence();
+	}
+
 	@Test
 	public void testBootUpIfReady_waitsForHubSharedState_hubStateIsNull() {
 		final IdentityState identityState = new IdentityState(mockIdentityStorageManager);
@@ -306,6 +396,72 @@ public class IdentityStateTests {
 		verify(mockSharedStateCallback, times(0)).createXDMSharedState(any(), any());
 	}
 
+	@Test
+	public void testBootUpIfReady_waitingForIdentityDirectState_onlyChecksIdentityDirectState() {
+		// setup
+		final IdentityState identityState = new IdentityState(mockIdentityStorageManager);
+		final Map<String, Object> hubSharedState = new HashMap<>();
+		hubSharedState.put(
+			"extensions",
+			Collections.singletonMap("com.adobe.module.identity", Collections.singletonMap("version", "2.0.0"))
+		);
+		final ECID directEcid = new ECID();
+
+		when(mockSharedStateCallback.getSharedState(IdentityConstants.SharedState.Hub.NAME, null))
+			.thenReturn(new SharedStateResult(SharedStateStatus.SET, hubSharedState));
+		when(mockSharedStateCallback.getSharedState(IdentityConstants.SharedState.IdentityDirect.NAME, null))
+			.thenReturn(new SharedStateResult(SharedStateStatus.PENDING, null));
+		assertEquals(IdentityState.BootState.LOADED, identityState.getBootState());
+
+		// test
+		assertFalse(identityState.bootupIfReady(mockSharedStateCallback));
+		assertEquals(IdentityState.BootState.WAITING_DIRECT, identityState.getBootState());
+		assertFalse(identityState.bootupIfReady(mockSharedStateCallback));
+
+		when(mockSharedStateCallback.getSharedState(IdentityConstants.SharedState.IdentityDirect.NAME, null))
+			.thenReturn(
+				new SharedStateResult(
+					SharedStateStatus.SET,
+					Collections.singletonMap("mid", directEcid.toString())
+				)
+			);
+		assertTrue(identityState.bootupIfReady(mockSharedStateCallback));
+		assertTrue(identityState.bootupIfReady(mockSharedStateCallback));
+
+		// verify
+		assertEquals(IdentityState.BootState.BOOTED, identityState.getBootState());
+		assertEquals(directEcid, identityState.getIdentityProperties().getECID());
+		// the EventHub state, direct Identity persistence and registration were only checked once
+		verify(mockSharedStateCallback, times(1)).getSharedState(IdentityConstants.SharedState.Hub.NAME, null);
+		verify(mockIdentityStorageManager, times(1)).loadEcidFromDirectIdentityPersistence();
+		verify(mockSharedStateCallback, times(3))
+			.getSharedState(IdentityConstants.SharedState.IdentityDirect.NAME, null);
+
+		// the time spent in each bootup step is aggregated once the configuration enables the aggregator
+		IdentityMetrics.setAggregationEnabled(true);
+		final Map<String, Object> metrics = IdentityMetrics.getAggregatedMetrics();
+		assertTrue(metrics.containsKey(IdentityMetrics.BOOT_STATE_PREFIX + "LOADED"));
+		assertTrue(metrics.containsKey(IdentityMetrics.BOOT_STATE_PREFIX + "WAITING_HUB"));
+		assertTrue(metrics.containsKey(IdentityMetrics.BOOT_STATE_PREFIX + "WAITING_DIRECT"));
+	}
+
+	@Test
+	public void testBootUpIfReady_persistedECID_bootsWithoutCheckingSharedStates() {
+		// setup
+		final IdentityProperties persistedProperties = new IdentityProperties();
+		persistedProperties.setECID(new ECID());
+		when(mockIdentityStorageManager.loadPropertiesFromPersistence()).thenReturn(persistedProperties);
+		final IdentityState identityState = new IdentityState(mockIdentityStorageManager);
+
+		// test
+		assertTrue(identityState.bootupIfReady(mockSharedStateCallback));
+
+		// verify
+		assertEquals(IdentityState.BootState.BOOTED, identityState.getBootState());
+		verify(mockSharedStateCallback, never()).getSharedState(any(), any());
+		verify(mockIdentityStorageManager, never()).loadEcidFromDirectIdentityPersistence();
+	}
+
 	@Test
 	public void testBootUpIfReady_regeneratesECIDWhenIdentityDirectStateECIDIsNull() {
 		final IdentityState identityState = new IdentityState(mockIdentityStorageManager);
@@ -411,6 +567,7 @@ public class IdentityStateTests {
 			assertNull(state.getIdentityProperties().getECIDSecondary()); // should be cleared
 			assertNull(state.getIdentityProperties().getAdId()); // should be cleared
 			verify(mockIdentityStorageManager, times(1)).savePropertiesToPersistence(state.getIdentityProperties()); // should save to data store
+			verify(mockIdentityStorageManager, times(1)).flush(); // should not defer the write
 
 			// Verify consent event not sent (or any event). Consent should not be dispatched by resetIdentifiers
 			mockedStaticCore.verify(
@@ -422,6 +579,211 @@ public class IdentityStateTests {
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testResetIdentifiers_ecidPreMintEnabled_usesPreMintedECID() throws Exception {
+		// setup, capture the background tasks instead of running them
+		final List<Runnable> tasks = new ArrayList<>();
+		final IdentityState state = new IdentityState(mockIdentityStorageManager, tasks::add);
+		tasks.remove(0).run(); // preload
+		state.getIdentityProperties().setECID(new ECID());
+		state.setECIDPreMintEnabled(true);
+		assertTrue(tasks.isEmpty()); // not pre-minted before boot
+
+		assertTrue(state.bootupIfReady(mockSharedStateCallback));
+		assertEquals(1, tasks.size());
+		final FutureTask<ECID> preMint = (FutureTask<ECID>) tasks.remove(0);
+		preMint.run();
+
+		try (MockedStatic<MobileCore> ignored = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			state.resetIdentifiers();
+		}
+
+		// verify
+		assertEquals(preMint.get(), state.getIdentityProperties().getECID());
+		verify(mockIdentityStorageManager, times(1)).savePropertiesToPersistence(state.getIdentityProperties());
+		verify(mockIdentityStorageManager, times(1)).flush();
+		assertEquals(1, tasks.size()); // next ECID is pre-minted after the reset
+	}
+
+	@Test
+	public void testResetIdentifiers_ecidPreMintNotComplete_generatesECID() {
+		// setup
+		final List<Runnable> tasks = new ArrayList<>();
+		final IdentityState state = new IdentityState(mockIdentityStorageManager, tasks::add);
+		tasks.remove(0).run(); // preload
+		state.getIdentityProperties().setECID(new ECID());
+		assertTrue(state.bootupIfReady(mockSharedStateCallback));
+		final ECID bootECID = state.getIdentityProperties().getECID();
+		state.setECIDPreMintEnabled(true);
+		assertEquals(1, tasks.size()); // pre-mint not run
+
+		try (MockedStatic<MobileCore> ignored = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			state.resetIdentifiers();
+		}
+
+		// verify
+		assertNotNull(state.getIdentityProperties().getECID());
+		assertNotEquals(bootECID, state.getIdentityProperties().getECID());
+		assertEquals(2, tasks.size()); // a new pre-mint is started after the reset
+	}
+
+	@Test
+	public void testResetIdentifiers_ecidPreMintDisabled_doesNotStartBackgroundTask() {
+		// setup
+		final List<Runnable> tasks = new ArrayList<>();
+		final IdentityState state = new IdentityState(mockIdentityStorageManager, tasks::add);
+		tasks.remove(0).run(); // preload
+		state.getIdentityProperties().setECID(new ECID());
+		assertTrue(state.bootupIfReady(mockSharedStateCallback));
+		state.setECIDPreMintEnabled(true);
+		state.updateConfiguration(Collections.EMPTY_MAP); // disables pre-minting
+
+		try (MockedStatic<MobileCore> ignored = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			state.resetIdentifiers();
+		}
+
+		// verify
+		assertNotNull(state.getIdentityProperties().getECID());
+		assertEquals(1, tasks.size()); // only the discarded pre-mint
+	}
+
+	@Test
+	public void testShutdown_shutsDownBackgroundExecutorAndStorage() throws Exception {
+		// setup
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		final IdentityState state = new IdentityState(mockIdentityStorageManager, executor);
+
+		// test
+		state.shutdown();
+
+		// verify
+		assertTrue(executor.isShutdown());
+		assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+		verify(mockIdentityStorageManager, times(1)).shutdown();
+	}
+
+	@Test
+	public void testShutdown_doesNotPreMintECIDAfterShutdown() {
+		// setup
+		final List<Runnable> tasks = new ArrayList<>();
+		final IdentityState state = new IdentityState(mockIdentityStorageManager, tasks::add);
+		tasks.remove(0).run(); // preload
+		state.getIdentityProperties().setECID(new ECID());
+		assertTrue(state.bootupIfReady(mockSharedStateCallback));
+		final ECID bootECID = state.getIdentityProperties().getECID();
+
+		// test
+		state.shutdown();
+		state.setECIDPreMintEnabled(true);
+
+		try (MockedStatic<MobileCore> ignored = Mockito.mockStatic(MobileCore.class)) {
+			state.resetIdentifiers();
+		}
+
+		// verify
+		assertTrue(tasks.isEmpty());
+		assertNotNull(state.getIdentityProperties().getECID());
+		assertNotEquals(bootECID, state.getIdentityProperties().getECID());
+	}
+
+	@Test
+	public void testResetIdentifiers_publishesNewECID() {
+		// setup
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		state.getIdentityProperties().setECID(new ECID());
+		assertTrue(state.bootupIfReady(mockSharedStateCallback));
+
+		// test
+		state.resetIdentifiers();
+
+		// verify
+		assertEquals(
+			state.getIdentityProperties().getECID().toString(),
+			Identity
+				.getIdentitiesSnapshot()
+				.getIdentityMap()
+				.getIdentityItemsForNamespace(IdentityConstants.Namespaces.ECID)
+				.get(0)
+				.getId()
+		);
+	}
+
+	// ======================================================================================================================
+	// Tests for method : flushPersistence()
+	// ======================================================================================================================
+
+	@Test
+	public void testFlushPersistence() {
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+
+		state.flushPersistence();
+
+		verify(mockIdentityStorageManager, times(1)).flush();
+	}
+
+	// ======================================================================================================================
+	// Tests for method : updateConfiguration(final Map<String, Object> configurationState)
+	// ======================================================================================================================
+
+	@Test
+	public void testUpdateConfiguration_setsPersistenceWriteDelay() {
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+
+		state.updateConfiguration(
+			Collections.singletonMap(IdentityConstants.SharedState.Configuration.PERSISTENCE_WRITE_DELAY, 500L)
+		);
+
+		verify(mockIdentityStorageManager).setWriteDelay(500L);
+	}
+
+	@Test
+	public void testUpdateConfiguration_missingPersistenceWriteDelay_setsDefault() {
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+
+		state.updateConfiguration(Collections.EMPTY_MAP);
+
+		verify(mockIdentityStorageManager).setWriteDelay(0L);
+		verify(mockIdentityStorageManager).setJournalEnabled(false);
+		verify(mockIdentityStorageManager).setCompactFormatEnabled(false);
+	}
+
+	@Test
+	public void testUpdateConfiguration_setsUpdateCoalescingWindow_keepsWriteDelay() {
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		final Map<String, Object> configuration = new HashMap<>();
+		configuration.put(IdentityConstants.SharedState.Configuration.UPDATE_COALESCING_WINDOW, 200L);
+		configuration.put(IdentityConstants.SharedState.Configuration.PERSISTENCE_WRITE_DELAY, 100L);
+
+		state.updateConfiguration(configuration);
+
+		assertEquals(200L, state.getUpdateCoalescingWindow());
+		verify(mockIdentityStorageManager).setWriteDelay(100L);
+	}
+
+	@Test
+	public void testUpdateConfiguration_missingUpdateCoalescingWindow_disablesCoalescing() {
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+
+		state.updateConfiguration(Collections.EMPTY_MAP);
+
+		assertEquals(0L, state.getUpdateCoalescingWindow());
+	}
+
+	@Test
+	public void testUpdateConfiguration_setsPersistenceCompactFormat() {
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+
+		state.updateConfiguration(
+			Collections.singletonMap(IdentityConstants.SharedState.Configuration.PERSISTENCE_COMPACT_FORMAT, true)
+		);
+
+		verify(mockIdentityStorageManager).setCompactFormatEnabled(true);
+	}
+
 	// ======================================================================================================================
 	// Tests for method : updateCustomerIdentifiers(final IdentityMap map)
 	// ======================================================================================================================
@@ -446,6 +808,33 @@ public class IdentityStateTests {
 		assertEquals(identityXDM, capturedIdentityProperties.toXDMData(false));
 	}
 
+	@Test
+	public void testUpdateCustomerIdentifiers_publishesIdentitiesSnapshot() throws Exception {
+		// setup
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		state.getIdentityProperties().setECID(new ECID());
+		assertTrue(state.bootupIfReady(mockSharedStateCallback));
+		final IdentitySnapshot bootSnapshot = Identity.getIdentitiesSnapshot();
+
+		// test
+		state.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "secretID")))
+		);
+
+		// verify
+		final IdentitySnapshot snapshot = Identity.getIdentitiesSnapshot();
+		assertTrue(snapshot.isBooted());
+		assertEquals(1, snapshot.getIdentityMap().getIdentityItemsForNamespace("UserId").size());
+		// earlier snapshots are not modified
+		assertTrue(bootSnapshot.getIdentityMap().getIdentityItemsForNamespace("UserId").isEmpty());
+
+		// unchanged identities do not publish a new snapshot
+		state.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "secretID")))
+		);
+		assertSame(snapshot, Identity.getIdentitiesSnapshot());
+	}
+
 	@Test
 	public void testUpdateCustomerIdentifiers_doesNotUpdateReservedNamespace() throws Exception {
 		// setup
@@ -503,6 +892,180 @@ public class IdentityStateTests {
 		assertEquals(expectedIdentityXDM, capturedIdentityProperties.toXDMData(false));
 	}
 
+	@Test
+	public void testUpdateCustomerIdentifiers_duplicateIdentifier_doesNotPersist() throws Exception {
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		state.getIdentityProperties().setECID(new ECID());
+		final Map<String, Object> identityXDM = createXDMIdentityMap(
+			new IdentityTestUtil.TestItem("UserId", "secretID")
+		);
+		assertTrue(state.updateCustomerIdentifiers(IdentityMap.fromXDMMap(identityXDM)));
+		Mockito.reset(mockIdentityStorageManager);
+
+		// test
+		assertFalse(state.updateCustomerIdentifiers(IdentityMap.fromXDMMap(identityXDM)));
+
+		verify(mockIdentityStorageManager, never()).savePropertiesToPersistence(any());
+		verify(mockIdentityStorageManager, never()).appendToJournal(any(), any());
+	}
+
+	@Test
+	public void testUpdateCustomerIdentifiers_onlyReservedNamespaces_doesNotPersist() throws Exception {
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		state.getIdentityProperties().setECID(new ECID());
+
+		// test
+		assertFalse(
+			state.updateCustomerIdentifiers(
+				IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("GAID", "somevalue")))
+			)
+		);
+
+		verify(mockIdentityStorageManager, never()).savePropertiesToPersistence(any());
+	}
+
+	@Test
+	public void testUpdateCustomerIdentifiers_journalEnabled_appendsToJournal() throws Exception {
+		// setup
+		when(mockIdentityStorageManager.appendToJournal(any(), any())).thenReturn(true);
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+
+		// test
+		final Map<String, Object> identityXDM = createXDMIdentityMap(
+			new IdentityTestUtil.TestItem("UserId", "secretID")
+		);
+		state.updateCustomerIdentifiers(IdentityMap.fromXDMMap(identityXDM));
+
+		// verify only the change is persisted
+		final ArgumentCaptor<IdentityJournalEntry> entryCaptor = ArgumentCaptor.forClass(IdentityJournalEntry.class);
+		verify(mockIdentityStorageManager)
+			.appendToJournal(eq(state.getIdentityProperties()), entryCaptor.capture());
+		assertEquals(IdentityJournalEntry.Operation.UPDATE, entryCaptor.getValue().getOperation());
+		verify(mockIdentityStorageManager, never()).savePropertiesToPersistence(any());
+	}
+
+	@Test
+	public void testUpdateCustomerIdentifiers_overIdentityLimits_evictsAndCounts() throws Exception {
+		// setup
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		state.getIdentityProperties().setECID(new ECID("internalECID"));
+		final Map<String, Object> configuration = new HashMap<>();
+		configuration.put(IdentityConstants.SharedState.Configuration.MAX_IDENTITIES_PER_NAMESPACE, 2);
+		configuration.put(IdentityConstants.SharedState.Configuration.MAX_IDENTITIES, 3);
+		state.updateConfiguration(configuration);
+
+		// test
+		state.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(
+				createXDMIdentityMap(
+					new IdentityTestUtil.TestItem("UserId", "id1"),
+					new IdentityTestUtil.TestItem("UserId", "id2"),
+					new IdentityTestUtil.TestItem("UserId", "id3")
+				)
+			)
+		);
+		assertEquals(1, state.getEvictedIdentityCount());
+		state.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(
+				createXDMIdentityMap(
+					new IdentityTestUtil.TestItem("Email", "email1"),
+					new IdentityTestUtil.TestItem("Email", "email2")
+				)
+			)
+		);
+
+		// verify the least recently updated identifiers are evicted, and the ECID is kept
+		assertEquals(2, state.getEvictedIdentityCount());
+		final Map<String, Object> expectedIdentityXDM = createXDMIdentityMap(
+			new IdentityTestUtil.TestItem("ECID", "internalECID"),
+			new IdentityTestUtil.TestItem("UserId", "id3"),
+			new IdentityTestUtil.TestItem("Email", "email1"),
+			new IdentityTestUtil.TestItem("Email", "email2")
+		);
+		assertEquals(expectedIdentityXDM, state.getIdentityProperties().toXDMData(false));
+	}
+
+	@Test
+	public void testUpdateAndRemoveCustomerIdentifiers_coalescingEnabled_defersPersistenceToFlush() throws Exception {
+		// setup
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		state.updateConfiguration(
+			Collections.singletonMap(IdentityConstants.SharedState.Configuration.UPDATE_COALESCING_WINDOW, 200L)
+		);
+
+		// test
+		state.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "id1")))
+		);
+		state.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("Email", "email1")))
+		);
+		state.removeCustomerIdentifiers(
+			IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "id1")))
+		);
+
+		// verify the burst is only written when flushed
+		verify(mockIdentityStorageManager, times(3)).deferPropertiesToPersistence(state.getIdentityProperties());
+		verify(mockIdentityStorageManager, never()).savePropertiesToPersistence(any());
+		verify(mockIdentityStorageManager, never()).appendToJournal(any(), any());
+		verify(mockIdentityStorageManager, never()).flush();
+
+		state.flushPersistence();
+		verify(mockIdentityStorageManager, times(1)).flush();
+	}
+
+	@Test
+	public void testUpdateCustomerIdentifiers_journalEnabled_evictionSavesProperties() throws Exception {
+		// setup
+		when(mockIdentityStorageManager.appendToJournal(any(), any())).thenReturn(true);
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		state.setIdentityLimits(1, 0);
+
+		// test
+		state.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(
+				createXDMIdentityMap(
+					new IdentityTestUtil.TestItem("UserId", "id1"),
+					new IdentityTestUtil.TestItem("UserId", "id2")
+				)
+			)
+		);
+
+		// verify evictions are not journaled
+		assertEquals(1, state.getEvictedIdentityCount());
+		verify(mockIdentityStorageManager, never()).appendToJournal(any(), any());
+		verify(mockIdentityStorageManager).savePropertiesToPersistence(state.getIdentityProperties());
+	}
+
+	@Test
+	public void testUpdateCustomerIdentifiers_overIdentityLimits_reportsEvictionToMetrics() {
+		// setup
+		IdentityMetrics.setAggregationEnabled(true);
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		state.setIdentityLimits(1, 0);
+
+		// test
+		state.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(
+				createXDMIdentityMap(
+					new IdentityTestUtil.TestItem("UserId", "id1"),
+					new IdentityTestUtil.TestItem("UserId", "id2"),
+					new IdentityTestUtil.TestItem("UserId", "id3")
+				)
+			)
+		);
+		state.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "id3")))
+		);
+
+		// verify only the update which evicted identifiers is reported
+		final Map<String, Object> evictions = (Map<String, Object>) IdentityMetrics
+			.getAggregatedMetrics()
+			.get(IdentityMetrics.EVICT_IDENTITIES);
+		assertEquals(1L, evictions.get(IdentityConstants.EventDataKeys.Metrics.COUNT));
+		assertEquals(2L, evictions.get(IdentityConstants.EventDataKeys.Metrics.TOTAL_SIZE));
+	}
+
 	// ======================================================================================================================
 	// Tests for method : removeCustomerIdentifiers(final IdentityMap map)
 	// ======================================================================================================================
@@ -534,6 +1097,55 @@ public class IdentityStateTests {
 		);
 		final IdentityProperties capturedIdentityProperties = identityPropertiesArgumentCaptor.getValue();
 		assertEquals(expectedIdentityXDM, capturedIdentityProperties.toXDMData(false));
+		assertEquals(expectedIdentityXDM, Identity.getIdentitiesSnapshot().getIdentityMap().asXDMMap(false));
+	}
+
+	@Test
+	public void testApplyCustomerIdentifierChanges_persistsOnceAndPublishesSnapshot() throws Exception {
+		// setup
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		state
+			.getIdentityProperties()
+			.updateCustomerIdentifiers(
+				IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("anonymous", "anonymousId")))
+			);
+
+		// test
+		assertTrue(
+			state.applyCustomerIdentifierChanges(
+				IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("CRMID", "crmId"))),
+				IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("anonymous", "anonymousId")))
+			)
+		);
+
+		// verify
+		final Map<String, Object> expectedIdentityXDM = createXDMIdentityMap(
+			new IdentityTestUtil.TestItem("CRMID", "crmId")
+		);
+		final ArgumentCaptor<IdentityJournalEntry> entryCaptor = ArgumentCaptor.forClass(IdentityJournalEntry.class);
+		verify(mockIdentityStorageManager).appendToJournal(any(), entryCaptor.capture());
+		assertEquals(IdentityJournalEntry.Operation.APPLY_CHANGES, entryCaptor.getValue().getOperation());
+		verify(mockIdentityStorageManager, times(1)).savePropertiesToPersistence(any());
+		assertEquals(expectedIdentityXDM, state.getIdentityProperties().toXDMData(false));
+		assertEquals(expectedIdentityXDM, Identity.getIdentitiesSnapshot().getIdentityMap().asXDMMap(false));
+	}
+
+	@Test
+	public void testApplyCustomerIdentifierChanges_notModified_doesNotPersist() throws Exception {
+		// setup
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+
+		// test
+		assertFalse(
+			state.applyCustomerIdentifierChanges(
+				null,
+				IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "secretID")))
+			)
+		);
+
+		// verify
+		verify(mockIdentityStorageManager, never()).appendToJournal(any(), any());
+		verify(mockIdentityStorageManager, never()).savePropertiesToPersistence(any());
 	}
 
 	@Test
@@ -550,14 +1162,32 @@ public class IdentityStateTests {
 			new IdentityTestUtil.TestItem("GAID", "initialECID"),
 			new IdentityTestUtil.TestItem("ECID", initialECID.toString())
 		);
-		state.removeCustomerIdentifiers(IdentityMap.fromXDMMap(removedIdentityXDM));
+		final Map<String, Object> initialXDMData = initialProperties.toXDMData(false);
+		assertFalse(state.removeCustomerIdentifiers(IdentityMap.fromXDMMap(removedIdentityXDM)));
 
-		final ArgumentCaptor<IdentityProperties> identityPropertiesArgumentCaptor = ArgumentCaptor.forClass(
-			IdentityProperties.class
+		// verify nothing changed, so nothing is persisted
+		verify(mockIdentityStorageManager, never()).savePropertiesToPersistence(any());
+		assertEquals(initialXDMData, state.getIdentityProperties().toXDMData(false));
+	}
+
+	@Test
+	public void testRemoveCustomerIdentifiers_unknownIdentifier_doesNotPersist() throws Exception {
+		final IdentityState state = new IdentityState(mockIdentityStorageManager);
+		state.getIdentityProperties().setECID(new ECID());
+		state.updateCustomerIdentifiers(
+			IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "secretID")))
 		);
-		verify(mockIdentityStorageManager).savePropertiesToPersistence(identityPropertiesArgumentCaptor.capture());
-		final IdentityProperties capturedProperties = identityPropertiesArgumentCaptor.getValue();
-		assertEquals(initialProperties.toXDMData(false), capturedProperties.toXDMData(false));
+		Mockito.reset(mockIdentityStorageManager);
+
+		// test
+		assertFalse(
+			state.removeCustomerIdentifiers(
+				IdentityMap.fromXDMMap(createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "otherID")))
+			)
+		);
+
+		verify(mockIdentityStorageManager, never()).savePropertiesToPersistence(any());
+		verify(mockIdentityStorageManager, never()).appendToJournal(any(), any());
 	}
 
 	// ======================================================================================================================
@@ -630,7 +1260,7 @@ public class IdentityStateTests {
 	}
 
 	// ======================================================================================================================
-	// Tests for method : updateAdvertisingIdentifier(final Event event, final SharedStateCallback callback)
+	// Tests for method : updateAdvertisingIdentifier(final AdIdRequest request, final SharedStateCallback callback)
 	// ======================================================================================================================
 
 	// With consent change
@@ -744,7 +1374,7 @@ public class IdentityStateTests {
 		state.getIdentityProperties().setAdId(persistedAdId);
 		final Event event = fakeGenericIdentityEvent(newAdId);
 		try (MockedStatic<MobileCore> mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class)) {
-			state.updateAdvertisingIdentifier(event, mockSharedStateCallback);
+			state.updateAdvertisingIdentifier(EventUtils.decodeAdIdRequest(event), mockSharedStateCallback);
 
 			// Verify consent event
 			if (expectedConsent == null) {
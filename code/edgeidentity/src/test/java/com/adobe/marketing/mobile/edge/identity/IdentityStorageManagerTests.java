@@ -12,8 +12,13 @@
 package com.adobe.marketing.mobile.edge.identity;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -22,6 +27,10 @@ import static org.mockito.Mockito.when;
 import com.adobe.marketing.mobile.services.DataStoring;
 import com.adobe.marketing.mobile.services.NamedCollection;
 import com.adobe.marketing.mobile.services.ServiceProvider;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
 import org.json.JSONObject;
 import org.junit.After;
 import org.junit.Before;
@@ -37,6 +46,7 @@ public class IdentityStorageManagerTests {
 	private ServiceProvider mockServiceProvider;
 
 	private MockedStatic<ServiceProvider> mockedStaticServiceProvider;
+	private MockedStatic<?> mockedBase64;
 
 	@Mock
 	private DataStoring mockDataStoreService;
@@ -54,6 +64,7 @@ public class IdentityStorageManagerTests {
 		mockedStaticServiceProvider = Mockito.mockStatic(ServiceProvider.class);
 		mockedStaticServiceProvider.when(ServiceProvider::getInstance).thenReturn(mockServiceProvider);
 		when(mockServiceProvider.getDataStoreService()).thenReturn(mockDataStoreService);
+		mockedBase64 = IdentityTestUtil.mockAndroidBase64();
 
 		when(mockDataStoreService.getNamedCollection(IdentityConstants.DataStoreKey.DATASTORE_NAME))
 			.thenReturn(mockEdgeIdentityNamedCollection);
@@ -160,6 +171,362 @@ public class IdentityStorageManagerTests {
 			.setString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, expectedJSON);
 	}
 
+	@Test
+	public void testSavePropertiesToPersistence_withWriteDelay_defersWrite() {
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+		identityStorageManager.setWriteDelay(60000L);
+
+		// test
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		identityStorageManager.savePropertiesToPersistence(properties);
+
+		// verify
+		assertTrue(identityStorageManager.hasPendingWrite());
+		verify(mockEdgeIdentityNamedCollection, never()).setString(any(), any());
+	}
+
+	@Test
+	public void testFlush_withWriteDelay_writesLatestPropertiesOnce() {
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+		identityStorageManager.setWriteDelay(60000L);
+
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		identityStorageManager.savePropertiesToPersistence(properties);
+		properties.setAdId("adId");
+		identityStorageManager.savePropertiesToPersistence(properties);
+		final String expectedJSON = new JSONObject(properties.toXDMData(false)).toString();
+
+		// changes made after the last save are not written
+		properties.setAdId("otherAdId");
+
+		// test
+		identityStorageManager.flush();
+		identityStorageManager.flush();
+
+		// verify
+		assertFalse(identityStorageManager.hasPendingWrite());
+		verify(mockEdgeIdentityNamedCollection, times(1)).setString(any(), any());
+		verify(mockEdgeIdentityNamedCollection)
+			.setString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, expectedJSON);
+	}
+
+	@Test
+	public void testDeferPropertiesToPersistence_burstOfChanges_writesOnceOnFlush() {
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+
+		// test
+		for (int i = 0; i < 5; i++) {
+			properties.setAdId("adId" + i);
+			identityStorageManager.deferPropertiesToPersistence(properties);
+		}
+
+		// verify nothing is written until the burst is flushed, without a write delay
+		assertTrue(identityStorageManager.hasPendingWrite());
+		verify(mockEdgeIdentityNamedCollection, never()).setString(any(), any());
+
+		identityStorageManager.flush();
+
+		verify(mockEdgeIdentityNamedCollection, times(1)).setString(any(), any());
+		verify(mockEdgeIdentityNamedCollection)
+			.setString(
+				IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES,
+				new JSONObject(properties.toXDMData(false)).toString()
+			);
+	}
+
+	@Test
+	public void testFlush_noPendingWrite_doesNotWrite() {
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+
+		identityStorageManager.flush();
+
+		verify(mockEdgeIdentityNamedCollection, never()).setString(any(), any());
+	}
+
+	@Test
+	public void testSetWriteDelay_toZero_flushesPendingWrite() {
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+		identityStorageManager.setWriteDelay(60000L);
+
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		identityStorageManager.savePropertiesToPersistence(properties);
+
+		// test
+		identityStorageManager.setWriteDelay(0L);
+
+		// verify
+		assertFalse(identityStorageManager.hasPendingWrite());
+		final String expectedJSON = new JSONObject(properties.toXDMData(false)).toString();
+		verify(mockEdgeIdentityNamedCollection)
+			.setString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, expectedJSON);
+	}
+
+	@Test
+	public void testShutdown_withWriteDelay_writesPendingProperties() {
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+		identityStorageManager.setWriteDelay(60000L);
+
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		identityStorageManager.savePropertiesToPersistence(properties);
+
+		// test
+		identityStorageManager.shutdown();
+
+		// verify
+		assertFalse(identityStorageManager.hasPendingWrite());
+		final String expectedJSON = new JSONObject(properties.toXDMData(false)).toString();
+		verify(mockEdgeIdentityNamedCollection)
+			.setString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, expectedJSON);
+
+		// later deferred saves are still written
+		identityStorageManager.savePropertiesToPersistence(properties);
+		assertTrue(identityStorageManager.hasPendingWrite());
+		identityStorageManager.flush();
+		verify(mockEdgeIdentityNamedCollection, times(2))
+			.setString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, expectedJSON);
+	}
+
+	@Test
+	public void testSavePropertiesToPersistence_nullProps_discardsPendingWrite() {
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+		identityStorageManager.setWriteDelay(60000L);
+		identityStorageManager.savePropertiesToPersistence(new IdentityProperties());
+
+		// test
+		identityStorageManager.savePropertiesToPersistence(null);
+		identityStorageManager.flush();
+
+		// verify
+		verify(mockEdgeIdentityNamedCollection, times(1)).remove(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES);
+		verify(mockEdgeIdentityNamedCollection, never()).setString(any(), any());
+	}
+
+	@Test
+	public void testAppendToJournal_journalDisabled_returnsFalse() {
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setAdId("adId");
+
+		assertFalse(identityStorageManager.appendToJournal(properties, IdentityJournalEntry.setAdId("adId")));
+		verify(mockEdgeIdentityNamedCollection, never()).setString(any(), any());
+	}
+
+	@Test
+	public void testAppendToJournal_journalEnabled_writesEntry() {
+		final Map<String, Object> store = backEdgeIdentityStoreWithMap();
+		store.put(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + 0, "entry0");
+		store.put(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + 1, "entry1");
+		store.put(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_SIZE, 2);
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+		identityStorageManager.setJournalEnabled(true);
+
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setAdId("adId");
+		final IdentityJournalEntry entry = IdentityJournalEntry.setAdId("adId");
+
+		// test
+		assertTrue(identityStorageManager.appendToJournal(properties, entry));
+
+		// verify only the new entry and the journal size are written
+		assertEquals(entry.toJSONString(), store.get(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + 2));
+		assertEquals(3, store.get(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_SIZE));
+		assertEquals("entry0", store.get(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + 0));
+		assertEquals("entry1", store.get(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + 1));
+		verify(mockEdgeIdentityNamedCollection, times(1)).setString(any(), any());
+		verify(mockEdgeIdentityNamedCollection, never())
+			.setString(eq(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES), any());
+	}
+
+	@Test
+	public void testAppendToJournal_writesOnlyTheNewEntryPerChange() {
+		backEdgeIdentityStoreWithMap();
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+		identityStorageManager.setJournalEnabled(true);
+
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		identityStorageManager.savePropertiesToPersistence(properties);
+		Mockito.clearInvocations(mockEdgeIdentityNamedCollection);
+
+		// test
+		for (int i = 0; i < 3; i++) {
+			final IdentityMap customerIdentities = IdentityMap.fromXDMMap(
+				IdentityTestUtil.createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "id" + i))
+			);
+			properties.updateCustomerIdentifiers(customerIdentities);
+			assertTrue(
+				identityStorageManager.appendToJournal(properties, IdentityJournalEntry.update(customerIdentities))
+			);
+		}
+
+		// verify each change writes its own entry and the journal size, without rewriting the previous entries
+		verify(mockEdgeIdentityNamedCollection, times(3)).setString(any(), any());
+		verify(mockEdgeIdentityNamedCollection, times(3)).setInt(any(), anyInt());
+		verify(mockEdgeIdentityNamedCollection).setString(eq(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + 0), any());
+		verify(mockEdgeIdentityNamedCollection).setString(eq(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + 1), any());
+		verify(mockEdgeIdentityNamedCollection).setString(eq(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + 2), any());
+		verify(mockEdgeIdentityNamedCollection).setInt(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_SIZE, 3);
+		verify(mockEdgeIdentityNamedCollection, never()).remove(any());
+		assertEquals(
+			properties.toXDMData(false),
+			identityStorageManager.loadPropertiesFromPersistence().toXDMData(false)
+		);
+	}
+
+	@Test
+	public void testAppendToJournal_withWriteDelay_coalescesChangesIntoOneWrite() {
+		backEdgeIdentityStoreWithMap();
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+		identityStorageManager.setJournalEnabled(true);
+		identityStorageManager.setWriteDelay(60000L);
+
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+
+		// test, changes which are not journaled are saved as done by IdentityState
+		for (int i = 0; i < 3; i++) {
+			properties.setAdId("adId" + i);
+
+			if (!identityStorageManager.appendToJournal(properties, IdentityJournalEntry.setAdId("adId" + i))) {
+				identityStorageManager.savePropertiesToPersistence(properties);
+			}
+		}
+
+		// verify nothing is written until the deferred write
+		assertTrue(identityStorageManager.hasPendingWrite());
+		verify(mockEdgeIdentityNamedCollection, never()).setString(any(), any());
+
+		identityStorageManager.flush();
+		verify(mockEdgeIdentityNamedCollection, times(1)).setString(any(), any());
+		assertEquals(
+			properties.toXDMData(false),
+			identityStorageManager.loadPropertiesFromPersistence().toXDMData(false)
+		);
+	}
+
+	@Test
+	public void testAppendToJournal_journalFull_compactsIntoSnapshot() {
+		final Map<String, Object> store = backEdgeIdentityStoreWithMap();
+
+		for (int i = 0; i < IdentityConstants.Default.JOURNAL_COMPACTION_THRESHOLD; i++) {
+			store.put(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + i, "entry");
+		}
+
+		store.put(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_SIZE, IdentityConstants.Default.JOURNAL_COMPACTION_THRESHOLD);
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+		identityStorageManager.setJournalEnabled(true);
+
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setAdId("adId");
+
+		// test
+		assertTrue(identityStorageManager.appendToJournal(properties, IdentityJournalEntry.setAdId("adId")));
+
+		// verify the snapshot is written and the journal cleared
+		final String expectedJSON = new JSONObject(properties.toXDMData(false)).toString();
+		assertEquals(expectedJSON, store.get(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES));
+		assertEquals(1, store.size());
+		assertNull(store.get(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_SIZE));
+	}
+
+	@Test
+	public void testLoadPropertiesFromPersistence_replaysJournal() {
+		// setup
+		final IdentityProperties persistedProps = new IdentityProperties();
+		persistedProps.setECID(new ECID());
+		when(mockEdgeIdentityNamedCollection.getString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, null))
+			.thenReturn(new JSONObject(persistedProps.toXDMData(false)).toString());
+
+		final IdentityMap customerIdentities = IdentityMap.fromXDMMap(
+			IdentityTestUtil.createXDMIdentityMap(new IdentityTestUtil.TestItem("UserId", "secretID"))
+		);
+		when(mockEdgeIdentityNamedCollection.getInt(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_SIZE, 0)).thenReturn(2);
+		when(mockEdgeIdentityNamedCollection.getString(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + 0, null))
+			.thenReturn(IdentityJournalEntry.update(customerIdentities).toJSONString());
+		when(mockEdgeIdentityNamedCollection.getString(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + 1, null))
+			.thenReturn(IdentityJournalEntry.setAdId("adId").toJSONString());
+
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+
+		// test
+		final IdentityProperties props = identityStorageManager.loadPropertiesFromPersistence();
+
+		// verify
+		persistedProps.updateCustomerIdentifiers(customerIdentities);
+		persistedProps.setAdId("adId");
+		assertEquals(persistedProps.toXDMData(false), props.toXDMData(false));
+	}
+
+	@Test
+	public void testSavePropertiesToPersistence_validProps_clearsJournal() {
+		when(mockEdgeIdentityNamedCollection.getInt(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_SIZE, 0)).thenReturn(1);
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		identityStorageManager.savePropertiesToPersistence(properties);
+
+		verify(mockEdgeIdentityNamedCollection).remove(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_SIZE);
+		verify(mockEdgeIdentityNamedCollection).remove(IdentityConstants.DataStoreKey.IDENTITY_JOURNAL_ENTRY_PREFIX + 0);
+	}
+
+	@Test
+	public void testSavePropertiesToPersistence_compactFormatEnabled_writesCompactString() {
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+		identityStorageManager.setCompactFormatEnabled(true);
+
+		final IdentityProperties properties = new IdentityProperties();
+		properties.setECID(new ECID());
+		identityStorageManager.savePropertiesToPersistence(properties);
+
+		verify(mockEdgeIdentityNamedCollection)
+			.setString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, properties.toCompactString());
+	}
+
+	@Test
+	public void testLoadPropertiesFromPersistence_compactFormat() {
+		final IdentityProperties persistedProps = new IdentityProperties();
+		persistedProps.setECID(new ECID());
+		persistedProps.setAdId("adId");
+		when(mockEdgeIdentityNamedCollection.getString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, null))
+			.thenReturn(persistedProps.toCompactString());
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+
+		final IdentityProperties props = identityStorageManager.loadPropertiesFromPersistence();
+
+		assertEquals(persistedProps.toXDMData(false), props.toXDMData(false));
+	}
+
+	@Test
+	public void testLoadPropertiesFromPersistence_invalidCompactFormat_returnsNull() {
+		when(mockEdgeIdentityNamedCollection.getString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, null))
+			.thenReturn("7QEB");
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+
+		assertNull(identityStorageManager.loadPropertiesFromPersistence());
+	}
+
+	@Test
+	public void testLoadPropertiesFromPersistence_compactFormatWithTrailingData_returnsNull() {
+		final IdentityProperties persistedProps = new IdentityProperties();
+		persistedProps.setECID(new ECID());
+		final byte[] encoded = Base64.getDecoder().decode(persistedProps.toCompactString());
+		final byte[] withTrailingByte = Arrays.copyOf(encoded, encoded.length + 1);
+		when(mockEdgeIdentityNamedCollection.getString(IdentityConstants.DataStoreKey.IDENTITY_PROPERTIES, null))
+			.thenReturn(Base64.getEncoder().encodeToString(withTrailingByte));
+		final IdentityStorageManager identityStorageManager = new IdentityStorageManager(mockDataStoreService);
+
+		assertNull(identityStorageManager.loadPropertiesFromPersistence());
+	}
+
 	@Test
 	public void testLoadEcidFromDirectIdentityPersistence_DirectIdentityStoreIsNull() {
 		when(mockDataStoreService.getNamedCollection(IdentityConstants.DataStoreKey.IDENTITY_DIRECT_DATASTORE_NAME))
@@ -204,5 +571,35 @@ public class IdentityStorageManagerTests {
 	@After
 	public void teardown() {
 		mockedStaticServiceProvider.close();
+		mockedBase64.close();
+	}
+
+	/**
+	 * Backs the string and int values of the mocked Edge Identity store with a map, so written values can be read back.
+	 *
+	 * @return the map holding the values of the store
+	 */
+	private Map<String, Object> backEdgeIdentityStoreWithMap() {
+		final Map<String, Object> store = new HashMap<>();
+		when(mockEdgeIdentityNamedCollection.getString(any(), any()))
+			.thenAnswer(invocation -> {
+				final Object value = store.get(invocation.<String>getArgument(0));
+				return value instanceof String ? value : invocation.getArgument(1);
+			});
+		when(mockEdgeIdentityNamedCollection.getInt(any(), anyInt()))
+			.thenAnswer(invocation -> {
+				final Object value = store.get(invocation.<String>getArgument(0));
+				return value instanceof Integer ? value : invocation.getArgument(1);
+			});
+		doAnswer(invocation -> store.put(invocation.getArgument(0), invocation.getArgument(1)))
+			.when(mockEdgeIdentityNamedCollection)
+			.setString(any(), any());
+		doAnswer(invocation -> store.put(invocation.getArgument(0), invocation.<Integer>getArgument(1)))
+			.when(mockEdgeIdentityNamedCollection)
+			.setInt(any(), anyInt());
+		doAnswer(invocation -> store.remove(invocation.<String>getArgument(0)))
+			.when(mockEdgeIdentityNamedCollection)
+			.remove(any());
+		return store;
 	}
 }
@@ -11,6 +11,11 @@
 
 package com.adobe.marketing.mobile.edge.identity;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+
+import android.util.Base64;
 import com.adobe.marketing.mobile.Event;
 import com.adobe.marketing.mobile.EventSource;
 import com.adobe.marketing.mobile.EventType;
@@ -30,6 +35,8 @@ import java.util.List;
 import java.util.Map;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
 
 /**
  * Util class used by both Functional and Unit tests
@@ -39,6 +46,21 @@ class IdentityTestUtil {
 	private static final String LOG_SOURCE = "IdentityTestUtil";
 	private static final String LOG_TAG = "FunctionalTestUtils";
 
+	/**
+	 * Mocks {@link Base64}, which is not implemented in unit tests, with the JVM {@link java.util.Base64}.
+	 * The returned {@code MockedStatic} must be closed after the test.
+	 */
+	static MockedStatic<Base64> mockAndroidBase64() {
+		final MockedStatic<Base64> mockedBase64 = Mockito.mockStatic(Base64.class);
+		mockedBase64
+			.when(() -> Base64.encodeToString(any(byte[].class), anyInt()))
+			.thenAnswer(invocation -> java.util.Base64.getEncoder().encodeToString(invocation.getArgument(0)));
+		mockedBase64
+			.when(() -> Base64.decode(anyString(), anyInt()))
+			.thenAnswer(invocation -> java.util.Base64.getDecoder().decode(invocation.<String>getArgument(0)));
+		return mockedBase64;
+	}
+
 	/**
 	 * Helper method to create IdentityXDM Map using {@link TestItem}s
 	 */
@@ -83,6 +105,19 @@ class IdentityTestUtil {
 			.build();
 	}
 
+	/**
+	 * Helper method to build apply identity changes request event with XDM formatted Identity maps
+	 */
+	static Event buildApplyIdentityChangesRequest(final Map<String, Object> map) {
+		return new Event.Builder(
+			"Apply Identity Changes Event",
+			EventType.EDGE_IDENTITY,
+			IdentityConstants.EventSources.APPLY_IDENTITY_CHANGES
+		)
+			.setEventData(map)
+			.build();
+	}
+
 	/**
 	 * Helper method to build update identity request event with XDM formatted Identity jsonString
 	 */
@@ -101,6 +136,15 @@ class IdentityTestUtil {
 			.build();
 	}
 
+	/**
+	 * Helper method to build get url variables request event
+	 */
+	static Event buildUrlVariablesRequest() {
+		return new Event.Builder("Get URL Variables Event", EventType.EDGE_IDENTITY, EventSource.REQUEST_IDENTITY)
+			.setEventData(Collections.singletonMap(IdentityConstants.EventDataKeys.URL_VARIABLES, true))
+			.build();
+	}
+
 	/**
 	 * Serialize the given {@code jsonString} to a JSON Object, then flattens to {@code Map<String, String>}.
 	 * If the provided string is not in JSON structure an {@link JSONException} is thrown.
@@ -12,8 +12,10 @@
 package com.adobe.marketing.mobile.edge.identity;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,6 +24,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 
+import androidx.annotation.NonNull;
 import com.adobe.marketing.mobile.AdobeCallback;
 import com.adobe.marketing.mobile.AdobeCallbackWithError;
 import com.adobe.marketing.mobile.AdobeError;
@@ -31,10 +34,13 @@ import com.adobe.marketing.mobile.EventType;
 import com.adobe.marketing.mobile.MobileCore;
 import com.adobe.marketing.mobile.util.JSONUtils;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.json.JSONObject;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -47,6 +53,13 @@ public class IdentityTests {
 	@Before
 	public void setup() {
 		MockitoAnnotations.openMocks(this);
+		Identity.setIdentitySnapshot(null);
+	}
+
+	@After
+	public void teardown() {
+		Identity.setIdentitySnapshot(null);
+		Identity.setInstrumentation(null);
 	}
 
 	// ========================================================================================
@@ -574,6 +587,131 @@ public class IdentityTests {
 		assertEquals(AdobeError.UNEXPECTED_ERROR, errorCapture.get(KEY_CAPTURED_ERROR_CALLBACK));
 	}
 
+	@Test
+	public void testGetUrlVariables_withUrls() {
+		// setup
+		final ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+		final ArgumentCaptor<AdobeCallbackWithError> adobeCallbackCaptor = ArgumentCaptor.forClass(
+			AdobeCallbackWithError.class
+		);
+		final List<List<String>> callbackReturnValues = new ArrayList<>();
+		final List<String> urls = new ArrayList<>();
+		urls.add("https://example.com");
+		urls.add(null);
+
+		try (MockedStatic<MobileCore> mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			Identity.getUrlVariables(
+				urls,
+				new AdobeCallback<List<String>>() {
+					@Override
+					public void call(List<String> decoratedUrls) {
+						callbackReturnValues.add(decoratedUrls);
+					}
+				}
+			);
+
+			mockedStaticMobileCore.verify(() ->
+				MobileCore.dispatchEventWithResponseCallback(
+					eventCaptor.capture(),
+					eq(500L),
+					adobeCallbackCaptor.capture()
+				)
+			);
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+
+		// verify the dispatched event details, a single event is dispatched for all the urls
+		final Event dispatchedEvent = eventCaptor.getValue();
+		assertEquals(IdentityConstants.EventNames.IDENTITY_REQUEST_URL_VARIABLES, dispatchedEvent.getName());
+		assertEquals(EventType.EDGE_IDENTITY, dispatchedEvent.getType());
+		assertEquals(EventSource.REQUEST_IDENTITY, dispatchedEvent.getSource());
+		assertTrue((boolean) dispatchedEvent.getEventData().get("urlvariables"));
+		assertEquals(Arrays.asList("https://example.com", ""), dispatchedEvent.getEventData().get("urls"));
+
+		// verify callback responses
+		final List<String> decoratedUrls = Arrays.asList("https://example.com?adobe_mc=test", "");
+		final Map<String, Object> urlVariablesResponse = new HashMap<>();
+		urlVariablesResponse.put("urlvariables", "adobe_mc=test");
+		urlVariablesResponse.put("urls", decoratedUrls);
+
+		adobeCallbackCaptor.getValue().call(buildUrlVariablesResponseEvent(urlVariablesResponse));
+		assertEquals(decoratedUrls, callbackReturnValues.get(0));
+	}
+
+	@Test
+	public void testGetUrlVariables_withUrls_missingUrlsInResponseData() {
+		// setup
+		final List<AdobeError> capturedErrors = new ArrayList<>();
+		final ArgumentCaptor<AdobeCallbackWithError> adobeCallbackCaptor = ArgumentCaptor.forClass(
+			AdobeCallbackWithError.class
+		);
+		final AdobeCallbackWithError<List<String>> callbackWithError = new AdobeCallbackWithError<List<String>>() {
+			@Override
+			public void fail(AdobeError adobeError) {
+				capturedErrors.add(adobeError);
+			}
+
+			@Override
+			public void call(List<String> o) {}
+		};
+
+		try (MockedStatic<MobileCore> mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			Identity.getUrlVariables(Arrays.asList("https://example.com"), callbackWithError);
+
+			mockedStaticMobileCore.verify(() ->
+				MobileCore.dispatchEventWithResponseCallback(any(Event.class), eq(500L), adobeCallbackCaptor.capture())
+			);
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+
+		// response from an error, without decorated urls
+		final Map<String, Object> urlVariablesResponse = new HashMap<>();
+		urlVariablesResponse.put("urlvariables", null);
+		adobeCallbackCaptor.getValue().call(buildUrlVariablesResponseEvent(urlVariablesResponse));
+
+		// verify
+		assertEquals(Arrays.asList(AdobeError.UNEXPECTED_ERROR), capturedErrors);
+	}
+
+	@Test
+	public void testGetUrlVariables_withUrls_nullUrlsOrCallback() {
+		final List<AdobeError> capturedErrors = new ArrayList<>();
+		final AdobeCallbackWithError<List<String>> callbackWithError = new AdobeCallbackWithError<List<String>>() {
+			@Override
+			public void fail(AdobeError adobeError) {
+				capturedErrors.add(adobeError);
+			}
+
+			@Override
+			public void call(List<String> o) {}
+		};
+
+		try (MockedStatic<MobileCore> mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			Identity.getUrlVariables(null, callbackWithError);
+			Identity.getUrlVariables(Arrays.asList("https://example.com"), null);
+
+			mockedStaticMobileCore.verify(
+				() ->
+					MobileCore.dispatchEventWithResponseCallback(
+						any(Event.class),
+						anyLong(),
+						any(AdobeCallbackWithError.class)
+					),
+				never()
+			);
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+
+		// verify
+		assertEquals(Arrays.asList(AdobeError.UNEXPECTED_ERROR), capturedErrors);
+	}
+
 	// ========================================================================================
 	// updateIdentities API
 	// ========================================================================================
@@ -677,6 +815,122 @@ public class IdentityTests {
 		}
 	}
 
+	// ========================================================================================
+	// removeIdentities API
+	// ========================================================================================
+
+	@Test
+	public void testRemoveIdentities() {
+		// setup
+		final ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+		final IdentityMap map = new IdentityMap();
+
+		for (int i = 0; i < 20; i++) {
+			map.addItem(new IdentityItem("stale" + i), i % 2 == 0 ? "namespace" : "othernamespace");
+		}
+
+		try (MockedStatic<MobileCore> mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			Identity.removeIdentities(map);
+
+			mockedStaticMobileCore.verify(() -> MobileCore.dispatchEvent(eventCaptor.capture()), times(1));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+
+		// verify a single event carries all the identities
+		final Event dispatchedEvent = eventCaptor.getValue();
+		assertEquals(IdentityConstants.EventNames.REMOVE_IDENTITIES, dispatchedEvent.getName());
+		assertEquals(EventType.EDGE_IDENTITY, dispatchedEvent.getType());
+		assertEquals(EventSource.REMOVE_IDENTITY, dispatchedEvent.getSource());
+		assertEquals(map.asXDMMap(false), dispatchedEvent.getEventData());
+	}
+
+	@Test
+	public void testRemoveIdentities_nullOrEmptyMap_doesNotDispatch() {
+		try (MockedStatic<MobileCore> mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			Identity.removeIdentities(null);
+			Identity.removeIdentities(new IdentityMap());
+
+			// verify that no event is dispatched
+			mockedStaticMobileCore.verify(() -> MobileCore.dispatchEvent(any(Event.class)), never());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	// ========================================================================================
+	// applyIdentityChanges API
+	// ========================================================================================
+
+	@Test
+	public void testApplyIdentityChanges() {
+		// setup
+		final ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+		final IdentityMap added = new IdentityMap();
+		added.addItem(new IdentityItem("crmId", AuthenticatedState.AUTHENTICATED, true), "CRMID");
+		final IdentityMap removed = new IdentityMap();
+		removed.addItem(new IdentityItem("anonymousId"), "anonymous");
+
+		try (MockedStatic<MobileCore> mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			Identity.applyIdentityChanges(added, removed);
+
+			mockedStaticMobileCore.verify(() -> MobileCore.dispatchEvent(eventCaptor.capture()));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+
+		// verify a single event carries both changes
+		final Event dispatchedEvent = eventCaptor.getValue();
+		assertEquals(IdentityConstants.EventNames.APPLY_IDENTITY_CHANGES, dispatchedEvent.getName());
+		assertEquals(EventType.EDGE_IDENTITY, dispatchedEvent.getType());
+		assertEquals(IdentityConstants.EventSources.APPLY_IDENTITY_CHANGES, dispatchedEvent.getSource());
+
+		final Map<String, Object> expectedEventData = new HashMap<>(added.asXDMMap(false));
+		expectedEventData.put(IdentityConstants.EventDataKeys.REMOVED_IDENTITIES, removed.asXDMMap(false));
+		assertEquals(expectedEventData, dispatchedEvent.getEventData());
+	}
+
+	@Test
+	public void testApplyIdentityChanges_onlyRemovals() {
+		// setup
+		final ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+		final IdentityMap removed = new IdentityMap();
+		removed.addItem(new IdentityItem("anonymousId"), "anonymous");
+
+		try (MockedStatic<MobileCore> mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			Identity.applyIdentityChanges(new IdentityMap(), removed);
+
+			mockedStaticMobileCore.verify(() -> MobileCore.dispatchEvent(eventCaptor.capture()));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+
+		// verify
+		assertEquals(
+			Collections.singletonMap(IdentityConstants.EventDataKeys.REMOVED_IDENTITIES, removed.asXDMMap(false)),
+			eventCaptor.getValue().getEventData()
+		);
+	}
+
+	@Test
+	public void testApplyIdentityChanges_nullOrEmptyMaps_doesNotDispatch() {
+		try (MockedStatic<MobileCore> mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			Identity.applyIdentityChanges(null, null);
+			Identity.applyIdentityChanges(new IdentityMap(), null);
+			Identity.applyIdentityChanges(null, new IdentityMap());
+
+			// verify that no event is dispatched
+			mockedStaticMobileCore.verify(() -> MobileCore.dispatchEvent(any(Event.class)), never());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
 	// ========================================================================================
 	// getIdentities API
 	// ========================================================================================
@@ -961,6 +1215,77 @@ public class IdentityTests {
 		assertEquals(AdobeError.UNEXPECTED_ERROR, errorCapture.get(KEY_CAPTURED_ERROR_CALLBACK));
 	}
 
+	// ========================================================================================
+	// getIdentitiesSnapshot API
+	// ========================================================================================
+	@Test
+	public void testGetIdentitiesSnapshot_notBooted_returnsEmptySnapshot() {
+		try (MockedStatic<MobileCore> mockedStaticMobileCore = Mockito.mockStatic(MobileCore.class)) {
+			// test
+			final IdentitySnapshot snapshot = Identity.getIdentitiesSnapshot();
+
+			// verify
+			assertNotNull(snapshot);
+			assertFalse(snapshot.isBooted());
+			assertTrue(snapshot.getIdentityMap().isEmpty());
+			mockedStaticMobileCore.verifyNoInteractions();
+		}
+	}
+
+	@Test
+	public void testGetIdentitiesSnapshot_returnsPublishedSnapshot() {
+		// setup
+		final IdentityMap identityMap = new IdentityMap();
+		identityMap.addItem(new IdentityItem("id"), "namespace");
+		final IdentitySnapshot published = new IdentitySnapshot(identityMap.asReadOnly(), true);
+		Identity.setIdentitySnapshot(published);
+
+		// test
+		final IdentitySnapshot snapshot = Identity.getIdentitiesSnapshot();
+
+		// verify
+		assertSame(published, snapshot);
+		assertTrue(snapshot.isBooted());
+		assertEquals("id", snapshot.getIdentityMap().getIdentityItemsForNamespace("namespace").get(0).getId());
+
+		// the snapshot map cannot be modified
+		snapshot.getIdentityMap().addItem(new IdentityItem("other"), "namespace");
+		assertEquals(1, snapshot.getIdentityMap().getIdentityItemsForNamespace("namespace").size());
+	}
+
+	// ========================================================================================
+	// setInstrumentation API
+	// ========================================================================================
+	@Test
+	public void testSetInstrumentation_receivesMeasurements() {
+		// setup
+		final List<String> handledNames = new ArrayList<>();
+		final IdentityInstrumentation instrumentation = new IdentityInstrumentation() {
+			@Override
+			public void onEventHandled(@NonNull final String name, final long durationNanos, final int identityCount) {
+				handledNames.add(name);
+			}
+
+			@Override
+			public void onPersistenceRead(final long durationNanos, final int bytes) {}
+
+			@Override
+			public void onPersistenceWrite(final long durationNanos, final int bytes) {}
+			// onBootStateCompleted is optional
+		};
+
+		// test
+		Identity.setInstrumentation(instrumentation);
+		IdentityMetrics.recordEventHandled(IdentityMetrics.UPDATE_IDENTITIES, IdentityMetrics.startTimer(), 0);
+		IdentityMetrics.recordBootState("LOADED", IdentityMetrics.startTimer());
+		Identity.setInstrumentation(null);
+		IdentityMetrics.recordEventHandled(IdentityMetrics.UPDATE_IDENTITIES, IdentityMetrics.startTimer(), 0);
+
+		// verify
+		assertEquals(Collections.singletonList(IdentityMetrics.UPDATE_IDENTITIES), handledNames);
+		assertEquals(IdentityMetrics.NOT_TIMED, IdentityMetrics.startTimer());
+	}
+
 	// ========================================================================================
 	// Private methods
 	// ========================================================================================
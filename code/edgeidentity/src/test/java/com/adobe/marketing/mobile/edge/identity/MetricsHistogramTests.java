@@ -0,0 +1,78 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MetricsHistogramTests {
+
+	@Test
+	public void test_emptyHistogram_reportsZeros() {
+		final MetricsHistogram histogram = new MetricsHistogram();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMin());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getMean());
+		assertEquals(0, histogram.getPercentile(50));
+	}
+
+	@Test
+	public void test_record_tracksCountMinMaxAndMean() {
+		final MetricsHistogram histogram = new MetricsHistogram();
+
+		histogram.record(10);
+		histogram.record(30);
+		histogram.record(-5);
+
+		assertEquals(3, histogram.getCount());
+		assertEquals(0, histogram.getMin());
+		assertEquals(30, histogram.getMax());
+		assertEquals(13, histogram.getMean());
+	}
+
+	@Test
+	public void test_bucketUpperBound_containsEveryValueOfItsBucket() {
+		final long[] values = { 0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789L, Long.MAX_VALUE };
+
+		for (final long value : values) {
+			final int index = MetricsHistogram.bucketIndex(value);
+			assertTrue(value <= MetricsHistogram.bucketUpperBound(index));
+
+			if (index > 0) {
+				assertTrue(value > MetricsHistogram.bucketUpperBound(index - 1));
+			}
+		}
+	}
+
+	@Test
+	public void test_getPercentile_withinBucketPrecision() {
+		final MetricsHistogram histogram = new MetricsHistogram();
+
+		for (long value = 1; value <= 1000; value++) {
+			histogram.record(value * 1000);
+		}
+
+		assertWithinPrecision(500000, histogram.getPercentile(50));
+		assertWithinPrecision(900000, histogram.getPercentile(90));
+		assertWithinPrecision(990000, histogram.getPercentile(99));
+		assertEquals(1000000, histogram.getPercentile(100));
+	}
+
+	private static void assertWithinPrecision(final long expected, final long actual) {
+		assertTrue("expected " + expected + " but was " + actual, actual >= expected);
+		assertTrue("expected " + expected + " but was " + actual, actual <= expected + expected / 8);
+	}
+}
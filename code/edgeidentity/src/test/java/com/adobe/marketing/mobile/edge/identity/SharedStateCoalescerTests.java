@@ -0,0 +1,152 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.adobe.marketing.mobile.SharedStateResolver;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class SharedStateCoalescerTests {
+
+	private static final long LONG_WINDOW_MILLIS = 60000L;
+
+	@Test
+	public void test_coalesce_whenNotPending_returnsFalse() {
+		final SharedStateCoalescer coalescer = new SharedStateCoalescer();
+
+		assertFalse(coalescer.coalesce(Collections.singletonMap("key", "value")));
+		assertFalse(coalescer.isPending());
+	}
+
+	@Test
+	public void test_resolve_resolvesOnceWithLatestState() {
+		// setup
+		final SharedStateCoalescer coalescer = new SharedStateCoalescer();
+		final List<Map<String, Object>> resolvedStates = new ArrayList<>();
+		final SharedStateResolver resolver = resolvedStates::add;
+		final Map<String, Object> first = Collections.singletonMap("key", "first");
+		final Map<String, Object> second = Collections.singletonMap("key", "second");
+		final Map<String, Object> third = Collections.singletonMap("key", "third");
+
+		// test
+		coalescer.start(resolver, first, LONG_WINDOW_MILLIS);
+		assertTrue(coalescer.isPending());
+		assertTrue(coalescer.coalesce(second));
+		assertTrue(coalescer.coalesce(third));
+		coalescer.resolve();
+		coalescer.resolve();
+
+		// verify
+		assertFalse(coalescer.isPending());
+		assertEquals(1, resolvedStates.size());
+		assertSame(third, resolvedStates.get(0));
+	}
+
+	@Test
+	public void test_start_resolvesPreviousPendingState() {
+		// setup
+		final SharedStateCoalescer coalescer = new SharedStateCoalescer();
+		final List<Map<String, Object>> firstResolved = new ArrayList<>();
+		final List<Map<String, Object>> secondResolved = new ArrayList<>();
+		final Map<String, Object> first = Collections.singletonMap("key", "first");
+		final Map<String, Object> second = Collections.singletonMap("key", "second");
+
+		// test
+		coalescer.start(firstResolved::add, first, LONG_WINDOW_MILLIS);
+		coalescer.start(secondResolved::add, second, LONG_WINDOW_MILLIS);
+
+		// verify
+		assertEquals(Collections.singletonList(first), firstResolved);
+		assertTrue(secondResolved.isEmpty());
+		assertTrue(coalescer.isPending());
+		coalescer.resolve();
+		assertEquals(Collections.singletonList(second), secondResolved);
+	}
+
+	@Test
+	public void test_resolve_runsOnResolvedOncePerBurst() {
+		// setup
+		final int[] resolvedBursts = new int[1];
+		final SharedStateCoalescer coalescer = new SharedStateCoalescer(() -> resolvedBursts[0]++);
+		final Map<String, Object> state = Collections.singletonMap("key", "value");
+
+		// test
+		coalescer.start(resolvedState -> {}, state, LONG_WINDOW_MILLIS);
+		assertTrue(coalescer.coalesce(state));
+		assertTrue(coalescer.coalesce(state));
+		coalescer.resolve();
+		coalescer.resolve();
+		coalescer.start(resolvedState -> {}, state, LONG_WINDOW_MILLIS);
+		coalescer.resolve();
+
+		// verify
+		assertEquals(2, resolvedBursts[0]);
+	}
+
+	@Test
+	public void test_start_resolvesWhenWindowElapses() throws Exception {
+		// setup
+		final SharedStateCoalescer coalescer = new SharedStateCoalescer();
+		final CountDownLatch latch = new CountDownLatch(1);
+		final Map<String, Object> state = Collections.singletonMap("key", "value");
+
+		// test
+		coalescer.start(resolvedState -> latch.countDown(), state, 10L);
+
+		// verify
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertFalse(coalescer.isPending());
+	}
+
+	@Test
+	public void test_coalesce_withoutOtherEvents_resolvesLatestStateAtWindowDeadline() throws Exception {
+		// setup
+		final long windowMillis = 200L;
+		final SharedStateCoalescer coalescer = new SharedStateCoalescer();
+		final CountDownLatch latch = new CountDownLatch(1);
+		final List<Map<String, Object>> resolvedStates = Collections.synchronizedList(new ArrayList<>());
+		final long[] resolvedAtNanos = new long[1];
+		final Map<String, Object> first = Collections.singletonMap("key", "first");
+		final Map<String, Object> second = Collections.singletonMap("key", "second");
+
+		// test
+		final long startNanos = System.nanoTime();
+		coalescer.start(
+			resolvedState -> {
+				resolvedAtNanos[0] = System.nanoTime();
+				resolvedStates.add(resolvedState);
+				latch.countDown();
+			},
+			first,
+			windowMillis
+		);
+		assertTrue(coalescer.coalesce(second));
+
+		// verify, the state is only resolved once the window elapses, with the latest coalesced state
+		assertFalse(latch.await(windowMillis / 4, TimeUnit.MILLISECONDS));
+		assertTrue(coalescer.isPending());
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertFalse(coalescer.isPending());
+		assertEquals(Collections.singletonList(second), resolvedStates);
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(resolvedAtNanos[0] - startNanos) >= windowMillis);
+	}
+}
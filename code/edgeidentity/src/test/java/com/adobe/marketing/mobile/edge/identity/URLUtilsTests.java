@@ -12,6 +12,7 @@
 package com.adobe.marketing.mobile.edge.identity;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import org.junit.Test;
 
@@ -34,4 +35,40 @@ public class URLUtilsTests {
 		String actual = URLUtils.generateURLVariablesPayload("TEST_TS", "TEST_ECID", "Adobe-Test@OrgId");
 		assertEquals("adobe_mc=TS%3DTEST_TS%7CMCMID%3DTEST_ECID%7CMCORGID%3DAdobe-Test%40OrgId", actual);
 	}
+
+	@Test
+	public void test_appendURLVariablesToURL() {
+		assertEquals(
+			"https://example.com?adobe_mc=v",
+			URLUtils.appendURLVariablesToURL("https://example.com", "adobe_mc=v")
+		);
+		assertEquals(
+			"https://example.com/path?a=b&adobe_mc=v",
+			URLUtils.appendURLVariablesToURL("https://example.com/path?a=b", "adobe_mc=v")
+		);
+		assertEquals(
+			"https://example.com?adobe_mc=v",
+			URLUtils.appendURLVariablesToURL("https://example.com?", "adobe_mc=v")
+		);
+		assertEquals(
+			"https://example.com?a=b&adobe_mc=v",
+			URLUtils.appendURLVariablesToURL("https://example.com?a=b&", "adobe_mc=v")
+		);
+		assertEquals(
+			"https://example.com/page?adobe_mc=v#section?x",
+			URLUtils.appendURLVariablesToURL("https://example.com/page#section?x", "adobe_mc=v")
+		);
+		assertEquals(
+			"https://example.com/page?a=b&adobe_mc=v#section",
+			URLUtils.appendURLVariablesToURL("https://example.com/page?a=b#section", "adobe_mc=v")
+		);
+	}
+
+	@Test
+	public void test_appendURLVariablesToURL_emptyValues_returnsURL() {
+		assertEquals("", URLUtils.appendURLVariablesToURL("", "adobe_mc=v"));
+		assertNull(URLUtils.appendURLVariablesToURL(null, "adobe_mc=v"));
+		assertEquals("https://example.com", URLUtils.appendURLVariablesToURL("https://example.com", null));
+		assertEquals("https://example.com", URLUtils.appendURLVariablesToURL("https://example.com", ""));
+	}
 }
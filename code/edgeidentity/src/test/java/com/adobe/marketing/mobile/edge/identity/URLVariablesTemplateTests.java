@@ -0,0 +1,85 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.identity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class URLVariablesTemplateTests {
+
+	@Test
+	public void test_build_matchesGeneratedPayload() {
+		final String ecid = new ECID().toString();
+		final URLVariablesTemplate template = URLVariablesTemplate.create(ecid, "Adobe-Test@OrgId");
+
+		assertNotNull(template);
+		assertEquals(
+			URLUtils.generateURLVariablesPayload("1700000000", ecid, "Adobe-Test@OrgId"),
+			template.build("1700000000")
+		);
+		assertEquals(
+			URLUtils.generateURLVariablesPayload("1700000001", ecid, "Adobe-Test@OrgId"),
+			template.build("1700000001")
+		);
+	}
+
+	@Test
+	public void test_build_specialCharacters_matchesGeneratedPayload() {
+		final URLVariablesTemplate template = URLVariablesTemplate.create("TEST ECID", "Org|Id=\u00e9&+/");
+
+		assertNotNull(template);
+		assertEquals(
+			URLUtils.generateURLVariablesPayload("123", "TEST ECID", "Org|Id=\u00e9&+/"),
+			template.build("123")
+		);
+	}
+
+	@Test
+	public void test_build_sameTimestamp_returnsCachedPayload() {
+		final URLVariablesTemplate template = URLVariablesTemplate.create("ecid", "orgId");
+
+		assertSame(template.build("1700000000"), template.build("1700000000"));
+	}
+
+	@Test
+	public void test_build_nonDigitTimestamp_matchesGeneratedPayload() {
+		final URLVariablesTemplate template = URLVariablesTemplate.create("ecid", "orgId");
+
+		assertEquals(URLUtils.generateURLVariablesPayload("TEST_TS", "ecid", "orgId"), template.build("TEST_TS"));
+		assertEquals(URLUtils.generateURLVariablesPayload("", "ecid", "orgId"), template.build(""));
+		assertEquals(URLUtils.generateURLVariablesPayload(null, "ecid", "orgId"), template.build(null));
+	}
+
+	@Test
+	public void test_matches() {
+		final URLVariablesTemplate template = URLVariablesTemplate.create("ecid", "orgId");
+
+		assertTrue(template.matches("ecid", "orgId"));
+		assertFalse(template.matches("otherEcid", "orgId"));
+		assertFalse(template.matches("ecid", "otherOrgId"));
+		assertFalse(template.matches(null, null));
+	}
+
+	@Test
+	public void test_create_invalidValues_returnsNull() {
+		assertNull(URLVariablesTemplate.create(null, "orgId"));
+		assertNull(URLVariablesTemplate.create("", "orgId"));
+		assertNull(URLVariablesTemplate.create("ecid", null));
+		assertNull(URLVariablesTemplate.create("ecid", ""));
+	}
+}
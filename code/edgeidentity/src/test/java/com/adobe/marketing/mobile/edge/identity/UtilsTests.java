@@ -13,6 +13,8 @@ package com.adobe.marketing.mobile.edge.identity;
 
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -36,4 +38,38 @@ public class UtilsTests {
 	public void test_isNullOrEmpty_nonEmptyNonNullList() {
 		assertFalse(Utils.isNullOrEmpty(Arrays.asList("A", 1, true)));
 	}
+
+	@Test
+	public void test_foldCase_equalIgnoringCase_haveEqualFoldedValues() {
+		assertEquals(Utils.foldCase("John@Doe.COM"), Utils.foldCase("john@doe.com"));
+		assertEquals(Utils.foldCase("\u00c9COLE"), Utils.foldCase("\u00e9cole"));
+		assertFalse(Utils.foldCase("john").equals(Utils.foldCase("jane")));
+	}
+
+	@Test
+	public void test_foldCase_alreadyFolded_returnsSameInstance() {
+		final String value = "already folded 123";
+		assertSame(value, Utils.foldCase(value));
+	}
+
+	@Test
+	public void test_utf8Length_nullString_returnsZero() {
+		assertEquals(0, Utils.utf8Length(null));
+	}
+
+	@Test
+	public void test_utf8Length_countsEncodedBytes() {
+		assertEquals(5, Utils.utf8Length("abcde"));
+		assertEquals(6, Utils.utf8Length("\u00e9cole"));
+		assertEquals(3, Utils.utf8Length("\u20ac"));
+		assertEquals(4, Utils.utf8Length("\ud83d\ude00"));
+	}
+
+	@Test
+	public void test_daemonThreadFactory_createsNamedDaemonThreads() {
+		final Thread thread = Utils.daemonThreadFactory("name").newThread(() -> {});
+
+		assertTrue(thread.isDaemon());
+		assertEquals("name", thread.getName());
+	}
 }
@@ -33,4 +33,10 @@ rootProject.name = "aepsdk-edgeidentity-android"
 include (
          ":app",
          ":edgeidentity"
-)
\ No newline at end of file
+)
+
+// The JMH benchmarks download their own dependencies and are not part of the regular build,
+// pass -PincludeBenchmarks to run them, see code/benchmark/README.md.
+if (providers.gradleProperty("includeBenchmarks").isPresent) {
+    include(":benchmark")
+}
\ No newline at end of file